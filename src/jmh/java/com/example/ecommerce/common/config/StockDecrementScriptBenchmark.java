@@ -0,0 +1,88 @@
+package com.example.ecommerce.common.config;
+
+import com.example.ecommerce.product.infrastructure.sync.StockSyncJob;
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stock reservation of a flash-sale purchase: stock-decrement.lua through
+ * RedisScriptRegistry (EVALSHA, argument serialization, latency timer) over Lettuce.
+ *
+ * Runs against jedis-mock, an in-process server that speaks the Redis protocol and runs Lua,
+ * so no Redis is needed. Its script engine is far slower than Redis; compare runs with each
+ * other, not with production latencies. Allocation per op covers the client side only.
+ * Script arguments are plain numbers, which both value formats write as JSON.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockDecrementScriptBenchmark {
+
+    private static final String STOCK_KEY = "stock:1";
+    private static final List<String> KEYS = List.of(STOCK_KEY, StockSyncJob.DIRTY_STOCK_KEY);
+
+    // redis.serializer; json is the application default
+    @Param({"json", "compact"})
+    public String serializer;
+
+    private RedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, Object> redisTemplate;
+    private RedisScriptRegistry scriptRegistry;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = RedisServer.newRedisServer();
+        server.start();
+
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        // Same template and registry as the application, with the given value format
+        redisTemplate = new RedisConfig().redisTemplate(connectionFactory, serializer);
+        scriptRegistry = new RedisScriptRegistry(redisTemplate, new SimpleMeterRegistry());
+        scriptRegistry.loadAll();
+    }
+
+    @Setup(Level.Iteration)
+    public void refillStock() {
+        // Enough that every invocation takes the decrement branch
+        redisTemplate.opsForValue().set(STOCK_KEY, Long.MAX_VALUE / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Benchmark
+    public Long decrementStock() {
+        return scriptRegistry.execute(RedisScriptRegistry.STOCK_DECREMENT, Long.class, KEYS, 1, 1L);
+    }
+}
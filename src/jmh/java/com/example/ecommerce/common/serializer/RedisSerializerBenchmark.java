@@ -0,0 +1,116 @@
+package com.example.ecommerce.common.serializer;
+
+import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON vs compact Redis value serialization for the payloads we cache most.
+ *
+ * Bytes per entry are printed once per trial; ns/op and allocation come from JMH (-prof gc).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisSerializerBenchmark {
+
+    // Same size as the products:all blob after seeding
+    private static final int CATALOG_SIZE = 500;
+
+    @Param({"json", "compact"})
+    public String format;
+
+    private RedisSerializer<Object> serializer;
+    private ProductDTO product;
+    private List<ProductDTO> catalog;
+    private ReviewDTO review;
+
+    private byte[] productBytes;
+    private byte[] catalogBytes;
+    private byte[] reviewBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same JSON setup as RedisConfig
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        json.configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+        serializer = "compact".equals(format) ? new CompactRedisSerializer(json) : json;
+
+        catalog = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 1; i <= CATALOG_SIZE; i++) {
+            catalog.add(new ProductDTO((long) i, "Product " + i, "This is the description for product " + i,
+                    199.99, (i % 9) * 10, "https://azurecdn.example.com/product" + (i % 5 + 1) + ".png"));
+        }
+        product = catalog.get(0);
+        review = new ReviewDTO(1L, "Arrived quickly, works as described.", 5, 42L, "alice",
+                7L, "Product 7", LocalDateTime.of(2025, 1, 15, 10, 30));
+
+        productBytes = serializer.serialize(product);
+        catalogBytes = serializer.serialize(catalog);
+        reviewBytes = serializer.serialize(review);
+
+        System.out.printf("%n[%s] bytes per entry: product=%d, catalog=%d (%.1f per product), review=%d%n",
+                format, productBytes.length, catalogBytes.length,
+                catalogBytes.length / (double) CATALOG_SIZE, reviewBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() {
+        return serializer.serialize(product);
+    }
+
+    @Benchmark
+    public Object deserializeProduct() {
+        return serializer.deserialize(productBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeCatalog() {
+        return serializer.serialize(catalog);
+    }
+
+    @Benchmark
+    public Object deserializeCatalog() {
+        return serializer.deserialize(catalogBytes);
+    }
+
+    /**
+     * A catalog page written to and read back from the cache, as on a miss followed by a hit.
+     */
+    @Benchmark
+    public Object roundTripCatalog() {
+        return serializer.deserialize(serializer.serialize(catalog));
+    }
+
+    @Benchmark
+    public byte[] serializeReview() {
+        return serializer.serialize(review);
+    }
+
+    @Benchmark
+    public Object deserializeReview() {
+        return serializer.deserialize(reviewBytes);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ecommerce.flashsale.app;
+
+import com.example.ecommerce.flashsale.api.dto.FlashSaleResponseDTO;
+import com.example.ecommerce.flashsale.domain.FlashSaleEvent;
+import com.example.ecommerce.flashsale.infrastructure.persistence.flashsale.FlashSaleDTOMapper;
+import com.example.ecommerce.product.domain.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FlashSaleService's per-request work on a sale: the active check done for every purchase,
+ * and the FlashSaleDTOMapper response mapping of create/update/findById.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlashSaleMappingBenchmark {
+
+    @Param({"5", "50"})
+    public int products;
+
+    private FlashSaleService service;
+    private FlashSaleEvent event;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // isActive does not touch the repositories; the active-sale index loads lazily
+        service = new FlashSaleService(null, null, null, null, Duration.ofSeconds(30));
+
+        Set<Product> saleProducts = new HashSet<>();
+        for (long i = 1; i <= products; i++) {
+            Product product = new Product();
+            product.setId(i);
+            product.setName("Product " + i);
+            product.setDescription("This is the description for product " + i);
+            product.setPrice(199.99);
+            product.setDiscount(30);
+            product.setImageLink("https://azurecdn.example.com/product" + (i % 5 + 1) + ".png");
+            saleProducts.add(product);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        event = new FlashSaleEvent(1L, "Midnight sale", now.minusHours(1), now.plusHours(1), saleProducts);
+    }
+
+    @Benchmark
+    public boolean isActive() {
+        return service.isActive(event);
+    }
+
+    @Benchmark
+    public FlashSaleResponseDTO toDTO() {
+        return FlashSaleDTOMapper.toDTO(event);
+    }
+}
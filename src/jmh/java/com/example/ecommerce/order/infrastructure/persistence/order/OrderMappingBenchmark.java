@@ -0,0 +1,75 @@
+package com.example.ecommerce.order.infrastructure.persistence.order;
+
+import com.example.ecommerce.order.api.dto.OrderDTO;
+import com.example.ecommerce.order.infrastructure.cache.order.OrderReadModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order mapping on the read and checkout paths: grouping the order-line rows of one page
+ * into OrderDTOs, and turning those into the read models the order caches store.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderMappingBenchmark {
+
+    // One order-history page (20 orders) and one listing page (50 orders)
+    @Param({"20", "50"})
+    public int orders;
+
+    private static final int ITEMS_PER_ORDER = 3;
+
+    private List<OrderLineRow> rows;
+    private List<OrderDTO> dtos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = new ArrayList<>(orders * ITEMS_PER_ORDER);
+        LocalDateTime date = LocalDateTime.of(2025, 1, 15, 10, 30);
+        long itemId = 1;
+        for (long order = 1; order <= orders; order++) {
+            for (int item = 0; item < ITEMS_PER_ORDER; item++) {
+                long productId = (order * 7 + item) % 500 + 1;
+                rows.add(new OrderLineRow(order, date.plusMinutes(order), item == 0 ? "SAVE10" : null, 539.97,
+                        order % 100 + 1, "user" + order, "user" + order + "@example.com",
+                        itemId++, 1 + item, 199.99, 199.99 * (1 + item),
+                        productId, "Product " + productId, "This is the description for product " + productId,
+                        199.99, 10, "https://azurecdn.example.com/product" + (productId % 5 + 1) + ".png"));
+            }
+        }
+        dtos = OrderDTOMapper.fromRows(rows);
+    }
+
+    @Benchmark
+    public List<OrderDTO> fromRows() {
+        return OrderDTOMapper.fromRows(rows);
+    }
+
+    @Benchmark
+    public List<OrderReadModel> toReadModels() {
+        List<OrderReadModel> models = new ArrayList<>(dtos.size());
+        for (OrderDTO dto : dtos) {
+            models.add(OrderReadModel.from(dto));
+        }
+        return models;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.ecommerce.product.infrastructure.persistence.product;
+
+import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.product.domain.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO conversions done by ProductDTOMapper on every cached product read and
+ * stock reservation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductMappingBenchmark {
+
+    private Product product;
+    private ProductDTO dto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        product = new Product();
+        product.setId(42L);
+        product.setName("Product 42");
+        product.setDescription("This is the description for product 42");
+        product.setPrice(199.99);
+        product.setDiscount(20);
+        product.setImageLink("https://azurecdn.example.com/product3.png");
+        dto = ProductDTOMapper.toDTO(product);
+    }
+
+    @Benchmark
+    public ProductDTO productToDTO() {
+        return ProductDTOMapper.toDTO(product);
+    }
+
+    @Benchmark
+    public Product dtoToProduct() {
+        return ProductDTOMapper.toProduct(dto);
+    }
+}
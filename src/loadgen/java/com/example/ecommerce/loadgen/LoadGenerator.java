@@ -0,0 +1,208 @@
+package com.example.ecommerce.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Replays a scenario against the db and the cached benchmark routes and compares them.
+ *
+ * Each route family gets the same arrival rate and the same request sequence (same seed).
+ * Variables marked partitioned draw from a disjoint slice per family, so writes made by one
+ * family (sold stock, redeemed coupons) do not change what the next one measures.
+ * Results are printed side by side and written to {out}/{scenario}-{timestamp}/: report.txt,
+ * summary.json, and one HdrHistogram percentile distribution ({family}.hgrm) per family.
+ *
+ * Usage:
+ *   mvn -Ploadgen compile exec:java -Dexec.args="--scenario browse --rate 500 --duration 60"
+ *
+ * Options (defaults in brackets):
+ *   --scenario       bundled scenario (browse, flash-sale-buy, coupon-rush) or a JSON file
+ *   --base-url       [http://localhost:8080]
+ *   --families       route families to compare, in order [db,cached]
+ *   --rate           arrivals per second [200]
+ *   --duration       measured seconds per family [60]
+ *   --warmup         unmeasured seconds before each family [10]
+ *   --max-in-flight  arrivals beyond this many open requests are dropped [1000]
+ *   --timeout-ms     request timeout [5000]
+ *   --seed           request sequence seed [42]
+ *   --out            result directory [target/loadgen]
+ *   --set            override a variable, name=min..max or name=a,b,c (repeatable); a
+ *                    partitioned variable stays partitioned
+ */
+public final class LoadGenerator {
+
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        Map<String, Scenario.Variable> overrides = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            String name = args[i].substring(2);
+            String value = args[++i];
+            if (name.equals("set")) {
+                parseOverride(value, overrides);
+            } else {
+                options.put(name, value);
+            }
+        }
+        if (!options.containsKey("scenario")) {
+            throw new IllegalArgumentException("--scenario is required (browse, flash-sale-buy, coupon-rush or a file)");
+        }
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Scenario scenario = Scenario.load(options.get("scenario"), mapper);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        List<String> families = Arrays.asList(options.getOrDefault("families", "db,cached").split(","));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "1000"));
+        Duration timeout = Duration.ofMillis(Long.parseLong(options.getOrDefault("timeout-ms", "5000")));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        Path out = Path.of(options.getOrDefault("out", "target/loadgen"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        List<Map<String, Function<SplittableRandom, String>>> variables =
+                RequestFactory.resolveVariables(scenario, overrides, client, mapper, baseUrl, families.size());
+        OpenLoopRunner runner = new OpenLoopRunner(client, baseUrl, rate, maxInFlight, timeout);
+
+        List<RunResult> results = new ArrayList<>();
+        for (int i = 0; i < families.size(); i++) {
+            String family = families.get(i);
+            System.out.printf("Running %s against /api/benchmark/%s: %.0f req/s, %ds warmup + %ds%n",
+                    scenario.name(), family, rate, warmup.toSeconds(), duration.toSeconds());
+            results.add(runner.run(family, new RequestFactory(scenario, variables.get(i), seed), warmup, duration));
+        }
+
+        String header = String.format("Scenario %s, %.0f req/s open loop, %ds per family (after %ds warmup)%n",
+                scenario.name(), rate, duration.toSeconds(), warmup.toSeconds());
+        System.out.println();
+        System.out.print(header);
+        printReport(results, System.out);
+
+        Path runDir = out.resolve(scenario.name() + "-" + LocalDateTime.now().format(RUN_ID));
+        save(runDir, header, scenario, options, results, mapper);
+        System.out.println("Results written to " + runDir.toAbsolutePath());
+        System.exit(0);
+    }
+
+    private static void parseOverride(String value, Map<String, Scenario.Variable> overrides) {
+        int eq = value.indexOf('=');
+        if (eq < 0) {
+            throw new IllegalArgumentException("--set expects name=min..max or name=a,b,c, got " + value);
+        }
+        String name = value.substring(0, eq);
+        String spec = value.substring(eq + 1);
+        int range = spec.indexOf("..");
+        if (range >= 0) {
+            overrides.put(name, new Scenario.Variable(
+                    Long.parseLong(spec.substring(0, range)), Long.parseLong(spec.substring(range + 2)), null, null, null, null));
+        } else {
+            overrides.put(name, new Scenario.Variable(null, null, List.of(spec.split(",")), null, null, null));
+        }
+    }
+
+    private static void printReport(List<RunResult> results, PrintStream printer) {
+        printer.printf("%-14s", "");
+        results.forEach(result -> printer.printf("%14s", result.family()));
+        printer.println();
+
+        row(printer, "requests", results, result -> String.valueOf(result.overall().total()));
+        row(printer, "throughput/s", results, result -> String.format("%.1f", result.throughput()));
+        row(printer, "errors", results, result -> String.format("%.2f%%", result.overall().errorRate() * 100));
+        row(printer, "dropped", results, result -> String.valueOf(result.dropped()));
+        for (double percentile : PERCENTILES) {
+            row(printer, "p" + formatPercentile(percentile) + " ms", results,
+                    result -> String.format("%.2f", result.overall().percentileMs(percentile)));
+        }
+        row(printer, "max ms", results, result -> String.format("%.2f", result.overall().latency.getMaxValue() / 1000.0));
+    }
+
+    private static void row(PrintStream printer, String label, List<RunResult> results, Function<RunResult, String> cell) {
+        printer.printf("%-14s", label);
+        results.forEach(result -> printer.printf("%14s", cell.apply(result)));
+        printer.println();
+    }
+
+    private static void save(Path runDir, String header, Scenario scenario, Map<String, String> options,
+                             List<RunResult> results, ObjectMapper mapper) throws IOException {
+        Files.createDirectories(runDir);
+
+        try (PrintStream report = new PrintStream(Files.newOutputStream(runDir.resolve("report.txt")))) {
+            report.print(header);
+            printReport(results, report);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("scenario", scenario.name());
+        summary.put("options", new HashMap<>(options));
+        Map<String, Object> families = new LinkedHashMap<>();
+        for (RunResult result : results) {
+            Map<String, Object> family = new LinkedHashMap<>(describe(result.overall()));
+            family.put("throughputPerSecond", result.throughput());
+            family.put("dropped", result.dropped());
+            Map<String, Object> steps = new LinkedHashMap<>();
+            result.bySteps().forEach((step, outcomes) -> steps.put(step, describe(outcomes)));
+            family.put("steps", steps);
+            families.put(result.family(), family);
+
+            // Percentiles in milliseconds, readable by the HdrHistogram plotter
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(runDir.resolve(result.family() + ".hgrm")))) {
+                result.overall().latency.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        summary.put("families", families);
+        mapper.writeValue(runDir.resolve("summary.json").toFile(), summary);
+    }
+
+    private static Map<String, Object> describe(RunResult.Outcomes outcomes) {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("requests", outcomes.total());
+        described.put("errors", outcomes.errors.sum());
+        described.put("errorRate", outcomes.errorRate());
+        described.put("statuses", outcomes.statusCounts());
+        Map<String, Double> latency = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            latency.put("p" + formatPercentile(percentile), outcomes.percentileMs(percentile));
+        }
+        latency.put("max", outcomes.latency.getMaxValue() / 1000.0);
+        latency.put("mean", outcomes.latency.getMean() / 1000.0);
+        described.put("latencyMs", latency);
+        return described;
+    }
+
+    // 99.9 -> "999", 50 -> "50"
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile)
+                ? String.valueOf((long) percentile)
+                : String.valueOf(percentile).replace(".", "");
+    }
+}
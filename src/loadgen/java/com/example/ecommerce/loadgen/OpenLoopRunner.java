@@ -0,0 +1,92 @@
+package com.example.ecommerce.loadgen;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed arrival rate, whether or not earlier ones have completed.
+ *
+ * A closed loop (N clients, each waiting for its response) slows down with the server and
+ * hides its stalls. Here request i is due at start + i / rate and sent asynchronously; its
+ * latency is measured from that due time. Arrivals beyond the in-flight limit are dropped
+ * and counted, rather than queued, so the client never becomes the bottleneck unnoticed.
+ */
+final class OpenLoopRunner {
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final double rate;
+    private final int maxInFlight;
+    private final Duration timeout;
+
+    OpenLoopRunner(HttpClient client, String baseUrl, double rate, int maxInFlight, Duration timeout) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Drive one route family for warmup + duration; only the duration is measured.
+     */
+    RunResult run(String family, RequestFactory requests, Duration warmup, Duration duration) throws InterruptedException {
+        RunResult result = new RunResult(family);
+        String prefix = baseUrl + "/api/benchmark/" + family;
+        AtomicInteger inFlight = new AtomicInteger();
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long due = start + i * intervalNanos;
+            if (due >= end) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            boolean measured = due >= measureFrom;
+            if (inFlight.get() >= maxInFlight) {
+                if (measured) {
+                    result.drop();
+                }
+                continue;
+            }
+
+            RequestFactory.Built built = requests.next(prefix, timeout);
+            inFlight.incrementAndGet();
+            client.sendAsync(built.request(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long latency = System.nanoTime() - due;
+                        inFlight.decrementAndGet();
+                        if (!measured) {
+                            return;
+                        }
+                        if (error != null) {
+                            Throwable cause = error.getCause() != null ? error.getCause() : error;
+                            result.record(built.step().name(), latency, cause.getClass().getSimpleName(), false);
+                        } else {
+                            int status = response.statusCode();
+                            result.record(built.step().name(), latency, Integer.toString(status), built.step().isSuccess(status));
+                        }
+                    });
+        }
+        result.setMeasuredSeconds(duration.toNanos() / 1e9);
+
+        // Let the last arrivals finish; they time out at the latest after the request timeout
+        long drainUntil = System.nanoTime() + timeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        return result;
+    }
+}
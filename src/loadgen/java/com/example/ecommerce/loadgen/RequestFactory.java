@@ -0,0 +1,169 @@
+package com.example.ecommerce.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds concrete requests from a scenario: picks a step by weight and fills in its variables.
+ *
+ * Not thread-safe; the runner calls it from its single arrival thread.
+ */
+final class RequestFactory {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{(\\w+)}");
+
+    private final List<Scenario.Step> steps;
+    private final int[] cumulativeWeights;
+    private final Map<String, Function<SplittableRandom, String>> variables;
+    private final SplittableRandom random;
+
+    /**
+     * A request and the step it was built from.
+     */
+    record Built(Scenario.Step step, HttpRequest request) {
+    }
+
+    RequestFactory(Scenario scenario, Map<String, Function<SplittableRandom, String>> variables, long seed) {
+        this.steps = scenario.requests();
+        this.cumulativeWeights = new int[steps.size()];
+        int total = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            total += steps.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+        this.variables = variables;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Turn the scenario's variables (with command line overrides) into value generators, one
+     * map per family, fetching the ones backed by an endpoint. Partitioned variables get a
+     * disjoint slice of their values in each family's map.
+     */
+    static List<Map<String, Function<SplittableRandom, String>>> resolveVariables(
+            Scenario scenario, Map<String, Scenario.Variable> overrides,
+            HttpClient client, ObjectMapper mapper, String baseUrl, int families)
+            throws IOException, InterruptedException {
+        Map<String, Scenario.Variable> definitions = new HashMap<>();
+        if (scenario.variables() != null) {
+            definitions.putAll(scenario.variables());
+        }
+        overrides.forEach((name, override) -> {
+            Scenario.Variable defined = definitions.get(name);
+            Boolean partitioned = defined != null ? defined.partitioned() : null;
+            definitions.put(name, new Scenario.Variable(override.min(), override.max(), override.values(),
+                    override.fetch(), override.field(), partitioned));
+        });
+
+        List<Map<String, Function<SplittableRandom, String>>> resolved = new ArrayList<>();
+        for (int i = 0; i < families; i++) {
+            resolved.add(new HashMap<>());
+        }
+        for (Map.Entry<String, Scenario.Variable> entry : definitions.entrySet()) {
+            String name = entry.getKey();
+            Scenario.Variable variable = entry.getValue();
+            List<String> values = variable.values();
+            int slices = variable.isPartitioned() ? families : 1;
+
+            if (variable.fetch() != null) {
+                values = fetchValues(variable, client, mapper, baseUrl);
+            }
+            for (int i = 0; i < families; i++) {
+                int slice = slices == 1 ? 0 : i;
+                if (values != null) {
+                    List<String> choices = List.copyOf(values.subList(
+                            values.size() * slice / slices, values.size() * (slice + 1) / slices));
+                    if (choices.isEmpty()) {
+                        throw new IllegalArgumentException("Variable " + name + " has too few values for " + slices + " families");
+                    }
+                    resolved.get(i).put(name, random -> choices.get(random.nextInt(choices.size())));
+                } else if (variable.min() != null && variable.max() != null) {
+                    long count = variable.max() - variable.min() + 1;
+                    long min = variable.min() + count * slice / slices;
+                    long max = variable.min() + count * (slice + 1) / slices - 1;
+                    if (max < min) {
+                        throw new IllegalArgumentException("Variable " + name + " has too few values for " + slices + " families");
+                    }
+                    resolved.get(i).put(name, random -> Long.toString(random.nextLong(min, max + 1)));
+                } else {
+                    throw new IllegalArgumentException("Variable " + name + " needs min/max, values or fetch");
+                }
+            }
+        }
+        return resolved;
+    }
+
+    Built next(String familyPrefix, Duration timeout) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (cumulativeWeights[index] <= pick) {
+            index++;
+        }
+        Scenario.Step step = steps.get(index);
+
+        // One value per variable and request, so a path and its body agree
+        Map<String, String> drawn = new HashMap<>();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(familyPrefix + fill(step.path(), drawn)))
+                .timeout(timeout);
+        String method = step.method() != null ? step.method() : "GET";
+        if (step.body() != null) {
+            builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(fill(step.body(), drawn)));
+        } else {
+            builder.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return new Built(step, builder.build());
+    }
+
+    private String fill(String template, Map<String, String> drawn) {
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuilder out = new StringBuilder();
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            Function<SplittableRandom, String> source = variables.get(name);
+            if (source == null) {
+                throw new IllegalArgumentException("Unknown variable ${" + name + "}");
+            }
+            matcher.appendReplacement(out, Matcher.quoteReplacement(drawn.computeIfAbsent(name, n -> source.apply(random))));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+
+    private static List<String> fetchValues(Scenario.Variable variable, HttpClient client,
+                                            ObjectMapper mapper, String baseUrl) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + variable.fetch())).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + variable.fetch() + " returned " + response.statusCode());
+        }
+
+        JsonNode root = mapper.readTree(response.body());
+        // Paged responses wrap the array in "items"
+        JsonNode array = root.isArray() ? root : root.path("items");
+        List<String> values = new ArrayList<>();
+        for (JsonNode element : array) {
+            JsonNode value = variable.field() != null ? element.path(variable.field()) : element;
+            if (!value.isMissingNode() && !value.isNull()) {
+                values.add(value.asText());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.ecommerce.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measurements of one route family: latency histograms and outcome counts, overall and per step.
+ *
+ * Latencies are recorded in microseconds, from the time a request was scheduled to be sent
+ * (not when it was sent), so a stalled server shows up as latency instead of fewer requests.
+ */
+final class RunResult {
+
+    // 1 µs to 60 s at 3 significant digits
+    private static final long HIGHEST_TRACKABLE_US = TimeUnit.SECONDS.toMicros(60);
+
+    private final String family;
+    private final Outcomes overall = new Outcomes();
+    private final Map<String, Outcomes> bySteps = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile double measuredSeconds;
+
+    /**
+     * Counts and latencies of one group of requests.
+     */
+    static final class Outcomes {
+        final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_US, 3);
+        final LongAdder success = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        long total() {
+            return success.sum() + errors.sum();
+        }
+
+        double errorRate() {
+            long total = total();
+            return total == 0 ? 0 : (double) errors.sum() / total;
+        }
+
+        double percentileMs(double percentile) {
+            return latency.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        Map<String, Long> statusCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            return counts;
+        }
+
+        private void record(long latencyUs, String status, boolean ok) {
+            latency.recordValue(Math.min(latencyUs, HIGHEST_TRACKABLE_US));
+            (ok ? success : errors).increment();
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+    }
+
+    RunResult(String family) {
+        this.family = family;
+    }
+
+    /**
+     * @param status HTTP status, or the exception name when there was no response
+     */
+    void record(String step, long latencyNanos, String status, boolean ok) {
+        long latencyUs = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        overall.record(latencyUs, status, ok);
+        bySteps.computeIfAbsent(step, s -> new Outcomes()).record(latencyUs, status, ok);
+    }
+
+    /**
+     * An arrival that was not sent because too many requests were in flight.
+     */
+    void drop() {
+        dropped.increment();
+    }
+
+    void setMeasuredSeconds(double measuredSeconds) {
+        this.measuredSeconds = measuredSeconds;
+    }
+
+    String family() {
+        return family;
+    }
+
+    Outcomes overall() {
+        return overall;
+    }
+
+    Map<String, Outcomes> bySteps() {
+        return new TreeMap<>(bySteps);
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Completed requests per second of the measured window.
+     */
+    double throughput() {
+        return measuredSeconds == 0 ? 0 : overall.total() / measuredSeconds;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.ecommerce.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A load scenario: weighted request templates replayed against one route family.
+ *
+ * Read from a JSON file, or by name from classpath:scenarios/{name}.json. Paths are relative to
+ * /api/benchmark/{family}, so the same scenario drives the db and the cached routes. Paths and
+ * bodies may reference variables as ${name}; each request draws its own values.
+ */
+public record Scenario(
+        String name,
+        String description,
+        Map<String, Variable> variables,
+        List<Step> requests) {
+
+    /**
+     * Where a variable's values come from: a numeric range, a fixed list, or a field of every
+     * element of a JSON array fetched once before the run (an absolute path, e.g. /api/benchmark/db/coupons).
+     *
+     * @param partitioned split the values into one disjoint slice per family. Both families write
+     *                    to the same stock counters and coupons, so without it the family that runs
+     *                    second finds the products sold out and the codes redeemed by the first.
+     */
+    public record Variable(Long min, Long max, List<String> values, String fetch, String field, Boolean partitioned) {
+
+        boolean isPartitioned() {
+            return Boolean.TRUE.equals(partitioned);
+        }
+    }
+
+    /**
+     * One request template.
+     *
+     * @param weight share of the arrivals, relative to the other steps
+     * @param expect statuses counted as success besides 2xx, e.g. 400 for a sold-out flash sale
+     */
+    public record Step(String name, int weight, String method, String path, String body, List<Integer> expect) {
+
+        public boolean isSuccess(int status) {
+            return (status >= 200 && status < 300) || (expect != null && expect.contains(status));
+        }
+    }
+
+    public static Scenario load(String nameOrPath, ObjectMapper mapper) throws IOException {
+        Path file = Path.of(nameOrPath);
+        if (Files.isRegularFile(file)) {
+            return validate(mapper.readValue(file.toFile(), Scenario.class));
+        }
+        try (InputStream in = Scenario.class.getResourceAsStream("/scenarios/" + nameOrPath + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("No scenario file or bundled scenario named " + nameOrPath);
+            }
+            return validate(mapper.readValue(in, Scenario.class));
+        }
+    }
+
+    private static Scenario validate(Scenario scenario) {
+        if (scenario.requests() == null || scenario.requests().isEmpty()) {
+            throw new IllegalArgumentException("Scenario " + scenario.name() + " has no requests");
+        }
+        for (Step step : scenario.requests()) {
+            if (step.weight() <= 0 || step.path() == null) {
+                throw new IllegalArgumentException("Step " + step.name() + " needs a path and a positive weight");
+            }
+        }
+        return scenario;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.ecommerce.category.domain;
 
+import com.example.ecommerce.common.config.IdSequences;
 import com.example.ecommerce.product.domain.Product;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -20,7 +21,8 @@ import java.util.Set;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "products"})
 public class Category {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq")
+    @SequenceGenerator(name = "category_seq", sequenceName = "category_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     private String name;
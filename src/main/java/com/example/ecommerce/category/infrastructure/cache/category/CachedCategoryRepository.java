@@ -4,6 +4,8 @@ import com.example.ecommerce.category.api.dto.CategoryDTO;
 import com.example.ecommerce.category.domain.Category;
 import com.example.ecommerce.category.infrastructure.persistence.category.CategoryTable;
 import com.example.ecommerce.category.infrastructure.persistence.category.ICategoryRepository;
+import com.example.ecommerce.common.cache.NegativeCache;
+import com.example.ecommerce.common.cache.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -30,8 +32,11 @@ public class CachedCategoryRepository implements ICategoryRepository {
 
     private final CategoryTable categoryTable;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SingleFlight singleFlight;
+    private final NegativeCache negativeCache;
     
     private static final String CACHE_KEY_PREFIX = "category:";
+    private static final String MISS_DOMAIN = "category";
     private static final String ALL_CATEGORIES_KEY = "categories:all";
 
     /**
@@ -42,6 +47,7 @@ public class CachedCategoryRepository implements ICategoryRepository {
     public Category create(@NonNull Category category) {
         // Step 1: Write to database first
         Category saved = categoryTable.save(category);
+        negativeCache.clear(MISS_DOMAIN, saved.getId());
         
         // Step 2: Write to cache (write-through)
         cacheCategory(saved);
@@ -69,7 +75,7 @@ public class CachedCategoryRepository implements ICategoryRepository {
     public List<CategoryDTO> findAllDTO() {
         // Step 1: Check cache
         try {
-            List<CategoryDTO> cachedDTOs = (List<CategoryDTO>) redisTemplate.opsForValue().get(ALL_CATEGORIES_KEY);
+            List<CategoryDTO> cachedDTOs = getCachedAllDTO();
             if (cachedDTOs != null) {
                 return cachedDTOs;
             }
@@ -78,21 +84,23 @@ public class CachedCategoryRepository implements ICategoryRepository {
             invalidateAllCategoriesCache();
         }
 
-        // Step 2: Cache miss - fetch from database
-        List<Category> categories = categoryTable.findAll();
+        return singleFlight.load(ALL_CATEGORIES_KEY, this::getCachedAllDTO, () -> {
+            // Step 2: Cache miss - fetch from database
+            List<Category> categories = categoryTable.findAll();
 
-        // Step 3: Populate cache (read-through)
-        List<CategoryDTO> dtos = categories.stream()
-                .map(this::categoryToDTO)
-                .collect(Collectors.toList());
+            // Step 3: Populate cache (read-through)
+            List<CategoryDTO> dtos = categories.stream()
+                    .map(this::categoryToDTO)
+                    .collect(Collectors.toList());
 
-        if (!dtos.isEmpty()) {
-            redisTemplate.opsForValue().set(ALL_CATEGORIES_KEY, dtos);
-            // Also cache individual categories for consistency
-            categories.forEach(this::cacheCategory);
-        }
+            if (!dtos.isEmpty()) {
+                redisTemplate.opsForValue().set(ALL_CATEGORIES_KEY, dtos);
+                // Also cache individual categories for consistency
+                categories.forEach(this::cacheCategory);
+            }
 
-        return dtos;
+            return dtos;
+        });
     }
 
     /**
@@ -110,22 +118,25 @@ public class CachedCategoryRepository implements ICategoryRepository {
         String cacheKey = CACHE_KEY_PREFIX + id;
 
         try {
-            Object cached = redisTemplate.opsForValue().get(cacheKey);
-            if (cached instanceof CategoryDTO dto) {
-                return Optional.of(dto);
-            }
-            if (cached instanceof Category category) {
-                return Optional.of(categoryToDTO(category));
+            Optional<CategoryDTO> cached = getCachedDTO(cacheKey);
+            if (cached != null) {
+                return cached;
             }
         } catch (Exception e) {
             log.warn("Failed to deserialize cached category {}, evicting from cache: {}", id, e.getMessage());
             evictFromCache(id);
         }
 
-        // Cache miss - fetch from database
-        Optional<Category> categoryOpt = categoryTable.findById(id);
-        categoryOpt.ifPresent(this::cacheCategory);
-        return categoryOpt.map(this::categoryToDTO);
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
+        }
+
+        // Cache miss - fetch from database, once for all concurrent misses
+        return singleFlight.loadOptional(cacheKey, () -> getCachedDTO(cacheKey), MISS_DOMAIN, id, () -> {
+            Optional<Category> categoryOpt = categoryTable.findById(id);
+            categoryOpt.ifPresentOrElse(this::cacheCategory, () -> negativeCache.markMissing(MISS_DOMAIN, id));
+            return categoryOpt.map(this::categoryToDTO);
+        });
     }
 
     /**
@@ -165,6 +176,25 @@ public class CachedCategoryRepository implements ICategoryRepository {
     // Private Cache Helper Methods
     // ========================================
     
+    @SuppressWarnings("unchecked")
+    private List<CategoryDTO> getCachedAllDTO() {
+        return (List<CategoryDTO>) redisTemplate.opsForValue().get(ALL_CATEGORIES_KEY);
+    }
+
+    /**
+     * The cached category, or null on a cache miss.
+     */
+    private Optional<CategoryDTO> getCachedDTO(String cacheKey) {
+        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        if (cached instanceof CategoryDTO dto) {
+            return Optional.of(dto);
+        }
+        if (cached instanceof Category category) {
+            return Optional.of(categoryToDTO(category));
+        }
+        return null;
+    }
+    
     private void cacheCategory(Category category) {
         String cacheKey = CACHE_KEY_PREFIX + category.getId();
         redisTemplate.opsForValue().set(cacheKey, categoryToDTO(category));
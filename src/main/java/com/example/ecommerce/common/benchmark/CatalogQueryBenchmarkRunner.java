@@ -0,0 +1,157 @@
+package com.example.ecommerce.common.benchmark;
+
+import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductTable;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Catalog read benchmark, enabled with the "benchmark" profile.
+ *
+ * Seeds products x categories x price changes inside one transaction, then compares the old
+ * single query fetch-joining stock, categories and price history with the batched
+ * collection fetches and the flat catalog projection. Reports rows returned by the database,
+ * time and heap allocated by the reading thread. The transaction is rolled back at the end.
+ *
+ * Run: mvn spring-boot:run -Dspring-boot.run.profiles=benchmark
+ */
+@Component
+@Profile("benchmark")
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogQueryBenchmarkRunner implements ApplicationRunner {
+
+    private static final String BENCH_PRODUCT_NAME = "BENCH-CATALOG";
+    private static final String BENCH_CATEGORY_PREFIX = "BENCH-CATALOG-";
+
+    // The fetch join findAllWithStock used before the collections were split out
+    private static final String CARTESIAN_QUERY = """
+        SELECT DISTINCT p
+        FROM Product p
+        LEFT JOIN FETCH p.stock
+        LEFT JOIN FETCH p.categories
+        LEFT JOIN FETCH p.priceHistory
+    """;
+
+    private static final String CARTESIAN_ROWS_SQL = """
+        SELECT count(*) FROM products p
+        LEFT JOIN stocks s ON s.id = p.stock_id
+        LEFT JOIN product_categories pc ON pc.product_id = p.id
+        LEFT JOIN product_price_history h ON h.product_id = p.id
+    """;
+
+    private static final String BATCHED_ROWS_SQL = """
+        SELECT (SELECT count(*) FROM products)
+             + (SELECT count(*) FROM products p LEFT JOIN product_categories pc ON pc.product_id = p.id)
+             + (SELECT count(*) FROM products p LEFT JOIN product_price_history h ON h.product_id = p.id)
+    """;
+
+    private final ProductTable productTable;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${benchmark.catalog.products:10000}")
+    private int products;
+
+    @Value("${benchmark.catalog.categories-per-product:5}")
+    private int categoriesPerProduct;
+
+    @Value("${benchmark.catalog.price-changes-per-product:20}")
+    private int priceChangesPerProduct;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Catalog benchmark: {} products x {} categories x {} price changes",
+                products, categoriesPerProduct, priceChangesPerProduct);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            seed();
+            entityManager.flush();
+            entityManager.clear();
+
+            long cartesianRows = count(CARTESIAN_ROWS_SQL);
+            long batchedRows = count(BATCHED_ROWS_SQL);
+            long catalogRows = count("SELECT count(*) FROM products");
+
+            // Warm up each path once so class loading and plan caching are not measured
+            measure("fetch join (before)", cartesianRows, this::loadCartesian, false);
+            measure("fetch join (before)", cartesianRows, this::loadCartesian, true);
+            measure("batched collections", batchedRows, productTable::findAllWithRelations, false);
+            measure("batched collections", batchedRows, productTable::findAllWithRelations, true);
+            measure("catalog projection", catalogRows, productTable::findCatalog, false);
+            measure("catalog projection", catalogRows, productTable::findCatalog, true);
+
+            status.setRollbackOnly();
+        });
+    }
+
+    private List<Product> loadCartesian() {
+        return entityManager.createQuery(CARTESIAN_QUERY, Product.class).getResultList();
+    }
+
+    private void measure(String scenario, long rows, Supplier<List<?>> query, boolean report) {
+        entityManager.clear();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        int results = query.get().size();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        if (report) {
+            log.info("{}: {} results from {} rows in {} ms, {} MB allocated",
+                    scenario, results, rows, millis, allocated / (1024 * 1024));
+        }
+    }
+
+    private void seed() {
+        jdbcTemplate.update("""
+            INSERT INTO category (id, name)
+            SELECT nextval('category_seq'), ? || g FROM generate_series(1, ?) g
+        """, BENCH_CATEGORY_PREFIX, categoriesPerProduct);
+
+        jdbcTemplate.update("""
+            WITH s AS (
+                INSERT INTO stocks (id, total_stock, current_value)
+                SELECT nextval('stocks_seq'), 100, 100 FROM generate_series(1, ?)
+                RETURNING id
+            )
+            INSERT INTO products (id, name, description, price, discount, image_link, stock_id)
+            SELECT nextval('products_seq'), ?, 'Catalog benchmark product', 19.99, 0,
+                   'https://example.com/benchmark.png', s.id
+            FROM s
+        """, products, BENCH_PRODUCT_NAME);
+
+        jdbcTemplate.update("""
+            INSERT INTO product_categories (product_id, category_id)
+            SELECT p.id, c.id FROM products p CROSS JOIN category c
+            WHERE p.name = ? AND c.name LIKE ?
+        """, BENCH_PRODUCT_NAME, BENCH_CATEGORY_PREFIX + "%");
+
+        jdbcTemplate.update("""
+            INSERT INTO product_price_history (id, old_price, new_price, changed_at, product_id)
+            SELECT nextval('product_price_history_seq'), 19.99, 19.99 + g, now() - g * interval '1 day', p.id
+            FROM products p CROSS JOIN generate_series(1, ?) g
+            WHERE p.name = ?
+        """, priceChangesPerProduct, BENCH_PRODUCT_NAME);
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count != null ? count : 0;
+    }
+}
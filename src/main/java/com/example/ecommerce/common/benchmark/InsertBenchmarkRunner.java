@@ -0,0 +1,164 @@
+package com.example.ecommerce.common.benchmark;
+
+import com.example.ecommerce.coupon.domain.Coupon;
+import com.example.ecommerce.coupon.infrastructure.persistence.CouponTable;
+import com.example.ecommerce.order.domain.Order;
+import com.example.ecommerce.order.domain.OrderItem;
+import com.example.ecommerce.order.infrastructure.persistence.order.OrderTable;
+import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductTable;
+import com.example.ecommerce.user.domain.User;
+import com.example.ecommerce.user.infrastructure.persistence.user.UserTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput benchmark, enabled with the "benchmark" profile.
+ *
+ * Compares one transaction per entity (the old generator and request-path behaviour) with
+ * saveAll batches for coupon seeding and 3-item order creation. Every transaction is rolled
+ * back after its flush, so the database keeps no benchmark rows.
+ *
+ * Run: mvn spring-boot:run -Dspring-boot.run.profiles=benchmark
+ */
+@Component
+@Profile("benchmark")
+@RequiredArgsConstructor
+@Slf4j
+public class InsertBenchmarkRunner implements ApplicationRunner {
+
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int BATCH_SIZE = 50;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    private final CouponTable couponTable;
+    private final OrderTable orderTable;
+    private final UserTable userTable;
+    private final ProductTable productTable;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${benchmark.insert.rows:1000}")
+    private int rows;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Insert benchmark: {} rows per scenario, batch size {}", rows, BATCH_SIZE);
+
+        // Scenario 1: coupon seeding
+        measure("coupons / row-by-row", rows, () -> {
+            for (int i = 0; i < rows; i++) {
+                Coupon coupon = newCoupon();
+                inRolledBackTransaction(() -> couponTable.saveAndFlush(coupon));
+            }
+        });
+        measure("coupons / batched", rows, () -> {
+            for (List<Coupon> chunk : chunks(rows, this::newCoupon)) {
+                inRolledBackTransaction(() -> {
+                    couponTable.saveAll(chunk);
+                    couponTable.flush();
+                });
+            }
+        });
+
+        // Scenario 2: order creation, needs one user and a few products
+        List<User> users = userTable.findAll(PageRequest.of(0, 1)).getContent();
+        List<Product> products = productTable.findAll(PageRequest.of(0, ITEMS_PER_ORDER)).getContent();
+        if (users.isEmpty() || products.size() < ITEMS_PER_ORDER) {
+            log.warn("Skipping order benchmark: needs at least one user and {} products", ITEMS_PER_ORDER);
+            return;
+        }
+        User user = users.get(0);
+        int insertsPerOrder = 1 + ITEMS_PER_ORDER;
+
+        measure("orders / row-by-row", rows * insertsPerOrder, () -> {
+            for (int i = 0; i < rows; i++) {
+                Order order = newOrder(user, products);
+                inRolledBackTransaction(() -> orderTable.saveAndFlush(order));
+            }
+        });
+        measure("orders / batched", rows * insertsPerOrder, () -> {
+            for (List<Order> chunk : chunks(rows, () -> newOrder(user, products))) {
+                inRolledBackTransaction(() -> {
+                    orderTable.saveAll(chunk);
+                    orderTable.flush();
+                });
+            }
+        });
+    }
+
+    private void measure(String scenario, int insertedRows, Runnable work) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            work.run();
+        }
+
+        long start = System.nanoTime();
+        work.run();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        log.info("{}: {} inserts in {} ms -> {} inserts/sec",
+                scenario, insertedRows, Math.round(seconds * 1000), Math.round(insertedRows / seconds));
+    }
+
+    private void inRolledBackTransaction(Runnable work) {
+        transactionTemplate.executeWithoutResult(status -> {
+            work.run();
+            status.setRollbackOnly();
+        });
+    }
+
+    private <T> List<List<T>> chunks(int count, Supplier<T> factory) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i += BATCH_SIZE) {
+            List<T> chunk = new ArrayList<>(BATCH_SIZE);
+            for (int j = i; j < Math.min(count, i + BATCH_SIZE); j++) {
+                chunk.add(factory.get());
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private Coupon newCoupon() {
+        Coupon coupon = new Coupon();
+        coupon.setCode("BENCH-" + UUID.randomUUID());
+        coupon.setDiscount(10);
+        coupon.setValidUntil(LocalDateTime.now().plusDays(1));
+        coupon.setUsed(false);
+        return coupon;
+    }
+
+    private Order newOrder(User user, List<Product> products) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.now());
+
+        List<OrderItem> items = new ArrayList<>(products.size());
+        double totalCost = 0;
+        for (Product product : products) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setUnitPrice(product.getPrice());
+            item.setOrderItemPrice(product.getPrice());
+            items.add(item);
+            totalCost += product.getPrice();
+        }
+        order.setItems(items);
+        order.setTotalCost(totalCost);
+        return order;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.ecommerce.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers lookups that found nothing in the database, so repeated requests for a missing
+ * or deleted ID do not query it again.
+ *
+ * A miss is stored as a short-lived marker, miss:{domain}:{id}, and cleared when an entity
+ * with that ID (or code) is created. The TTL bounds how long a value created some other way
+ * (another service, a manual insert) stays hidden. Redis errors are logged and ignored: the
+ * lookup then simply goes to the database.
+ *
+ * Metrics:
+ * - cache.negative  - per domain, by result: hit (database query avoided), stored (miss recorded)
+ */
+@Component
+@Slf4j
+public class NegativeCache {
+
+    private static final String KEY_PREFIX = "miss:";
+    private static final Byte MARKER = 1;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+
+    private final Map<String, Counter> hits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> stores = new ConcurrentHashMap<>();
+
+    public NegativeCache(
+            RedisTemplate<String, Object> redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${cache.negative.ttl-ms:30000}") long ttlMs) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.ttl = Duration.ofMillis(ttlMs);
+    }
+
+    /**
+     * True when a recent lookup for this ID found nothing.
+     */
+    public boolean isMissing(@NonNull String domain, @NonNull Object id) {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(key(domain, id)))) {
+                counter(hits, domain, "hit").increment();
+                return true;
+            }
+        } catch (Exception e) {
+            log.debug("Negative cache check for {}:{} failed: {}", domain, id, e.getMessage());
+        }
+        return false;
+    }
+
+    public void markMissing(@NonNull String domain, @NonNull Object id) {
+        try {
+            redisTemplate.opsForValue().set(key(domain, id), MARKER, ttl);
+            counter(stores, domain, "stored").increment();
+        } catch (Exception e) {
+            log.debug("Could not record miss for {}:{}: {}", domain, id, e.getMessage());
+        }
+    }
+
+    /**
+     * Forget a recorded miss, e.g. once an entity with this ID exists. If Redis is down the
+     * marker stays until its TTL, like any other write that skips the cache.
+     */
+    public void clear(@NonNull String domain, @NonNull Object id) {
+        try {
+            redisTemplate.delete(key(domain, id));
+        } catch (Exception e) {
+            log.warn("Could not clear miss for {}:{}: {}", domain, id, e.getMessage());
+        }
+    }
+
+    private static String key(String domain, Object id) {
+        return KEY_PREFIX + domain + ":" + id;
+    }
+
+    private Counter counter(Map<String, Counter> counters, String domain, String result) {
+        return counters.computeIfAbsent(domain, d -> Counter.builder("cache.negative")
+                .tag("domain", d)
+                .tag("result", result)
+                .description("Lookups for missing entities answered or recorded by the negative cache")
+                .register(meterRegistry));
+    }
+}
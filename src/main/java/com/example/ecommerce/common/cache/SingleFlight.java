@@ -0,0 +1,230 @@
+package com.example.ecommerce.common.cache;
+
+import com.example.ecommerce.common.config.RedisScriptRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent cache misses for the same key into one database load.
+ *
+ * Within a JVM, the first caller for a key runs the loader and every other caller waits for
+ * its result. Across instances, the loading caller also takes a short Redis lock
+ * (lock:load:{key}, SET NX PX); an instance that finds the lock taken polls the cache until
+ * the value appears, and loads on its own only after the wait runs out. The lock expires on
+ * its own if the holder dies, so a crash can delay a load but never block it.
+ *
+ * The loader is expected to write the cache itself. Waiting callers share the returned value,
+ * which must not be modified. A loader must not call load for its own key. Lookups by ID whose
+ * loader records misses in the {@link NegativeCache} use {@link #loadOptional}, so a caller
+ * waiting on another instance also sees a miss instead of waiting out the lock.
+ *
+ * Metrics:
+ * - cache.load            - misses by outcome: loaded, shared (joined a local load),
+ *                           remote (another instance filled the cache), fallback (lock wait expired)
+ * - cache.load.in.flight  - loads currently running in this instance
+ */
+@Component
+@Slf4j
+public class SingleFlight {
+
+    private static final String LOCK_KEY_PREFIX = "lock:load:";
+    private static final long POLL_INTERVAL_MS = 20;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final NegativeCache negativeCache;
+    private final boolean lockEnabled;
+    private final Duration lockTtl;
+    private final long lockWaitMs;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter loaded;
+    private final Counter shared;
+    private final Counter remote;
+    private final Counter fallback;
+
+    public SingleFlight(
+            RedisTemplate<String, Object> redisTemplate,
+            RedisScriptRegistry scriptRegistry,
+            NegativeCache negativeCache,
+            MeterRegistry meterRegistry,
+            @Value("${cache.single-flight.lock-enabled:true}") boolean lockEnabled,
+            @Value("${cache.single-flight.lock-ttl-ms:3000}") long lockTtlMs,
+            @Value("${cache.single-flight.lock-wait-ms:1000}") long lockWaitMs) {
+        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.negativeCache = negativeCache;
+        this.lockEnabled = lockEnabled;
+        this.lockTtl = Duration.ofMillis(lockTtlMs);
+        this.lockWaitMs = lockWaitMs;
+
+        this.loaded = outcome(meterRegistry, "loaded");
+        this.shared = outcome(meterRegistry, "shared");
+        this.remote = outcome(meterRegistry, "remote");
+        this.fallback = outcome(meterRegistry, "fallback");
+        Gauge.builder("cache.load.in.flight", inFlight, Map::size)
+                .description("Cache loads currently running in this instance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load a missing cache entry once, however many callers miss it at the same time.
+     *
+     * @param key the cache key that missed
+     * @param cacheLookup reads the cache, null on a miss; re-checked before loading, since
+     *                    another caller may have filled the entry in the meantime
+     * @param loader reads the database and populates the cache
+     * @return the cached or loaded value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(@NonNull String key, @NonNull Supplier<T> cacheLookup, @NonNull Supplier<T> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            shared.increment();
+            return (T) await(running);
+        }
+
+        try {
+            T value = loadOnce(key, cacheLookup, loader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * {@link #load} for an entity that may not exist. A miss the loader recorded in the
+     * negative cache (missDomain, id) ends the wait like a filled cache entry would, with an
+     * empty result.
+     *
+     * @param cacheLookup reads the cache: an entry, or null on a miss
+     * @param loader reads the database, caches what it found and records a miss otherwise
+     */
+    @NonNull
+    public <T> Optional<T> loadOptional(@NonNull String key, @NonNull Supplier<Optional<T>> cacheLookup,
+                                        @NonNull String missDomain, @NonNull Object id,
+                                        @NonNull Supplier<Optional<T>> loader) {
+        return load(key, () -> {
+            Optional<T> cached = cacheLookup.get();
+            if (cached != null) {
+                return cached;
+            }
+            return negativeCache.isMissing(missDomain, id) ? Optional.<T>empty() : null;
+        }, loader);
+    }
+
+    private <T> T loadOnce(String key, Supplier<T> cacheLookup, Supplier<T> loader) {
+        // A load that finished just before this one started has already filled the cache
+        T cached = lookup(key, cacheLookup);
+        if (cached != null) {
+            return cached;
+        }
+        if (!lockEnabled) {
+            loaded.increment();
+            return loader.get();
+        }
+
+        String lockKey = LOCK_KEY_PREFIX + key;
+        String token = UUID.randomUUID().toString();
+        if (tryLock(lockKey, token)) {
+            try {
+                loaded.increment();
+                return loader.get();
+            } finally {
+                unlock(lockKey, token);
+            }
+        }
+
+        // Another instance is loading: wait for its result to show up in the cache
+        long deadline = System.currentTimeMillis() + lockWaitMs;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            cached = lookup(key, cacheLookup);
+            if (cached != null) {
+                remote.increment();
+                return cached;
+            }
+        }
+
+        fallback.increment();
+        return loader.get();
+    }
+
+    @Nullable
+    private <T> T lookup(String key, Supplier<T> cacheLookup) {
+        try {
+            return cacheLookup.get();
+        } catch (RuntimeException e) {
+            // Unreadable entries are the loader's problem, treat them as a miss
+            log.debug("Cache re-check for {} failed: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean tryLock(String lockKey, String token) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTtl));
+        } catch (Exception e) {
+            // Without Redis there is nothing to coordinate with, load locally
+            log.warn("Could not acquire {}, loading without it: {}", lockKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlock(String lockKey, String token) {
+        try {
+            scriptRegistry.execute(RedisScriptRegistry.CACHE_LOCK_RELEASE, Long.class, List.of(lockKey), token);
+        } catch (Exception e) {
+            log.warn("Could not release {}, it expires in {} ms: {}", lockKey, lockTtl.toMillis(), e.getMessage());
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("cache.load")
+                .tag("outcome", outcome)
+                .description("Cache misses by how they were resolved")
+                .register(meterRegistry);
+    }
+}
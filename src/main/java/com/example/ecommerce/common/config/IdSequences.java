@@ -0,0 +1,17 @@
+package com.example.ecommerce.common.config;
+
+/**
+ * Settings shared by every entity id sequence.
+ */
+public final class IdSequences {
+
+    /**
+     * Ids handed out per nextval() with pooled-lo: the allocationSize of every entity's
+     * {@code @SequenceGenerator}, the block size JdbcOrderBatchWriter takes for its own
+     * inserts, and the step SequenceAlignmentRunner assumes.
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdSequences() {
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.ecommerce.common.config;
+
+import com.example.ecommerce.common.metrics.RequestTimings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultScriptExecutor;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.script.ScriptExecutor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry for every Lua script under classpath:scripts/.
+ *
+ * Scripts are read and hashed once at startup, loaded into Redis with SCRIPT LOAD
+ * and always invoked by EVALSHA. A NOSCRIPT reply (Redis restart, SCRIPT FLUSH, failover)
+ * reloads the script and retries once.
+ *
+ * Metrics per script:
+ * - redis.script          - invocation latency histogram, tagged with outcome
+ * - redis.script.reloads  - NOSCRIPT reloads
+ */
+@Component
+@Slf4j
+public class RedisScriptRegistry {
+
+    public static final String STOCK_DECREMENT = "stock-decrement";
+    public static final String STOCK_RESERVE_ALL = "stock-reserve-all";
+    public static final String STOCK_RELEASE_ALL = "stock-release-all";
+    public static final String COUPON_CLAIM = "coupon-claim";
+    public static final String CACHE_LOCK_RELEASE = "cache-lock-release";
+    public static final String ORDER_HISTORY_APPEND = "order-history-append";
+    public static final String ORDER_HISTORY_FILL = "order-history-fill";
+    public static final String BLOOM_CHECK = "bloom-check";
+    public static final String BLOOM_ADD = "bloom-add";
+    public static final String BLOOM_MERGE = "bloom-merge";
+    public static final String REVIEW_STATS_APPLY = "review-stats-apply";
+    public static final String REVIEW_STATS_FILL = "review-stats-fill";
+
+    private static final String SCRIPT_LOCATION = "classpath:scripts/*.lua";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ScriptExecutor<String> scriptExecutor;
+    private final Map<String, LoadedScript> scripts = new HashMap<>();
+
+    public RedisScriptRegistry(RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.scriptExecutor = new ReloadingScriptExecutor(redisTemplate);
+
+        for (Resource resource : findScripts()) {
+            String name = Objects.requireNonNull(resource.getFilename()).replace(".lua", "");
+            String text = readScript(resource);
+            scripts.put(name, new LoadedScript(
+                    name,
+                    text,
+                    sha1(text),
+                    Timer.builder("redis.script").tag("script", name).tag("outcome", "success")
+                            .publishPercentileHistogram().register(meterRegistry),
+                    Timer.builder("redis.script").tag("script", name).tag("outcome", "error")
+                            .publishPercentileHistogram().register(meterRegistry),
+                    Counter.builder("redis.script.reloads").tag("script", name).register(meterRegistry)
+            ));
+        }
+    }
+
+    /**
+     * Load every script into Redis so the first request already hits EVALSHA.
+     * Failure is not fatal: a missing script is loaded on its first NOSCRIPT reply.
+     */
+    @PostConstruct
+    public void loadAll() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (LoadedScript script : scripts.values()) {
+                    connection.scriptingCommands().scriptLoad(script.text().getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            log.info("Loaded {} Lua scripts into Redis: {}", scripts.size(), scripts.keySet());
+        } catch (Exception e) {
+            log.warn("Could not preload Lua scripts, they will be loaded on first use: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Execute a registered script by EVALSHA.
+     *
+     * @param name the script name (file name without .lua)
+     * @param resultType Long for integer replies, List for multi-bulk replies, Boolean or String otherwise
+     * @param keys the script KEYS
+     * @param args the script ARGV, serialized with the template value serializer
+     * @return the deserialized script reply
+     */
+    public <T> T execute(@NonNull String name, @NonNull Class<T> resultType, @NonNull List<String> keys, Object... args) {
+        LoadedScript script = scripts.get(name);
+        if (script == null) {
+            throw new IllegalArgumentException("Unknown Lua script: " + name);
+        }
+
+        long start = System.nanoTime();
+        RequestTimings.Span span = RequestTimings.start(RequestTimings.Category.SCRIPT);
+        try {
+            T result = scriptExecutor.execute(new ScriptHandle<>(script, resultType), keys, args);
+            script.successTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            script.errorTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private Resource[] findScripts() {
+        try {
+            return new PathMatchingResourcePatternResolver().getResources(SCRIPT_LOCATION);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to scan Lua scripts at " + SCRIPT_LOCATION, e);
+        }
+    }
+
+    private static String readScript(Resource resource) {
+        try {
+            return resource.getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read Lua script " + resource.getFilename(), e);
+        }
+    }
+
+    private static String sha1(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static boolean isNoScriptError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record LoadedScript(String name, String text, String sha1,
+                                Timer successTimer, Timer errorTimer, Counter reloads) {
+    }
+
+    /**
+     * Pairs a preloaded script with the reply type of one call, so no script text is hashed per request.
+     */
+    private record ScriptHandle<T>(LoadedScript script, Class<T> resultType) implements RedisScript<T> {
+
+        @Override
+        @NonNull
+        public String getSha1() {
+            return script.sha1();
+        }
+
+        @Override
+        public Class<T> getResultType() {
+            return resultType;
+        }
+
+        @Override
+        @NonNull
+        public String getScriptAsString() {
+            return script.text();
+        }
+    }
+
+    /**
+     * EVALSHA executor that reloads the script on NOSCRIPT instead of sending the whole body with EVAL.
+     */
+    private final class ReloadingScriptExecutor extends DefaultScriptExecutor<String> {
+
+        ReloadingScriptExecutor(RedisTemplate<String, ?> template) {
+            super(template);
+        }
+
+        @Override
+        protected <T> T eval(RedisConnection connection, RedisScript<T> script, ReturnType returnType,
+                             int numKeys, byte[][] keysAndArgs, RedisSerializer<T> resultSerializer) {
+            Object result;
+            try {
+                result = connection.scriptingCommands().evalSha(script.getSha1(), returnType, numKeys, keysAndArgs);
+            } catch (RuntimeException e) {
+                if (!isNoScriptError(e)) {
+                    throw e;
+                }
+                log.info("Lua script {} missing in Redis, reloading", script.getSha1());
+                if (script instanceof ScriptHandle<?> handle) {
+                    handle.script().reloads().increment();
+                }
+                connection.scriptingCommands().scriptLoad(scriptBytes(script));
+                result = connection.scriptingCommands().evalSha(script.getSha1(), returnType, numKeys, keysAndArgs);
+            }
+
+            if (script.getResultType() == null) {
+                return null;
+            }
+            return deserializeResult(resultSerializer, result);
+        }
+    }
+}
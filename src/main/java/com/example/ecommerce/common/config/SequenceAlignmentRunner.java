@@ -0,0 +1,53 @@
+package com.example.ecommerce.common.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves every id sequence past the ids already in its table.
+ *
+ * Tables created while ids were IDENTITY columns hold rows the new sequences know nothing about,
+ * so the first pooled block would collide with them. Runs before the generators.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class SequenceAlignmentRunner implements ApplicationRunner {
+
+    private static final String[] TABLES = {
+            "category", "users", "reviews", "flash_sale_event", "coupon",
+            "products", "stocks", "product_price_history", "orders", "order_item"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String table : TABLES) {
+            String sequence = table + "_seq";
+
+            long maxId = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            Map<String, Object> state = jdbcTemplate.queryForMap(
+                    "SELECT last_value, is_called FROM " + sequence);
+
+            // With pooled-lo, the next nextval() is the first id of the next block
+            long lastValue = ((Number) state.get("last_value")).longValue();
+            long nextBlockStart = Boolean.TRUE.equals(state.get("is_called")) ? lastValue + IdSequences.ALLOCATION_SIZE : lastValue;
+
+            if (maxId >= nextBlockStart) {
+                jdbcTemplate.queryForObject("SELECT setval(?::regclass, ?, false)", Long.class, sequence, maxId + 1);
+                log.info("Moved sequence {} to {} (max id in {} is {})", sequence, maxId + 1, table, maxId);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ecommerce.common.config;
+
+import com.example.ecommerce.common.metrics.ServerTimingFilter;
+import com.example.ecommerce.common.metrics.TimedJacksonConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Opt-in per-request timing of the benchmark routes (server-timing.enabled).
+ * The Redis and DataSource side is wired by ServerTimingInstrumentation.
+ */
+@Configuration
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+    private final boolean enabled;
+
+    public ServerTimingConfig(@Value("${server-timing.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter() {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter());
+        registration.addUrlPatterns("/api/benchmark/*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (!enabled) {
+            return;
+        }
+        converters.replaceAll(converter -> converter instanceof MappingJackson2HttpMessageConverter jackson
+                && !(converter instanceof TimedJacksonConverter)
+                ? new TimedJacksonConverter(jackson)
+                : converter);
+    }
+}
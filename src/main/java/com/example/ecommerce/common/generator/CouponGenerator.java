@@ -1,6 +1,7 @@
 package com.example.ecommerce.common.generator;
 
 import com.example.ecommerce.coupon.domain.Coupon;
+import com.example.ecommerce.coupon.infrastructure.cache.CouponCodeFilter;
 import com.example.ecommerce.coupon.infrastructure.persistence.CouponTable;
 
 import lombok.RequiredArgsConstructor;
@@ -8,6 +9,8 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Component
@@ -15,6 +18,7 @@ import java.util.UUID;
 public class CouponGenerator implements CommandLineRunner {
 
     private final CouponTable couponTable;
+    private final CouponCodeFilter codeFilter;
 
     @Override
     public void run(String... args) {
@@ -22,6 +26,7 @@ public class CouponGenerator implements CommandLineRunner {
             return;
         }
         int totalCoupons = 1000;
+        List<Coupon> coupons = new ArrayList<>(totalCoupons);
 
         for (int i = 0; i < totalCoupons; i++) {
             Coupon coupon = new Coupon();
@@ -30,9 +35,15 @@ public class CouponGenerator implements CommandLineRunner {
             coupon.setValidUntil(LocalDateTime.now().plusDays(7)); // 7-day validity
             coupon.setUsed(false);
 
-            couponTable.save(coupon);
+            coupons.add(coupon);
         }
 
+        // One saveAll so Hibernate can send the inserts as JDBC batches
+        couponTable.saveAll(coupons);
+        // saveAll bypasses the repositories; the filter's startup build may already have read
+        // the table, and a code it misses would be rejected until the next rebuild
+        coupons.forEach(coupon -> codeFilter.add(coupon.getCode()));
+
         System.out.println(totalCoupons + " coupons generated.");
     }
 
@@ -9,6 +9,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -30,6 +31,7 @@ public class ProductGenerator implements CommandLineRunner {
     @Override
     public void run(String... args) throws Exception {
         if (productRepository.count() == 0) {
+            List<Product> products = new ArrayList<>(500);
             for (int i = 1; i <= 500; i++) {
                 Product product = new Product();
                 product.setName("Product " + i);
@@ -57,8 +59,10 @@ public class ProductGenerator implements CommandLineRunner {
 
                 product.setStock(stock);
 
-                productRepository.save(product);
+                products.add(product);
             }
+            // One saveAll so Hibernate can send the inserts as JDBC batches
+            productRepository.saveAll(products);
             System.out.println("Inserted 500 products successfully!");
         } else {
             System.out.println("Products already exist, skipping insertion.");
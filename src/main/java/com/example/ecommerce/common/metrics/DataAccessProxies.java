@@ -0,0 +1,228 @@
+package com.example.ecommerce.common.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+/**
+ * The proxies {@link RepositoryInstrumentation} and {@link ServerTimingInstrumentation} put
+ * around the DataSource and the Redis templates.
+ *
+ * Both post-processors see the same beans, in no fixed order. Whichever runs second adds its
+ * listener or interceptor to the proxy the first one created instead of wrapping it again, so
+ * every JDBC and Redis call goes through one proxy layer that feeds both RepositoryMetrics
+ * and RequestTimings.
+ */
+final class DataAccessProxies {
+
+    private DataAccessProxies() {
+    }
+
+    interface Call {
+        Object proceed() throws Throwable;
+    }
+
+    /**
+     * Callbacks from the JDBC proxies; by default each one just proceeds.
+     */
+    interface JdbcListener {
+
+        /**
+         * DataSource.getConnection, including the wait for a pooled connection.
+         */
+        default Object connection(Call call) throws Throwable {
+            return call.proceed();
+        }
+
+        /**
+         * A statement prepared or created on one of the DataSource's connections.
+         */
+        default void statementCreated() {
+        }
+
+        /**
+         * Statement execute*, and commit or rollback on a connection.
+         */
+        default Object execution(Call call) throws Throwable {
+            return call.proceed();
+        }
+    }
+
+    // -------------------
+    // JDBC
+    // -------------------
+
+    /**
+     * A DataSource whose connections and statements report to the listener. A DataSource
+     * already returned by this method gets the listener added instead of a second proxy.
+     */
+    static Object instrumentDataSource(DataSource dataSource, JdbcListener listener) {
+        if (Proxy.isProxyClass(dataSource.getClass())
+                && Proxy.getInvocationHandler(dataSource) instanceof JdbcHandler handler) {
+            handler.listeners.add(listener);
+            return dataSource;
+        }
+        return new JdbcHandler(dataSource, new CopyOnWriteArrayList<>(List.of(listener))).proxy();
+    }
+
+    private interface Hook {
+        Object apply(JdbcListener listener, Call call) throws Throwable;
+    }
+
+    /**
+     * Handles a DataSource, Connection or Statement, and wraps the connections and statements
+     * it returns in handlers sharing the same listeners.
+     */
+    private static final class JdbcHandler implements InvocationHandler {
+
+        private final Object target;
+        private final List<JdbcListener> listeners;
+
+        JdbcHandler(Object target, List<JdbcListener> listeners) {
+            this.target = target;
+            this.listeners = listeners;
+        }
+
+        Object proxy() {
+            // Every interface of the target, e.g. the pool's own, as long as the proxy can implement it
+            ClassLoader classLoader = DataAccessProxies.class.getClassLoader();
+            Class<?>[] interfaces = Arrays.stream(ClassUtils.getAllInterfacesForClass(target.getClass(), classLoader))
+                    .filter(type -> Modifier.isPublic(type.getModifiers()))
+                    .toArray(Class<?>[]::new);
+            return Proxy.newProxyInstance(classLoader, interfaces, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            // Pools and Hibernate key connections and statements in maps: identity, not the target's equals
+            if (name.equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+
+            if (target instanceof DataSource) {
+                return name.equals("getConnection")
+                        ? wrap(around(JdbcListener::connection, () -> call(method, args)))
+                        : call(method, args);
+            }
+            if (target instanceof Connection && (name.startsWith("prepare") || name.equals("createStatement"))) {
+                listeners.forEach(JdbcListener::statementCreated);
+                return wrap(call(method, args));
+            }
+            if (name.startsWith("execute") || name.equals("commit") || name.equals("rollback")) {
+                return around(JdbcListener::execution, () -> call(method, args));
+            }
+            return call(method, args);
+        }
+
+        private Object wrap(Object result) {
+            return result == null ? null : new JdbcHandler(result, listeners).proxy();
+        }
+
+        private Object around(Hook hook, Call call) throws Throwable {
+            Call chain = call;
+            for (JdbcListener listener : listeners) {
+                Call inner = chain;
+                chain = () -> hook.apply(listener, inner);
+            }
+            return chain.proceed();
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    // -------------------
+    // Redis
+    // -------------------
+
+    /**
+     * Advise a RedisTemplate and the operations it hands out (opsForValue(), opsForHash(),
+     * boundXxxOps(...)).
+     *
+     * @param commands intercepts every other template method
+     * @param operations wraps an operations object given its declared type, or returns it as
+     *                   is; called once per argument-less accessor, since those return the
+     *                   same instance every time
+     */
+    static Object adviseTemplate(RedisTemplate<?, ?> template, MethodInterceptor commands,
+                                 BiFunction<Object, Class<?>, Object> operations) {
+        Map<Method, Object> wrapped = new ConcurrentHashMap<>();
+        return adviseClass(template, invocation -> {
+            Method method = invocation.getMethod();
+            String name = method.getName();
+            if (!name.startsWith("opsFor") && !name.startsWith("bound")) {
+                return commands.invoke(invocation);
+            }
+            // Another interceptor may already have wrapped what the template returns
+            Object delegate = invocation.proceed();
+            if (invocation.getArguments().length > 0) {
+                return operations.apply(delegate, method.getReturnType());
+            }
+            return wrapped.computeIfAbsent(method, m -> operations.apply(delegate, m.getReturnType()));
+        });
+    }
+
+    static Object operationsProxy(Object operations, Class<?> type, MethodInterceptor interceptor) {
+        ProxyFactory factory = new ProxyFactory(operations);
+        factory.setInterfaces(type);
+        factory.addAdvice(interceptor);
+        return factory.getProxy();
+    }
+
+    // -------------------
+    // Spring AOP
+    // -------------------
+
+    /**
+     * Add the interceptor to an existing Spring proxy (@Repository beans and Spring Data
+     * repositories already are one), or wrap the bean in a new interface proxy.
+     */
+    static Object advise(Object bean, MethodInterceptor interceptor) {
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.addAdvice(interceptor);
+        return factory.getProxy();
+    }
+
+    /**
+     * Like {@link #advise}, for a plain class bean: the proxy must keep its type.
+     */
+    static Object adviseClass(Object bean, MethodInterceptor interceptor) {
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(interceptor);
+        return factory.getProxy();
+    }
+}
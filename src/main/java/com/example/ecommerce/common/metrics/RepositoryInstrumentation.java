@@ -0,0 +1,243 @@
+package com.example.ecommerce.common.metrics;
+
+import com.example.ecommerce.common.config.RedisScriptRegistry;
+import com.example.ecommerce.product.infrastructure.cache.product.ProductNearCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times every repository method and attributes cache hits/misses and database queries to it,
+ * without touching the repositories themselves.
+ *
+ * Wraps these beans:
+ * - the domain repositories (every I*Repository implementation, db and cached), timed per method;
+ * - the DataSource: any statement prepared on one of its connections (Hibernate, or JdbcTemplate
+ *   as in JdbcOrderExporter, JdbcOrderBatchWriter, CouponCodeFilter and StockSyncJob) marks the
+ *   enclosing call as having queried the database;
+ * - the redisTemplate: value get/multiGet, hash entries, list and sorted set range reads and
+ *   hasKey (the negative cache's marker check) count as hits or misses of the enclosing call;
+ * - the script registry: scripts that return cached values (the cart reservation's product
+ *   metadata, the Bloom filter check) count their keys the same way;
+ * - the product near-cache, whose reads count under near:product.
+ *
+ * Metrics:
+ * - repository.calls{repository,implementation,method,outcome} (timer, with histogram)
+ * - repository.cache.lookups{repository,implementation,prefix,result} (hit, miss, error;
+ *   the first read of each key per call)
+ * - repository.db.fallbacks{repository,method} (cached calls that queried the database)
+ *
+ * The DataSource and template proxies are shared with {@link ServerTimingInstrumentation},
+ * see {@link DataAccessProxies}. Disabled with repository.metrics.enabled=false.
+ */
+@Component
+public class RepositoryInstrumentation implements BeanPostProcessor {
+
+    private static final String PACKAGE = "com.example.ecommerce.";
+    private static final String NEAR_CACHE_PREFIX = "near:product:";
+
+    private final RepositoryMetrics metrics;
+    private final boolean enabled;
+
+    public RepositoryInstrumentation(ObjectProvider<MeterRegistry> meterRegistry, Environment environment) {
+        // Read from the Environment: @Value is not reliably resolved for post-processors
+        this.metrics = new RepositoryMetrics(meterRegistry);
+        this.enabled = environment.getProperty("repository.metrics.enabled", Boolean.class, true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled) {
+            return bean;
+        }
+        if (bean instanceof RedisTemplate<?, ?> template && beanName.equals("redisTemplate")) {
+            return instrumentTemplate(template);
+        }
+        if (bean instanceof DataSource dataSource) {
+            return DataAccessProxies.instrumentDataSource(dataSource, new DataAccessProxies.JdbcListener() {
+                @Override
+                public void statementCreated() {
+                    metrics.databaseQuery();
+                }
+            });
+        }
+        if (bean instanceof RedisScriptRegistry) {
+            return DataAccessProxies.adviseClass(bean, this::recordScript);
+        }
+        if (bean instanceof ProductNearCache) {
+            return DataAccessProxies.adviseClass(bean, invocation -> invocation.getMethod().getName().equals("get")
+                    ? recordRead(List.of(NEAR_CACHE_PREFIX + invocation.getArguments()[0]), false, invocation)
+                    : invocation.proceed());
+        }
+
+        Class<?> target = AopUtils.getTargetClass(bean);
+        Class<?> repositoryInterface = repositoryInterface(target);
+        if (repositoryInterface == null) {
+            return bean;
+        }
+        // IFlashSaleRepository -> flashsale; CachedProductRepository -> cached
+        String repository = repositoryInterface.getSimpleName()
+                .replaceFirst("^I", "").replaceFirst("Repository$", "").toLowerCase();
+        String implementation = target.getSimpleName().startsWith("Cached") ? RepositoryMetrics.CACHED
+                : target.getSimpleName().startsWith("Database") ? "db"
+                : target.getSimpleName().toLowerCase();
+
+        return DataAccessProxies.advise(bean, invocation -> {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            RepositoryMetrics.Call call = metrics.begin(repository, implementation, method.getName());
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = invocation.proceed();
+                failed = false;
+                return result;
+            } finally {
+                metrics.end(call, System.nanoTime() - start, failed);
+            }
+        });
+    }
+
+    private static Class<?> repositoryInterface(Class<?> type) {
+        for (Class<?> candidate : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+            String name = candidate.getName();
+            if (name.startsWith(PACKAGE) && candidate.getSimpleName().matches("I[A-Z]\\w*Repository")) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * RedisScriptRegistry.execute(name, type, keys, args...) for the scripts that read cached values.
+     */
+    private Object recordScript(MethodInvocation invocation) throws Throwable {
+        Object[] args = invocation.getArguments();
+        if (!invocation.getMethod().getName().equals("execute") || args.length < 3
+                || !(args[2] instanceof List<?> keys)) {
+            return invocation.proceed();
+        }
+        Object result;
+        if (RedisScriptRegistry.STOCK_RESERVE_ALL.equals(args[0])) {
+            // KEYS: n stock counters, n product:{id} entries, the dirty set; reply {1, entry...}
+            int products = (keys.size() - 1) / 2;
+            List<?> metadataKeys = keys.subList(products, 2 * products);
+            try {
+                result = invocation.proceed();
+            } catch (RuntimeException e) {
+                metadataKeys.forEach(key -> metrics.lookup(key, RepositoryMetrics.Lookup.ERROR));
+                throw e;
+            }
+            if (result instanceof List<?> reply && !reply.isEmpty() && reply.get(0) instanceof Number reserved
+                    && reserved.longValue() == 1) {
+                for (int i = 0; i < metadataKeys.size(); i++) {
+                    Object value = i + 1 < reply.size() ? reply.get(i + 1) : null;
+                    metrics.lookup(metadataKeys.get(i),
+                            value != null ? RepositoryMetrics.Lookup.HIT : RepositoryMetrics.Lookup.MISS);
+                }
+            }
+            return result;
+        }
+        if (RedisScriptRegistry.BLOOM_CHECK.equals(args[0]) && !keys.isEmpty()) {
+            // -1: no usable filter, every code then goes on to the cache and database
+            try {
+                result = invocation.proceed();
+            } catch (RuntimeException e) {
+                metrics.lookup(keys.get(0), RepositoryMetrics.Lookup.ERROR);
+                throw e;
+            }
+            boolean usable = result instanceof Number answer && answer.longValue() >= 0;
+            metrics.lookup(keys.get(0), usable ? RepositoryMetrics.Lookup.HIT : RepositoryMetrics.Lookup.MISS);
+            return result;
+        }
+        return invocation.proceed();
+    }
+
+    private Object instrumentTemplate(RedisTemplate<?, ?> template) {
+        MethodInterceptor values = invocation -> {
+            Object[] args = invocation.getArguments();
+            String name = invocation.getMethod().getName();
+            if (name.equals("get") && args.length == 1) {
+                return recordRead(List.of(args[0]), false, invocation);
+            }
+            if (name.equals("multiGet") && args.length == 1) {
+                return recordRead((Collection<?>) args[0], true, invocation);
+            }
+            return invocation.proceed();
+        };
+        MethodInterceptor hashes = invocation -> {
+            Object[] args = invocation.getArguments();
+            if (invocation.getMethod().getName().equals("entries") && args.length == 1) {
+                return recordRead(List.of(args[0]), false, invocation);
+            }
+            return invocation.proceed();
+        };
+        MethodInterceptor lists = invocation ->
+                invocation.getMethod().getName().equals("range")
+                        ? recordRead(List.of(invocation.getArguments()[0]), false, invocation)
+                        : invocation.proceed();
+        MethodInterceptor zSets = invocation -> {
+            String name = invocation.getMethod().getName();
+            return name.startsWith("range") || name.startsWith("reverseRange")
+                    ? recordRead(List.of(invocation.getArguments()[0]), false, invocation)
+                    : invocation.proceed();
+        };
+        Map<Class<?>, MethodInterceptor> reads =
+                Map.of(ValueOperations.class, values, HashOperations.class, hashes,
+                        ListOperations.class, lists, ZSetOperations.class, zSets);
+
+        return DataAccessProxies.adviseTemplate(template,
+                invocation -> invocation.getMethod().getName().equals("hasKey")
+                        ? recordRead(List.of(invocation.getArguments()[0]), false, invocation)
+                        : invocation.proceed(),
+                (operations, type) -> reads.containsKey(type)
+                        ? DataAccessProxies.operationsProxy(operations, type, reads.get(type))
+                        : operations);
+    }
+
+    /**
+     * Count each key read as a hit or a miss: null values, empty hashes, lists and sets and
+     * a false hasKey are misses.
+     */
+    private Object recordRead(Collection<?> keys, boolean multi, MethodInvocation invocation) throws Throwable {
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (RuntimeException e) {
+            keys.forEach(key -> metrics.lookup(key, RepositoryMetrics.Lookup.ERROR));
+            throw e;
+        }
+
+        int i = 0;
+        // multiGet returns one value per key, in order
+        List<?> values = multi && result instanceof List<?> list ? list : null;
+        for (Object key : keys) {
+            Object value = values != null ? (i < values.size() ? values.get(i) : null) : result;
+            i++;
+            boolean hit = value != null && !Boolean.FALSE.equals(value)
+                    && !(value instanceof Map<?, ?> map && map.isEmpty())
+                    && !(value instanceof Collection<?> collection && collection.isEmpty());
+            metrics.lookup(key, hit ? RepositoryMetrics.Lookup.HIT : RepositoryMetrics.Lookup.MISS);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.ecommerce.common.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Meters recorded by {@link RepositoryInstrumentation}, and the repository call running on
+ * the current thread, so Redis reads and database queries can be attributed to it.
+ *
+ * Calls nest (a service may call one repository from inside another); Redis reads and queries
+ * count for the innermost one. Work handed to other threads is not attributed.
+ */
+class RepositoryMetrics {
+
+    static final String CACHED = "cached";
+
+    enum Lookup {
+        HIT, MISS, ERROR
+    }
+
+    /**
+     * One repository method invocation in progress.
+     */
+    static final class Call {
+        private final String repository;
+        private final String implementation;
+        private final String method;
+        // Only the first read of a key counts: a miss re-checked under SingleFlight is one miss
+        private final Set<Object> lookedUp = new HashSet<>();
+        private boolean queriedDatabase;
+
+        private Call(String repository, String implementation, String method) {
+            this.repository = repository;
+            this.implementation = implementation;
+            this.method = method;
+        }
+    }
+
+    private static final ThreadLocal<Deque<Call>> CALLS = new ThreadLocal<>();
+    private static final Pattern VERSION = Pattern.compile("v\\d+");
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    RepositoryMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        // Resolved on first use: instrumentation is set up before the registry exists
+        this.meterRegistry = meterRegistry;
+    }
+
+    Call begin(String repository, String implementation, String method) {
+        Call call = new Call(repository, implementation, method);
+        Deque<Call> calls = CALLS.get();
+        if (calls == null) {
+            calls = new ArrayDeque<>();
+            CALLS.set(calls);
+        }
+        calls.push(call);
+        return call;
+    }
+
+    void end(Call call, long nanos, boolean failed) {
+        Deque<Call> calls = CALLS.get();
+        calls.remove(call);
+        if (calls.isEmpty()) {
+            CALLS.remove();
+        }
+
+        String outcome = failed ? "error" : "success";
+        timers.computeIfAbsent(call.repository + '|' + call.implementation + '|' + call.method + '|' + outcome,
+                key -> Timer.builder("repository.calls")
+                        .tag("repository", call.repository)
+                        .tag("implementation", call.implementation)
+                        .tag("method", call.method)
+                        .tag("outcome", outcome)
+                        .description("Repository method latency")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry.getObject()))
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        if (call.queriedDatabase && CACHED.equals(call.implementation)) {
+            counter("repository.db.fallbacks|" + call.repository + '|' + call.method,
+                    () -> Counter.builder("repository.db.fallbacks")
+                            .tag("repository", call.repository)
+                            .tag("method", call.method)
+                            .description("Cached repository calls that queried the database")
+                            .register(meterRegistry.getObject()))
+                    .increment();
+        }
+    }
+
+    /**
+     * A cache read (Redis or the near-cache) made by the current repository call, if any.
+     */
+    void lookup(Object key, Lookup result) {
+        Call call = current();
+        if (call == null || !call.lookedUp.add(key)) {
+            return;
+        }
+        String prefix = prefix(key);
+        String tag = result.name().toLowerCase();
+        counter("repository.cache.lookups|" + call.repository + '|' + call.implementation + '|' + prefix + '|' + tag,
+                () -> Counter.builder("repository.cache.lookups")
+                        .tag("repository", call.repository)
+                        .tag("implementation", call.implementation)
+                        .tag("prefix", prefix)
+                        .tag("result", tag)
+                        .description("Redis reads of repository calls by key prefix")
+                        .register(meterRegistry.getObject()))
+                .increment();
+    }
+
+    /**
+     * A statement sent to the database by the current repository call, if any.
+     */
+    void databaseQuery() {
+        Call call = current();
+        if (call != null) {
+            call.queriedDatabase = true;
+        }
+    }
+
+    private static Call current() {
+        Deque<Call> calls = CALLS.get();
+        return calls != null ? calls.peek() : null;
+    }
+
+    /**
+     * Key up to the first segment holding an ID, with at most two name segments; version
+     * segments (v1) are kept and do not count: product:42 -> product,
+     * coupon:code:SAVE10 -> coupon:code, orders:v1:page:0:50 -> orders:v1:page.
+     */
+    static String prefix(Object key) {
+        StringBuilder prefix = new StringBuilder();
+        int names = 0;
+        for (String segment : String.valueOf(key).split(":")) {
+            boolean version = VERSION.matcher(segment).matches();
+            if (!version && (names == 2 || segment.isEmpty() || segment.chars().anyMatch(Character::isDigit))) {
+                break;
+            }
+            if (!version) {
+                names++;
+            }
+            if (!prefix.isEmpty()) {
+                prefix.append(':');
+            }
+            prefix.append(segment);
+        }
+        return names == 0 ? "other" : prefix.toString();
+    }
+
+    private Counter counter(String key, Supplier<Counter> create) {
+        return counters.computeIfAbsent(key, k -> create.get());
+    }
+}
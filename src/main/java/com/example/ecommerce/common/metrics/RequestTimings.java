@@ -0,0 +1,119 @@
+package com.example.ecommerce.common.metrics;
+
+import java.util.Locale;
+
+/**
+ * Time spent by the current request in Redis, Lua scripts, the database and response
+ * serialization, reported by {@link ServerTimingFilter}.
+ *
+ * Collecting only happens on a thread inside that filter; everywhere else {@link #start}
+ * returns a no-op span. Spans do not nest: the outermost one owns the time, so a script's
+ * EVALSHA is counted as script and not again as redis.
+ */
+public final class RequestTimings {
+
+    public enum Category {
+        REDIS, SCRIPT, DB, SERIALIZE;
+
+        private final String metric = name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A measurement in progress; {@link #end()} adds its duration to the request.
+     */
+    public interface Span {
+        void end();
+    }
+
+    private static final Span NONE = () -> {
+    };
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[Category.values().length];
+    private final int[] calls = new int[Category.values().length];
+    private boolean measuring;
+    private long totalNanos = -1;
+
+    private RequestTimings() {
+    }
+
+    static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static Span start(Category category) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null || timings.measuring) {
+            return NONE;
+        }
+        timings.measuring = true;
+        long start = System.nanoTime();
+        return () -> timings.record(category, System.nanoTime() - start);
+    }
+
+    private synchronized void record(Category category, long elapsed) {
+        nanos[category.ordinal()] += elapsed;
+        calls[category.ordinal()]++;
+        measuring = false;
+    }
+
+    /**
+     * Stop the request clock when the filter completes. A streamed body is written later on
+     * another thread, outside any request's timings, so its work is never counted.
+     */
+    synchronized void finish() {
+        if (totalNanos < 0) {
+            totalNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    private long total() {
+        return totalNanos >= 0 ? totalNanos : System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Server-Timing value: one entry per category used, then app (the rest) and total.
+     * e.g. redis;dur=0.412;desc="3 calls", db;dur=2.107;desc="1 call", app;dur=0.803, total;dur=3.322
+     */
+    synchronized String header() {
+        long total = total();
+        long measured = 0;
+        StringBuilder header = new StringBuilder();
+        for (Category category : Category.values()) {
+            int count = calls[category.ordinal()];
+            if (count == 0) {
+                continue;
+            }
+            measured += nanos[category.ordinal()];
+            header.append(category.metric).append(";dur=").append(millis(nanos[category.ordinal()]))
+                    .append(";desc=\"").append(count).append(count == 1 ? " call\", " : " calls\", ");
+        }
+        return header.append("app;dur=").append(millis(Math.max(0, total - measured)))
+                .append(", total;dur=").append(millis(total))
+                .toString();
+    }
+
+    /**
+     * Access log fields: total_ms=3.322 redis_ms=0.412 redis_calls=3 script_ms=0.000 script_calls=0 ...
+     */
+    synchronized String logFields() {
+        StringBuilder fields = new StringBuilder("total_ms=").append(millis(total()));
+        for (Category category : Category.values()) {
+            fields.append(' ').append(category.metric).append("_ms=").append(millis(nanos[category.ordinal()]))
+                    .append(' ').append(category.metric).append("_calls=").append(calls[category.ordinal()]);
+        }
+        return fields.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
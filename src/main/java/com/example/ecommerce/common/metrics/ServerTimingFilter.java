@@ -0,0 +1,113 @@
+package com.example.ecommerce.common.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Adds a Server-Timing header to each response and logs one access line per request, with the
+ * time spent in Redis, Lua scripts, the database and JSON serialization (see {@link RequestTimings}).
+ *
+ * The body is buffered so the header can include serialization time. Streamed bodies
+ * (StreamingResponseBody, which marks the request like it does for ShallowEtagHeaderFilter)
+ * are written straight to the response instead: their header is added when the stream is
+ * opened, and what the streaming thread does afterwards is not counted.
+ *
+ * Registered for /api/benchmark/* when server-timing.enabled is set (see ServerTimingConfig).
+ */
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Server-Timing";
+
+    // Set by ShallowEtagHeaderFilter.disableContentCaching, which the streaming return value handlers call
+    private static final String STREAMING_ATTRIBUTE = ShallowEtagHeaderFilter.class.getName() + ".STREAMING";
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.begin();
+        TimedResponse timedResponse = new TimedResponse(request, response, timings);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            RequestTimings.clear();
+            timings.finish();
+            boolean async = request.isAsyncStarted();
+            if (!timedResponse.isStreaming()) {
+                timedResponse.addTimingHeader();
+                timedResponse.copyBodyToResponse();
+            }
+            log.info("{} {} status={} async={} {}", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), async, timings.logFields());
+        }
+    }
+
+    /**
+     * Buffers the body until the request is done, except for streamed responses.
+     */
+    private static final class TimedResponse extends ContentCachingResponseWrapper {
+
+        private final HttpServletRequest request;
+        private final RequestTimings timings;
+
+        private TimedResponse(HttpServletRequest request, HttpServletResponse response, RequestTimings timings) {
+            super(response);
+            this.request = request;
+            this.timings = timings;
+        }
+
+        boolean isStreaming() {
+            return request.getAttribute(STREAMING_ATTRIBUTE) != null || request.isAsyncStarted();
+        }
+
+        void addTimingHeader() {
+            if (!isCommitted() && !containsHeader(HEADER)) {
+                setHeader(HEADER, timings.header());
+            }
+        }
+
+        @Override
+        @NonNull
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (isStreaming()) {
+                addTimingHeader();
+                return getResponse().getOutputStream();
+            }
+            return super.getOutputStream();
+        }
+
+        @Override
+        @NonNull
+        public PrintWriter getWriter() throws IOException {
+            if (isStreaming()) {
+                addTimingHeader();
+                return getResponse().getWriter();
+            }
+            return super.getWriter();
+        }
+
+        // sendError commits the response before the filter finishes
+        @Override
+        public void sendError(int sc) throws IOException {
+            addTimingHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addTimingHeader();
+            super.sendError(sc, msg);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.ecommerce.common.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.regex.Pattern;
+
+/**
+ * Feeds {@link RequestTimings} from the Redis templates and the DataSource, so every
+ * repository, script and JDBC writer is covered without changes of its own.
+ *
+ * - RedisTemplate: every command method, and every method of the operations it hands out
+ *   (opsForValue(), opsForHash(), boundXxxOps(...)), counts as redis.
+ * - DataSource: getConnection (pool wait included), Statement execute* and commit/rollback
+ *   count as db; Hibernate and the JDBC writers both go through it.
+ *
+ * The proxies are shared with {@link RepositoryInstrumentation}, see {@link DataAccessProxies}.
+ * Only active with server-timing.enabled=true; otherwise beans are left untouched.
+ */
+@Component
+public class ServerTimingInstrumentation implements BeanPostProcessor {
+
+    // Template accessors and configuration, not Redis commands
+    private static final Pattern NOT_A_COMMAND =
+            Pattern.compile("set\\w*|is\\w*|afterPropertiesSet|get\\w*(Serializer|ConnectionFactory|ClassLoader)");
+
+    private static final DataAccessProxies.JdbcListener TIMED_JDBC = new DataAccessProxies.JdbcListener() {
+        @Override
+        public Object connection(DataAccessProxies.Call call) throws Throwable {
+            return timed(RequestTimings.Category.DB, call);
+        }
+
+        @Override
+        public Object execution(DataAccessProxies.Call call) throws Throwable {
+            return timed(RequestTimings.Category.DB, call);
+        }
+    };
+
+    private final boolean enabled;
+
+    public ServerTimingInstrumentation(Environment environment) {
+        this.enabled = environment.getProperty("server-timing.enabled", Boolean.class, false);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled) {
+            return bean;
+        }
+        if (bean instanceof RedisTemplate<?, ?> template) {
+            return DataAccessProxies.adviseTemplate(template, invocation -> {
+                Method method = invocation.getMethod();
+                if (method.getDeclaringClass() == Object.class || NOT_A_COMMAND.matcher(method.getName()).matches()) {
+                    return invocation.proceed();
+                }
+                return timed(RequestTimings.Category.REDIS, invocation::proceed);
+            }, ServerTimingInstrumentation::timedOperations);
+        }
+        if (bean instanceof DataSource dataSource) {
+            return DataAccessProxies.instrumentDataSource(dataSource, TIMED_JDBC);
+        }
+        return bean;
+    }
+
+    private static Object timedOperations(Object operations, Class<?> type) {
+        if (!type.isInterface()) {
+            return operations;
+        }
+        return DataAccessProxies.operationsProxy(operations, type, invocation ->
+                invocation.getMethod().getName().equals("getOperations")
+                        ? invocation.proceed()
+                        : timed(RequestTimings.Category.REDIS, invocation::proceed));
+    }
+
+    private static Object timed(RequestTimings.Category category, DataAccessProxies.Call call) throws Throwable {
+        RequestTimings.Span span = RequestTimings.start(category);
+        try {
+            return call.proceed();
+        } finally {
+            span.end();
+        }
+    }
+}
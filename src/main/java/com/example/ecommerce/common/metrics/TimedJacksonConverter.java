@@ -0,0 +1,32 @@
+package com.example.ecommerce.common.metrics;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * The Jackson message converter, with each response body write counted as serialization
+ * time of the request. Replaces the default one when server-timing.enabled is set.
+ */
+public class TimedJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJacksonConverter(MappingJackson2HttpMessageConverter converter) {
+        super(converter.getObjectMapper());
+        setSupportedMediaTypes(converter.getSupportedMediaTypes());
+    }
+
+    @Override
+    protected void writeInternal(@NonNull Object object, @Nullable Type type, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        RequestTimings.Span span = RequestTimings.start(RequestTimings.Category.SERIALIZE);
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -2,9 +2,8 @@ package com.example.ecommerce.common.preloader;
 
 import com.example.ecommerce.product.app.IProductService;
 import com.example.ecommerce.product.api.dto.ProductDTO;
-import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductCatalogEntry;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -19,10 +18,9 @@ public class ProductPreload implements CommandLineRunner {
     private final IProductService productService;
     private final RedisTemplate<String, Object> redisTemplate;
 
-    private static final String PRODUCT_KEY_PREFIX = "products::";
+    private static final String PRODUCT_KEY_PREFIX = "product:";
     private static final String STOCK_KEY_PREFIX = "stock:";
     private static final String PRODUCT_IDS_KEY = "products:all_ids";
-    private static final String ALL_PRODUCTS_KEY = "products:all";
 
     public ProductPreload(
             @Qualifier("dbProductService") IProductService productService,
@@ -33,45 +31,24 @@ public class ProductPreload implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
-        // Get all products from database
-        List<Product> products = productService.findAll();
-        List<ProductDTO> productDTOList = new ArrayList<>();
-
-        for (Product product : products) {
-            // Extract currentStock from Stock entity
-            Integer currentStock = 0;
-            if (product.getStock() != null && product.getStock().getCurrentValue() != null) {
-                currentStock = product.getStock().getCurrentValue();
-            }
+        // Get the catalog rows (product columns + stock counter) from database
+        List<ProductCatalogEntry> catalog = productService.findCatalog();
+        for (ProductCatalogEntry product : catalog) {
+            Integer currentStock = product.currentStock() != null ? product.currentStock() : 0;
 
             // Create ProductDTO for metadata caching
-            ProductDTO dto = new ProductDTO(
-                    product.getId(),
-                    product.getName(),
-                    product.getDescription(),
-                    product.getPrice(),
-                    product.getDiscount(),
-                    product.getImageLink()
-            );
+            ProductDTO dto = product.toDTO();
 
-            // Cache product metadata (ProductDTO without stock)
-            redisTemplate.opsForValue().set(PRODUCT_KEY_PREFIX + product.getId(), dto);
+            // Cache product metadata (ProductDTO without stock) where the cached repository reads it
+            redisTemplate.opsForValue().set(PRODUCT_KEY_PREFIX + product.id(), dto);
 
-            // Cache stock counter separately
-            redisTemplate.opsForValue().set(STOCK_KEY_PREFIX + product.getId(), currentStock);
+            // Cache stock counter separately, keeping a live counter that may not be flushed to the DB yet
+            redisTemplate.opsForValue().setIfAbsent(STOCK_KEY_PREFIX + product.id(), currentStock);
 
             // Cache for retrieving all ids of product entity
-            redisTemplate.opsForSet().add(PRODUCT_IDS_KEY, product.getId().toString());
-            
-            // Add DTO to list for caching all products
-            productDTOList.add(dto);
-        }
-        
-        // Cache the entire DTO list to avoid N+1 problem
-        if (!productDTOList.isEmpty()) {
-            redisTemplate.opsForValue().set(ALL_PRODUCTS_KEY, productDTOList);
+            redisTemplate.opsForSet().add(PRODUCT_IDS_KEY, product.id().toString());
         }
         
-        System.out.println("Redis preloaded with " + productDTOList.size() + " products (including cached DTO list)");
+        System.out.println("Redis preloaded with " + catalog.size() + " products");
     }
 }
@@ -0,0 +1,425 @@
+package com.example.ecommerce.common.serializer;
+
+import com.example.ecommerce.category.api.dto.CategoryDTO;
+import com.example.ecommerce.coupon.domain.Coupon;
+import com.example.ecommerce.order.infrastructure.cache.order.OrderReadModel;
+import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.example.ecommerce.user.api.dto.UserDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Schema-aware binary serializer for the DTOs we cache, with JSON for everything else.
+ *
+ * Layout: magic 0xC1, format version, type tag, then the fields in declaration order.
+ * Each record starts with a null bitmap (one bit per field); integers are zig-zag varints,
+ * strings are varint length + UTF-8, timestamps are epoch seconds + nanos.
+ * A list of one supported type is written as the list tag, a varint count and the records.
+ * Order read models nest their items the same way: a varint count, then one record per item.
+ *
+ * Any other value, including numbers read by the Lua scripts, is delegated to the JSON serializer.
+ * JSON never starts with the magic byte, so both formats can be read side by side. A payload with
+ * an unknown version reads as null, i.e. a cache miss, so mixed versions during a rolling upgrade
+ * just reload from the database.
+ */
+@Slf4j
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC1;
+    static final byte VERSION = 1;
+
+    private static final byte PRODUCT = 1;
+    private static final byte USER = 2;
+    private static final byte CATEGORY = 3;
+    private static final byte REVIEW = 4;
+    private static final byte COUPON = 5;
+    private static final byte ORDER = 6;
+    private static final byte LIST_FLAG = 0x40;
+
+    private final RedisSerializer<Object> fallback;
+
+    public CompactRedisSerializer(RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        byte tag = tagOf(value);
+        if (tag == 0) {
+            return fallback.serialize(value);
+        }
+
+        Writer out = new Writer();
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(tag);
+
+        if ((tag & LIST_FLAG) != 0) {
+            List<?> list = (List<?>) value;
+            out.writeVarLong(list.size());
+            byte elementTag = (byte) (tag & ~LIST_FLAG);
+            for (Object element : list) {
+                writeRecord(out, elementTag, element);
+            }
+        } else {
+            writeRecord(out, tag, value);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < 3) {
+            throw new SerializationException("Truncated compact payload");
+        }
+        if (bytes[1] != VERSION) {
+            log.debug("Ignoring compact payload with unsupported version {}", bytes[1]);
+            return null;
+        }
+
+        try {
+            Reader in = new Reader(ByteBuffer.wrap(bytes, 3, bytes.length - 3));
+            byte tag = bytes[2];
+            if ((tag & LIST_FLAG) != 0) {
+                int size = (int) in.readVarLong();
+                byte elementTag = (byte) (tag & ~LIST_FLAG);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readRecord(in, elementTag));
+                }
+                return list;
+            }
+            return readRecord(in, tag);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not read compact payload", e);
+        }
+    }
+
+    /**
+     * Tag for a supported value or a non-empty list of one supported type, 0 for JSON.
+     */
+    private static byte tagOf(@Nullable Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof List<?> list) {
+            if (list.isEmpty() || list.get(0) == null) {
+                return 0;
+            }
+            Class<?> type = list.get(0).getClass();
+            byte elementTag = tagOfType(type);
+            if (elementTag == 0) {
+                return 0;
+            }
+            for (Object element : list) {
+                if (element == null || element.getClass() != type) {
+                    return 0;
+                }
+            }
+            return (byte) (elementTag | LIST_FLAG);
+        }
+        return tagOfType(value.getClass());
+    }
+
+    private static byte tagOfType(Class<?> type) {
+        if (type == ProductDTO.class) return PRODUCT;
+        if (type == UserDTO.class) return USER;
+        if (type == CategoryDTO.class) return CATEGORY;
+        if (type == ReviewDTO.class) return REVIEW;
+        if (type == Coupon.class) return COUPON;
+        if (type == OrderReadModel.class) return ORDER;
+        return 0;
+    }
+
+    // Field order is the wire format: any change to it needs a new VERSION
+
+    private static void writeRecord(Writer out, byte tag, Object value) {
+        switch (tag) {
+            case PRODUCT -> {
+                ProductDTO p = (ProductDTO) value;
+                out.nulls(p.getId(), p.getName(), p.getDescription(), p.getPrice(), p.getDiscount(), p.getImageLink());
+                out.writeLong(p.getId());
+                out.writeString(p.getName());
+                out.writeString(p.getDescription());
+                out.writeDouble(p.getPrice());
+                out.writeInt(p.getDiscount());
+                out.writeString(p.getImageLink());
+            }
+            case USER -> {
+                UserDTO u = (UserDTO) value;
+                out.nulls(u.getId(), u.getUsername(), u.getEmail());
+                out.writeLong(u.getId());
+                out.writeString(u.getUsername());
+                out.writeString(u.getEmail());
+            }
+            case CATEGORY -> {
+                CategoryDTO c = (CategoryDTO) value;
+                out.nulls(c.getId(), c.getName());
+                out.writeLong(c.getId());
+                out.writeString(c.getName());
+            }
+            case REVIEW -> {
+                ReviewDTO r = (ReviewDTO) value;
+                out.nulls(r.getId(), r.getComment(), r.getGrade(), r.getUserId(),
+                        r.getUsername(), r.getProductId(), r.getProductName(), r.getCreatedAt());
+                out.writeLong(r.getId());
+                out.writeString(r.getComment());
+                out.writeInt(r.getGrade());
+                out.writeLong(r.getUserId());
+                out.writeString(r.getUsername());
+                out.writeLong(r.getProductId());
+                out.writeString(r.getProductName());
+                out.writeDateTime(r.getCreatedAt());
+            }
+            case COUPON -> {
+                Coupon c = (Coupon) value;
+                out.nulls(c.getId(), c.getCode(), c.getDiscount(), c.getValidUntil(), c.getUsed());
+                out.writeLong(c.getId());
+                out.writeString(c.getCode());
+                out.writeInt(c.getDiscount());
+                out.writeDateTime(c.getValidUntil());
+                if (c.getUsed() != null) {
+                    out.write(c.getUsed() ? 1 : 0);
+                }
+            }
+            case ORDER -> {
+                OrderReadModel o = (OrderReadModel) value;
+                out.nulls(o.id(), o.orderDate(), o.userId(), o.couponApplied(), o.totalCost(), o.items());
+                out.writeLong(o.id());
+                out.writeDateTime(o.orderDate());
+                out.writeLong(o.userId());
+                out.writeString(o.couponApplied());
+                out.writeDouble(o.totalCost());
+                if (o.items() != null) {
+                    out.writeVarLong(o.items().size());
+                    for (OrderReadModel.Item i : o.items()) {
+                        out.nulls(i.id(), i.productId(), i.productName(), i.quantity(), i.unitPrice(), i.orderItemPrice());
+                        out.writeLong(i.id());
+                        out.writeLong(i.productId());
+                        out.writeString(i.productName());
+                        out.writeInt(i.quantity());
+                        out.writeDouble(i.unitPrice());
+                        out.writeDouble(i.orderItemPrice());
+                    }
+                }
+            }
+            default -> throw new SerializationException("Unknown compact type tag " + tag);
+        }
+    }
+
+    private static Object readRecord(Reader in, byte tag) {
+        switch (tag) {
+            case PRODUCT -> {
+                in.readNulls();
+                return new ProductDTO(in.readLong(), in.readString(), in.readString(),
+                        in.readDouble(), in.readInt(), in.readString());
+            }
+            case USER -> {
+                in.readNulls();
+                return new UserDTO(in.readLong(), in.readString(), in.readString());
+            }
+            case CATEGORY -> {
+                in.readNulls();
+                return new CategoryDTO(in.readLong(), in.readString());
+            }
+            case REVIEW -> {
+                in.readNulls();
+                return new ReviewDTO(in.readLong(), in.readString(), in.readInt(), in.readLong(),
+                        in.readString(), in.readLong(), in.readString(), in.readDateTime());
+            }
+            case COUPON -> {
+                in.readNulls();
+                Coupon coupon = new Coupon();
+                coupon.setId(in.readLong());
+                coupon.setCode(in.readString());
+                coupon.setDiscount(in.readInt());
+                coupon.setValidUntil(in.readDateTime());
+                coupon.setUsed(in.present() ? in.buffer.get() != 0 : null);
+                return coupon;
+            }
+            case ORDER -> {
+                in.readNulls();
+                Long id = in.readLong();
+                LocalDateTime orderDate = in.readDateTime();
+                Long userId = in.readLong();
+                String couponApplied = in.readString();
+                Double totalCost = in.readDouble();
+                List<OrderReadModel.Item> items = List.of();
+                // Items carry their own null bitmaps, so the order's must be read to the end first
+                if (in.present()) {
+                    int count = (int) in.readVarLong();
+                    items = new ArrayList<>(count);
+                    for (int n = 0; n < count; n++) {
+                        in.readNulls();
+                        items.add(new OrderReadModel.Item(in.readLong(), in.readLong(), in.readString(),
+                                in.readInt(), in.readDouble(), in.readDouble()));
+                    }
+                }
+                return new OrderReadModel(id, orderDate, userId, couponApplied, totalCost, items);
+            }
+            default -> throw new SerializationException("Unknown compact type tag " + tag);
+        }
+    }
+
+    /**
+     * Field writer; every write* skips null fields, which are recorded in the bitmap instead.
+     */
+    private static final class Writer {
+        // Unsynchronized alternative to ByteArrayOutputStream
+        private byte[] bytes = new byte[128];
+        private int size;
+
+        void write(int b) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] src) {
+            ensureCapacity(src.length);
+            System.arraycopy(src, 0, bytes, size, src.length);
+            size += src.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        void nulls(Object... fields) {
+            long nullBits = 0;
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] == null) {
+                    nullBits |= 1L << i;
+                }
+            }
+            writeVarLong(nullBits);
+        }
+
+        private boolean skip(Object fieldValue) {
+            return fieldValue == null;
+        }
+
+        void writeLong(Long v) {
+            if (!skip(v)) writeVarLong((v << 1) ^ (v >> 63));
+        }
+
+        void writeInt(Integer v) {
+            if (!skip(v)) writeVarLong(Integer.toUnsignedLong((v << 1) ^ (v >> 31)));
+        }
+
+        void writeDouble(Double v) {
+            if (skip(v)) return;
+            long bits = Double.doubleToLongBits(v);
+            for (int i = 7; i >= 0; i--) {
+                write((int) (bits >>> (i * 8)));
+            }
+        }
+
+        void writeString(String v) {
+            if (skip(v)) return;
+            byte[] utf8 = v.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            write(utf8);
+        }
+
+        void writeDateTime(LocalDateTime v) {
+            if (skip(v)) return;
+            long seconds = v.toEpochSecond(ZoneOffset.UTC);
+            writeVarLong((seconds << 1) ^ (seconds >> 63));
+            writeVarLong(v.getNano());
+        }
+
+        void writeVarLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            write((int) v);
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private long nullBits;
+        private int field;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void readNulls() {
+            nullBits = readVarLong();
+            field = 0;
+        }
+
+        boolean present() {
+            return (nullBits & (1L << field++)) == 0;
+        }
+
+        Long readLong() {
+            if (!present()) return null;
+            long v = readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        Integer readInt() {
+            if (!present()) return null;
+            long v = readVarLong();
+            return (int) ((v >>> 1) ^ -(v & 1));
+        }
+
+        Double readDouble() {
+            return present() ? buffer.getDouble() : null;
+        }
+
+        String readString() {
+            if (!present()) return null;
+            int length = (int) readVarLong();
+            String v = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return v;
+        }
+
+        LocalDateTime readDateTime() {
+            if (!present()) return null;
+            long v = readVarLong();
+            long seconds = (v >>> 1) ^ -(v & 1);
+            int nanos = (int) readVarLong();
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new SerializationException("Malformed varint");
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.example.ecommerce.coupon.app;
 
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.example.ecommerce.common.config.RedisScriptRegistry;
 import com.example.ecommerce.coupon.domain.Coupon;
 import com.example.ecommerce.coupon.infrastructure.cache.ICouponRepository;
 
@@ -12,7 +12,6 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for Coupon CRUD and application operations.
@@ -21,13 +20,19 @@ import java.util.concurrent.CompletableFuture;
 public class CouponService implements ICouponService {
     
     private static final String COUPON_USAGE_PREFIX = "coupon:used:";
+    private static final Duration COUPON_USAGE_TTL = Duration.ofDays(1);
     
     private final ICouponRepository couponRepository;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final CouponUsageWriter usageWriter;
     
-    public CouponService(ICouponRepository couponRepository, RedisTemplate<String, Object> redisTemplate) {
+    public CouponService(
+            ICouponRepository couponRepository,
+            RedisScriptRegistry scriptRegistry,
+            CouponUsageWriter usageWriter) {
         this.couponRepository = couponRepository;
-        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.usageWriter = usageWriter;
     }
     
     // -------------------
@@ -88,32 +93,29 @@ public class CouponService implements ICouponService {
     
     @Override
     public boolean applyCoupon(@NonNull String code, @NonNull Long userId) {
-        String usageKey = COUPON_USAGE_PREFIX + code;
-        
-        // Try to mark coupon as used by this user (atomic operation)
-        Boolean success = redisTemplate.opsForValue()
-                .setIfAbsent(usageKey, userId, Duration.ofDays(1));
+        // Get coupon and validate; unknown codes are turned away by the repository's code
+        // filter before a usage marker is written
+        Optional<Coupon> couponOpt = couponRepository.findByCode(code);
+        Coupon coupon = couponOpt.orElse(null);
         
-        if (Boolean.FALSE.equals(success)) {
-            // Coupon already used
+        if (!validateCoupon(coupon)) {
             return false;
         }
         
-        // Get coupon and validate
-        Optional<Coupon> couponOpt = couponRepository.findByCode(code);
-        Coupon coupon = couponOpt.orElse(null);
+        String usageKey = COUPON_USAGE_PREFIX + code;
         
-        if (!validateCoupon(coupon)) {
-            // Validation failed - rollback the usage marker
-            redisTemplate.delete(usageKey);
+        // Try to mark coupon as used by this user (atomic operation, see scripts/coupon-claim.lua)
+        Long claimed = scriptRegistry.execute(
+                RedisScriptRegistry.COUPON_CLAIM, Long.class, List.of(usageKey),
+                userId, COUPON_USAGE_TTL.toSeconds());
+        
+        if (claimed == null || claimed != 1) {
+            // Coupon already used
             return false;
         }
         
-        // Mark coupon as used in database (async)
-        CompletableFuture.runAsync(() -> {
-            coupon.setUsed(true);
-            couponRepository.update(coupon);
-        });
+        // Mark coupon as used in database (batched, see CouponUsageWriter)
+        usageWriter.submit(coupon.getId());
         
         return true;
     }
@@ -1,33 +1,69 @@
 package com.example.ecommerce.coupon.app;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.core.RedisTemplate;
 
+import com.example.ecommerce.common.config.RedisScriptRegistry;
 import com.example.ecommerce.coupon.infrastructure.cache.ICouponRepository;
 
+import java.time.Duration;
+
 /**
  * Configuration for CouponService beans.
  * Creates two service instances - one with caching, one without.
+ * Each has its own CouponUsageWriter over the same repository.
  */
 @Configuration
 public class CouponServiceConfig {
     
+    @Value("${coupon.usage.queue-capacity:10000}")
+    private int usageQueueCapacity;
+    
+    @Value("${coupon.usage.batch-size:500}")
+    private int usageBatchSize;
+    
+    @Value("${coupon.usage.flush-interval-ms:200}")
+    private long usageFlushIntervalMs;
+    
+    @Bean
+    @Qualifier("dbCouponUsageWriter")
+    public CouponUsageWriter dbCouponUsageWriter(
+            @Qualifier("dbCouponRepository") ICouponRepository repository,
+            MeterRegistry meterRegistry) {
+        return usageWriter(repository, meterRegistry, "db");
+    }
+    
+    @Bean
+    @Qualifier("cachedCouponUsageWriter")
+    public CouponUsageWriter cachedCouponUsageWriter(
+            @Qualifier("cachedCouponRepository") ICouponRepository repository,
+            MeterRegistry meterRegistry) {
+        return usageWriter(repository, meterRegistry, "cached");
+    }
+    
     @Bean
     @Qualifier("dbCouponService")
     public CouponService dbCouponService(
             @Qualifier("dbCouponRepository") ICouponRepository repository,
-            RedisTemplate<String, Object> redisTemplate) {
-        return new CouponService(repository, redisTemplate);
+            RedisScriptRegistry scriptRegistry,
+            @Qualifier("dbCouponUsageWriter") CouponUsageWriter usageWriter) {
+        return new CouponService(repository, scriptRegistry, usageWriter);
     }
     
     @Bean
     @Qualifier("cachedCouponService")
     public CouponService cachedCouponService(
             @Qualifier("cachedCouponRepository") ICouponRepository repository,
-            RedisTemplate<String, Object> redisTemplate) {
-        return new CouponService(repository, redisTemplate);
+            RedisScriptRegistry scriptRegistry,
+            @Qualifier("cachedCouponUsageWriter") CouponUsageWriter usageWriter) {
+        return new CouponService(repository, scriptRegistry, usageWriter);
+    }
+    
+    private CouponUsageWriter usageWriter(ICouponRepository repository, MeterRegistry meterRegistry, String name) {
+        return new CouponUsageWriter(repository, meterRegistry, name,
+                usageQueueCapacity, usageBatchSize, Duration.ofMillis(usageFlushIntervalMs));
     }
 }
-
@@ -0,0 +1,169 @@
+package com.example.ecommerce.coupon.app;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+
+import com.example.ecommerce.coupon.infrastructure.cache.ICouponRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists redeemed coupons in batches instead of one update per redemption.
+ *
+ * Redeemed coupon IDs go into a bounded queue. One thread drains it every flush interval and
+ * marks each batch used with a single set-based update through the repository, which also
+ * refreshes its cache. When the queue is full, the redeeming request writes its own coupon
+ * instead of queueing it, so a burst slows callers down rather than dropping updates.
+ * A batch that fails is put back and retried on the next flush. Closing the writer (on
+ * context shutdown) stops the thread and flushes whatever is still queued.
+ *
+ * Metrics, tagged with the repository name:
+ * - coupon.usage.queue        - coupon IDs waiting to be written
+ * - coupon.usage.flush        - duration of one batch update
+ * - coupon.usage.written      - coupons marked used
+ * - coupon.usage.caller.runs  - redemptions written by the caller because the queue was full
+ * - coupon.usage.failures     - coupons in batches that failed and were queued again
+ */
+@Slf4j
+public class CouponUsageWriter implements AutoCloseable {
+
+    private final ICouponRepository couponRepository;
+    private final BlockingQueue<Long> queue;
+    private final int batchSize;
+    private final ScheduledExecutorService flusher;
+
+    private final Timer flushTimer;
+    private final Counter written;
+    private final Counter callerRuns;
+    private final Counter failures;
+
+    public CouponUsageWriter(
+            ICouponRepository couponRepository,
+            MeterRegistry meterRegistry,
+            String name,
+            int queueCapacity,
+            int batchSize,
+            Duration flushInterval) {
+        this.couponRepository = couponRepository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+
+        Gauge.builder("coupon.usage.queue", queue, BlockingQueue::size)
+                .tag("repository", name)
+                .description("Redeemed coupons waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("coupon.usage.flush").tag("repository", name).register(meterRegistry);
+        this.written = Counter.builder("coupon.usage.written").tag("repository", name).register(meterRegistry);
+        this.callerRuns = Counter.builder("coupon.usage.caller.runs").tag("repository", name).register(meterRegistry);
+        this.failures = Counter.builder("coupon.usage.failures").tag("repository", name).register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "coupon-usage-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQueued, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a redeemed coupon; written by the caller if the queue is full.
+     */
+    public void submit(@NonNull Long couponId) {
+        if (queue.offer(couponId)) {
+            return;
+        }
+        callerRuns.increment();
+        write(List.of(couponId));
+    }
+
+    /**
+     * Stop the flush thread and write everything still queued.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Coupon usage flush still running after 10s, draining anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int remaining = queue.size();
+        while (!queue.isEmpty()) {
+            if (!flushBatch()) {
+                log.error("Could not write {} redeemed coupons on shutdown: {}", queue.size(), queue);
+                return;
+            }
+        }
+        if (remaining > 0) {
+            log.info("Wrote {} queued coupon redemptions on shutdown", remaining);
+        }
+    }
+
+    private void flushQueued() {
+        try {
+            // Keep flushing while full batches are waiting, instead of one batch per interval
+            while (!queue.isEmpty() && flushBatch()) {
+                if (queue.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled task
+            log.error("Coupon usage flush failed", e);
+        }
+    }
+
+    /**
+     * Write one batch from the queue.
+     *
+     * @return false when the batch failed and was queued again
+     */
+    private boolean flushBatch() {
+        List<Long> drained = new ArrayList<>(batchSize);
+        queue.drainTo(drained, batchSize);
+        if (drained.isEmpty()) {
+            return true;
+        }
+        // A coupon is claimed once, but retried batches can overlap with new ones
+        List<Long> batch = new ArrayList<>(new LinkedHashSet<>(drained));
+
+        try {
+            write(batch);
+            return true;
+        } catch (RuntimeException e) {
+            failures.increment(batch.size());
+            log.warn("Could not mark {} coupons used, retrying on the next flush: {}", batch.size(), e.getMessage());
+            int requeued = 0;
+            for (Long id : batch) {
+                if (queue.offer(id)) {
+                    requeued++;
+                }
+            }
+            if (requeued < batch.size()) {
+                log.error("Queue full, {} redeemed coupons were not marked used", batch.size() - requeued);
+            }
+            return false;
+        }
+    }
+
+    private void write(List<Long> ids) {
+        flushTimer.record(() -> couponRepository.markUsed(ids));
+        written.increment(ids.size());
+    }
+}
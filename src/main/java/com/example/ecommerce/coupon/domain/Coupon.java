@@ -1,5 +1,6 @@
 package com.example.ecommerce.coupon.domain;
 
+import com.example.ecommerce.common.config.IdSequences;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,7 +16,8 @@ import java.time.LocalDateTime;
 public class Coupon {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "coupon_seq")
+    @SequenceGenerator(name = "coupon_seq", sequenceName = "coupon_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true, nullable = false)
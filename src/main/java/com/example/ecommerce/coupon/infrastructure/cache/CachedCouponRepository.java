@@ -2,15 +2,22 @@ package com.example.ecommerce.coupon.infrastructure.cache;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import com.example.ecommerce.common.cache.NegativeCache;
+import com.example.ecommerce.common.cache.SingleFlight;
 import com.example.ecommerce.coupon.domain.Coupon;
 import com.example.ecommerce.coupon.infrastructure.persistence.CouponTable;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +27,7 @@ import java.util.Optional;
  * Caches entire Coupon objects with key pattern: coupon:{couponId}
  * Code lookups cached with key pattern: coupon:code:{code}
  * Coupon TTL is set based on validUntil date.
+ * Unknown codes are rejected by {@link CouponCodeFilter} before the database is queried.
  */
 @Repository
 @Qualifier("cachedCouponRepository")
@@ -28,8 +36,13 @@ public class CachedCouponRepository implements ICouponRepository {
     
     private final CouponTable couponTable;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SingleFlight singleFlight;
+    private final NegativeCache negativeCache;
+    private final CouponCodeFilter codeFilter;
     
     private static final String CACHE_KEY_PREFIX = "coupon:";
+    private static final String MISS_DOMAIN = "coupon";
+    private static final String CODE_MISS_DOMAIN = "coupon-code";
     private static final String CODE_KEY_PREFIX = "coupon:code:";
     private static final String ALL_COUPONS_KEY = "coupons:all";
     
@@ -41,6 +54,9 @@ public class CachedCouponRepository implements ICouponRepository {
     @NonNull
     public Coupon create(@NonNull Coupon coupon) {
         Coupon saved = couponTable.save(coupon);
+        codeFilter.add(saved.getCode());
+        negativeCache.clear(MISS_DOMAIN, saved.getId());
+        negativeCache.clear(CODE_MISS_DOMAIN, saved.getCode());
         cacheCoupon(saved);
         cacheByCode(saved);
         invalidateAllCouponsCache();
@@ -53,21 +69,22 @@ public class CachedCouponRepository implements ICouponRepository {
     
     @Override
     @NonNull
-    @SuppressWarnings("unchecked")
     public List<Coupon> findAll() {
-        List<Coupon> cached = (List<Coupon>) redisTemplate.opsForValue().get(ALL_COUPONS_KEY);
+        List<Coupon> cached = getCachedAll();
         
         if (cached != null) {
             return cached;
         }
         
-        // Cache miss - fetch from database
-        List<Coupon> coupons = couponTable.findAll();
-        
-        // Cache all coupons
-        cacheAllCoupons(coupons);
-        
-        return coupons;
+        return singleFlight.load(ALL_COUPONS_KEY, this::getCachedAll, () -> {
+            // Cache miss - fetch from database
+            List<Coupon> coupons = couponTable.findAll();
+            
+            // Cache all coupons
+            cacheAllCoupons(coupons);
+            
+            return coupons;
+        });
     }
     
     @Override
@@ -75,22 +92,28 @@ public class CachedCouponRepository implements ICouponRepository {
     public Optional<Coupon> findById(@NonNull Long id) {
         // Check cache first (optimistic caching)
         String cacheKey = CACHE_KEY_PREFIX + id;
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        Optional<Coupon> cached = getCached(cacheKey);
         
         if (cached != null) {
-            return Optional.of((Coupon) cached);
+            return cached;
         }
         
-        // Cache miss - fetch from database
-        Optional<Coupon> couponOpt = couponTable.findById(id);
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
+        }
         
-        // Cache the result if found
-        couponOpt.ifPresent(coupon -> {
-            cacheCoupon(coupon);
-            cacheByCode(coupon);
+        return singleFlight.loadOptional(cacheKey, () -> getCached(cacheKey), MISS_DOMAIN, id, () -> {
+            // Cache miss - fetch from database
+            Optional<Coupon> couponOpt = couponTable.findById(id);
+            
+            // Cache the result if found, remember the miss otherwise
+            couponOpt.ifPresentOrElse(coupon -> {
+                cacheCoupon(coupon);
+                cacheByCode(coupon);
+            }, () -> negativeCache.markMissing(MISS_DOMAIN, id));
+            
+            return couponOpt;
         });
-        
-        return couponOpt;
     }
     
     @Override
@@ -106,16 +129,27 @@ public class CachedCouponRepository implements ICouponRepository {
             return findById(couponId);
         }
         
-        // Cache miss - fetch from database
-        Optional<Coupon> couponOpt = couponTable.findByCode(code);
+        // Definite miss: no coupon ever had this code
+        if (!codeFilter.mightContain(code) || negativeCache.isMissing(CODE_MISS_DOMAIN, code)) {
+            return Optional.empty();
+        }
         
-        // Cache the result if found
-        couponOpt.ifPresent(coupon -> {
-            cacheCoupon(coupon);
-            cacheByCode(coupon);
+        return singleFlight.loadOptional(cacheKey, () -> getCachedByCode(cacheKey), CODE_MISS_DOMAIN, code, () -> {
+            // Cache miss - fetch from database
+            Optional<Coupon> couponOpt = couponTable.findByCode(code);
+            if (couponOpt.isEmpty()) {
+                codeFilter.recordFalsePositive();
+                negativeCache.markMissing(CODE_MISS_DOMAIN, code);
+            }
+            
+            // Cache the result if found
+            couponOpt.ifPresent(coupon -> {
+                cacheCoupon(coupon);
+                cacheByCode(coupon);
+            });
+            
+            return couponOpt;
         });
-        
-        return couponOpt;
     }
     
     // -------------------
@@ -134,12 +168,47 @@ public class CachedCouponRepository implements ICouponRepository {
         });
         
         Coupon updated = couponTable.save(coupon);
+        codeFilter.add(updated.getCode());
+        negativeCache.clear(CODE_MISS_DOMAIN, updated.getCode());
         cacheCoupon(updated);
         cacheByCode(updated);
         invalidateAllCouponsCache();
         return updated;
     }
     
+    /**
+     * One UPDATE for all coupons, then one multi-get and one pipeline to refresh the cached
+     * copies. Only coupons still in the cache are rewritten, and they keep their TTL.
+     */
+    @Override
+    public void markUsed(@NonNull Collection<Long> ids) {
+        couponTable.markUsed(ids);
+        
+        List<Long> idList = List.copyOf(ids);
+        List<Object> cached = redisTemplate.opsForValue().multiGet(
+                idList.stream().map(id -> CACHE_KEY_PREFIX + id).toList());
+        
+        @SuppressWarnings("unchecked")
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < idList.size(); i++) {
+                if (cached != null && cached.get(i) instanceof Coupon coupon) {
+                    coupon.setUsed(true);
+                    connection.stringCommands().set(
+                            keySerializer.serialize(CACHE_KEY_PREFIX + idList.get(i)),
+                            valueSerializer.serialize(coupon),
+                            Expiration.keepTtl(),
+                            SetOption.ifPresent());
+                }
+            }
+            connection.keyCommands().del(keySerializer.serialize(ALL_COUPONS_KEY));
+            return null;
+        });
+    }
+    
     // -------------------
     // DELETE operations
     // -------------------
@@ -169,6 +238,24 @@ public class CachedCouponRepository implements ICouponRepository {
     // Cache helper methods
     // -------------------
     
+    @SuppressWarnings("unchecked")
+    private List<Coupon> getCachedAll() {
+        return (List<Coupon>) redisTemplate.opsForValue().get(ALL_COUPONS_KEY);
+    }
+    
+    /**
+     * The cached coupon, or null on a cache miss.
+     */
+    private Optional<Coupon> getCached(String cacheKey) {
+        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        return cached != null ? Optional.of((Coupon) cached) : null;
+    }
+    
+    private Optional<Coupon> getCachedByCode(String codeKey) {
+        Object cachedId = redisTemplate.opsForValue().get(codeKey);
+        return cachedId != null ? getCached(CACHE_KEY_PREFIX + ((Number) cachedId).longValue()) : null;
+    }
+    
     private void cacheCoupon(Coupon coupon) {
         String cacheKey = CACHE_KEY_PREFIX + coupon.getId();
         Duration ttl = calculateTtl(coupon);
@@ -0,0 +1,261 @@
+package com.example.ecommerce.coupon.infrastructure.cache;
+
+import com.example.ecommerce.common.config.RedisScriptRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bloom filter of every coupon code, shared by all instances as a Redis bitmap.
+ *
+ * A code the filter has never seen is rejected without a cache or database lookup, which is
+ * what random codes guessed by bots hit. Codes that pass may still not exist (false positives,
+ * about coupon.bloom.false-positive-rate for coupon.bloom.expected-codes codes).
+ *
+ * The bitmap is built from the coupon table at startup, off the request path, and OR-ed into
+ * the live one so codes added by other instances during the build are kept. New codes are
+ * added on create and update. Bits cannot be cleared, so a deleted code keeps passing; it
+ * then costs one lookup, as before. Until the filter is built (or if its bitmap or ready
+ * marker is lost), every code passes and a rebuild is started on a thread of its own.
+ *
+ * The bitmap size and hash count are part of the key, so changing either builds a new filter
+ * instead of reading the old one with the wrong layout.
+ *
+ * Metrics:
+ * - coupon.bloom.checks               - lookups by result: rejected, passed, unavailable
+ * - coupon.bloom.false.positives      - codes that passed the filter but do not exist
+ * - coupon.bloom.false.positive.rate  - false positives / (false positives + rejected)
+ */
+@Component
+@Slf4j
+public class CouponCodeFilter implements ApplicationRunner {
+
+    private static final String KEY_PREFIX = "coupons:bloom:";
+    private static final int FETCH_SIZE = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final long bits;
+    private final int hashes;
+    private final String key;
+    private final String readyKey;
+    private final AtomicBoolean building = new AtomicBoolean();
+    // The build blocks on a database cursor; keep it off the common pool
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "coupon-filter-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter rejected;
+    private final Counter passed;
+    private final Counter unavailable;
+    private final Counter falsePositives;
+
+    public CouponCodeFilter(
+            RedisTemplate<String, Object> redisTemplate,
+            RedisScriptRegistry scriptRegistry,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${coupon.bloom.expected-codes:1000000}") long expectedCodes,
+            @Value("${coupon.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+
+        // Standard sizing: m = -n ln p / (ln 2)^2, k = m / n ln 2
+        this.bits = (long) Math.ceil(-expectedCodes * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedCodes * Math.log(2)));
+        this.key = KEY_PREFIX + bits + ":" + hashes;
+        this.readyKey = key + ":ready";
+
+        this.rejected = checks(meterRegistry, "rejected");
+        this.passed = checks(meterRegistry, "passed");
+        this.unavailable = checks(meterRegistry, "unavailable");
+        this.falsePositives = Counter.builder("coupon.bloom.false.positives")
+                .description("Coupon codes that passed the Bloom filter but do not exist")
+                .register(meterRegistry);
+        Gauge.builder("coupon.bloom.false.positive.rate", this, CouponCodeFilter::observedFalsePositiveRate)
+                .description("Share of unknown coupon codes the Bloom filter let through")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuildAsync();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * False only when the code is certainly not a coupon code.
+     */
+    public boolean mightContain(@NonNull String code) {
+        Long result;
+        try {
+            result = scriptRegistry.execute(RedisScriptRegistry.BLOOM_CHECK, Long.class,
+                    List.of(key, readyKey), offsets(code));
+        } catch (RuntimeException e) {
+            log.warn("Coupon code filter unavailable, letting {} through: {}", code, e.getMessage());
+            unavailable.increment();
+            return true;
+        }
+
+        if (result == null || result < 0) {
+            unavailable.increment();
+            rebuildAsync();
+            return true;
+        }
+        if (result == 0) {
+            rejected.increment();
+            return false;
+        }
+        passed.increment();
+        return true;
+    }
+
+    /**
+     * Report a code that passed {@link #mightContain} but was not found.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * A code missing from the filter would be rejected, so if it cannot be added the filter
+     * is rebuilt from the table instead.
+     */
+    public void add(@NonNull String code) {
+        try {
+            scriptRegistry.execute(RedisScriptRegistry.BLOOM_ADD, Long.class, List.of(key), offsets(code));
+        } catch (RuntimeException e) {
+            log.warn("Could not add {} to the coupon code filter, rebuilding it: {}", code, e.getMessage());
+            rebuildAsync();
+        }
+    }
+
+    /**
+     * Build the filter from the coupon table in the background, unless a build is running.
+     */
+    public void rebuildAsync() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            builder.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Could not build the coupon code filter", e);
+                } finally {
+                    building.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            building.set(false);
+        }
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        byte[] bitmap = new byte[(int) ((bits + 7) / 8)];
+        long[] count = {0};
+
+        // Step 1: Stream every code from a cursor into a local bitmap
+        transactionTemplate.executeWithoutResult(status -> {
+            JdbcTemplate cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+            cursorTemplate.setFetchSize(FETCH_SIZE);
+            cursorTemplate.query("SELECT code FROM coupon", rs -> {
+                for (Object offset : offsets(rs.getString(1))) {
+                    long bit = (Long) offset;
+                    // Redis bitmaps number bits from the most significant bit of each byte
+                    bitmap[(int) (bit >>> 3)] |= (byte) (0x80 >>> (bit & 7));
+                }
+                count[0]++;
+            });
+        });
+
+        // Step 2: Upload it next to the live filter and merge the two
+        String buildKey = key + ":build";
+        @SuppressWarnings("unchecked")
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.stringCommands().set(keySerializer.serialize(buildKey), bitmap);
+            return null;
+        });
+        scriptRegistry.execute(RedisScriptRegistry.BLOOM_MERGE, Long.class, List.of(key, buildKey, readyKey));
+
+        log.info("Coupon code filter built from {} codes in {} ms ({} bits, {} hashes)",
+                count[0], System.currentTimeMillis() - start, bits, hashes);
+    }
+
+    /**
+     * Bit offsets of a code: k positions from two 64-bit hashes (Kirsch-Mitzenmacher).
+     */
+    private Object[] offsets(String code) {
+        byte[] utf8 = code.getBytes(StandardCharsets.UTF_8);
+        long h1 = hash(utf8, 0x9E3779B97F4A7C15L);
+        long h2 = hash(utf8, 0xC2B2AE3D27D4EB4FL) | 1;
+        Object[] offsets = new Object[hashes];
+        for (int i = 0; i < hashes; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, bits);
+        }
+        return offsets;
+    }
+
+    /**
+     * Seeded FNV-1a, finished with the MurmurHash3 64-bit mixer.
+     */
+    private static long hash(byte[] data, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (byte b : data) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private double observedFalsePositiveRate() {
+        double negatives = falsePositives.count() + rejected.count();
+        return negatives == 0 ? 0 : falsePositives.count() / negatives;
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("coupon.bloom.checks")
+                .tag("result", result)
+                .description("Coupon code lookups checked against the Bloom filter")
+                .register(meterRegistry);
+    }
+}
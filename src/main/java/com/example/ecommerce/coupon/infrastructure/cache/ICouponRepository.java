@@ -4,6 +4,7 @@ import org.springframework.lang.NonNull;
 
 import com.example.ecommerce.coupon.domain.Coupon;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -71,6 +72,13 @@ public interface ICouponRepository {
     @NonNull
     Coupon update(@NonNull Coupon coupon);
     
+    /**
+     * Mark coupons as used with a single set-based update.
+     * 
+     * @param ids the coupon IDs
+     */
+    void markUsed(@NonNull Collection<Long> ids);
+    
     // -------------------
     // DELETE operations
     // -------------------
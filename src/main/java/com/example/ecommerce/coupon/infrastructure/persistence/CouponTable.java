@@ -1,13 +1,28 @@
 package com.example.ecommerce.coupon.infrastructure.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.ecommerce.coupon.domain.Coupon;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface CouponTable extends JpaRepository<Coupon, Long> {
     
     Optional<Coupon> findByCode(String code);
+    
+    /**
+     * Mark many coupons as used with one statement.
+     * 
+     * @return the number of coupons updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Coupon c SET c.used = true WHERE c.id IN :ids")
+    int markUsed(@Param("ids") Collection<Long> ids);
 }
 
@@ -6,8 +6,10 @@ import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
 import com.example.ecommerce.coupon.domain.Coupon;
+import com.example.ecommerce.coupon.infrastructure.cache.CouponCodeFilter;
 import com.example.ecommerce.coupon.infrastructure.cache.ICouponRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +24,8 @@ import java.util.Optional;
 public class DatabaseCouponRepository implements ICouponRepository {
     
     private final CouponTable couponTable;
+    // Shared with the cached repository, which rejects codes the filter has not seen
+    private final CouponCodeFilter codeFilter;
     
     // -------------------
     // CREATE operations
@@ -30,7 +34,9 @@ public class DatabaseCouponRepository implements ICouponRepository {
     @Override
     @NonNull
     public Coupon create(@NonNull Coupon coupon) {
-        return couponTable.save(coupon);
+        Coupon saved = couponTable.save(coupon);
+        codeFilter.add(saved.getCode());
+        return saved;
     }
     
     // -------------------
@@ -62,7 +68,14 @@ public class DatabaseCouponRepository implements ICouponRepository {
     @Override
     @NonNull
     public Coupon update(@NonNull Coupon coupon) {
-        return couponTable.save(coupon);
+        Coupon updated = couponTable.save(coupon);
+        codeFilter.add(updated.getCode());
+        return updated;
+    }
+    
+    @Override
+    public void markUsed(@NonNull Collection<Long> ids) {
+        couponTable.markUsed(ids);
     }
     
     // -------------------
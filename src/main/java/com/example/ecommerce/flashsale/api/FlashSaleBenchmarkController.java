@@ -10,6 +10,7 @@ import com.example.ecommerce.flashsale.api.dto.FlashSaleResponseDTO;
 import com.example.ecommerce.flashsale.app.FlashSaleService;
 import com.example.ecommerce.flashsale.domain.FlashSaleEvent;
 import com.example.ecommerce.flashsale.api.dto.BuyRequest;
+import com.example.ecommerce.order.api.dto.OrderIntakeStatusDTO;
 import com.example.ecommerce.user.infrastructure.persistence.user.IUserRepository;
 import com.example.ecommerce.user.domain.User;  
 import java.util.List;
@@ -111,15 +112,28 @@ public class FlashSaleBenchmarkController {
     }
     
     @PostMapping("/cached/flashsales/buy")
-    public ResponseEntity<Void> cachedBuy(@RequestBody BuyRequest request) {
+    public ResponseEntity<OrderIntakeStatusDTO> cachedBuy(@RequestBody BuyRequest request) {
         User user = cachedUserRepository.findById(request.getUserId())
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "User not found with id: " + request.getUserId()
                 ));
+        
+        // order.intake.mode=async: reserve in Redis, queue the insert and hand out a token
+        if (cachedFlashSaleService.isAsyncOrderIntake()) {
+            String token = cachedFlashSaleService.buyProductsAsync(user, request.getProducts());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new OrderIntakeStatusDTO(token, OrderIntakeStatusDTO.PENDING, null, null));
+        }
+        
         cachedFlashSaleService.buyProducts(user, request.getProducts());
         return ResponseEntity.ok().build();
     }
     
+    @GetMapping("/cached/flashsales/orders/{token}")
+    public OrderIntakeStatusDTO cachedOrderStatus(@PathVariable String token) {
+        return cachedFlashSaleService.getOrderIntakeStatus(token);
+    }
+    
     // ===========================================
     // ACTIVE FLASH SALE ROUTES (DB)
     // ===========================================
@@ -0,0 +1,147 @@
+package com.example.ecommerce.flashsale.app;
+
+import com.example.ecommerce.flashsale.api.dto.FlashSaleResponseDTO;
+import com.example.ecommerce.flashsale.api.dto.ProductBasicDTO;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory index of flash sales, answering "is this product on sale now" in O(1).
+ *
+ * The index keeps every sale window and an immutable snapshot of the sales active right now,
+ * with a productId -> sale map. The snapshot is valid until the next window boundary (a sale
+ * starting or ending) and is rebuilt from the windows, without a database call, on the first
+ * read after that boundary. Writes through this instance update the windows immediately;
+ * writes by other instances are picked up by a full reload every resync interval.
+ */
+public class ActiveFlashSaleIndex {
+
+    private final Supplier<List<FlashSaleResponseDTO>> loader;
+    private final Duration resyncInterval;
+
+    private final Map<Long, FlashSaleResponseDTO> windows = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile LocalDateTime nextResync = LocalDateTime.MIN;
+
+    public ActiveFlashSaleIndex(@NonNull Supplier<List<FlashSaleResponseDTO>> loader, @NonNull Duration resyncInterval) {
+        this.loader = loader;
+        this.resyncInterval = resyncInterval;
+    }
+
+    /**
+     * Active sales, ordered by start date.
+     */
+    @NonNull
+    public List<FlashSaleResponseDTO> activeSales() {
+        return current().active();
+    }
+
+    @NonNull
+    public Optional<FlashSaleResponseDTO> activeSale(@NonNull Long flashSaleId) {
+        return Optional.ofNullable(current().activeById().get(flashSaleId));
+    }
+
+    @NonNull
+    public Optional<FlashSaleResponseDTO> activeSaleForProduct(@NonNull Long productId) {
+        return Optional.ofNullable(current().activeByProduct().get(productId));
+    }
+
+    public boolean isProductOnSale(@NonNull Long productId) {
+        return current().activeByProduct().containsKey(productId);
+    }
+
+    public boolean hasActiveSale() {
+        return !current().active().isEmpty();
+    }
+
+    /**
+     * Record a created or updated sale.
+     */
+    public synchronized void put(@NonNull FlashSaleResponseDTO sale) {
+        windows.put(sale.getId(), sale);
+        snapshot = build(windows, LocalDateTime.now());
+    }
+
+    public synchronized void remove(@NonNull Long flashSaleId) {
+        windows.remove(flashSaleId);
+        snapshot = build(windows, LocalDateTime.now());
+    }
+
+    private Snapshot current() {
+        LocalDateTime now = LocalDateTime.now();
+        Snapshot current = snapshot;
+        if (now.isBefore(current.validUntil()) && now.isBefore(nextResync)) {
+            return current;
+        }
+        return refresh(now);
+    }
+
+    private synchronized Snapshot refresh(LocalDateTime now) {
+        // Another thread may have refreshed while this one waited
+        if (now.isBefore(snapshot.validUntil()) && now.isBefore(nextResync)) {
+            return snapshot;
+        }
+
+        if (!now.isBefore(nextResync)) {
+            Map<Long, FlashSaleResponseDTO> loaded = new HashMap<>();
+            loader.get().forEach(sale -> loaded.put(sale.getId(), sale));
+            windows.clear();
+            windows.putAll(loaded);
+            nextResync = now.plus(resyncInterval);
+        }
+
+        snapshot = build(windows, now);
+        return snapshot;
+    }
+
+    private static Snapshot build(Map<Long, FlashSaleResponseDTO> windows, LocalDateTime now) {
+        Map<Long, FlashSaleResponseDTO> activeById = new HashMap<>();
+        Map<Long, FlashSaleResponseDTO> activeByProduct = new HashMap<>();
+        LocalDateTime nextBoundary = LocalDateTime.MAX;
+
+        for (FlashSaleResponseDTO sale : windows.values()) {
+            if (sale.getStartDate() == null || sale.getEndDate() == null || !sale.getEndDate().isAfter(now)) {
+                continue;
+            }
+            if (sale.getStartDate().isBefore(now)) {
+                activeById.put(sale.getId(), sale);
+                if (sale.getEndDate().isBefore(nextBoundary)) {
+                    nextBoundary = sale.getEndDate();
+                }
+            } else if (sale.getStartDate().isBefore(nextBoundary)) {
+                nextBoundary = sale.getStartDate();
+            }
+        }
+
+        List<FlashSaleResponseDTO> active = activeById.values().stream()
+                .sorted(Comparator.comparing(FlashSaleResponseDTO::getStartDate))
+                .toList();
+        // Earliest-starting sale wins when a product is in several active sales
+        for (FlashSaleResponseDTO sale : active) {
+            if (sale.getProducts() != null) {
+                for (ProductBasicDTO product : sale.getProducts()) {
+                    activeByProduct.putIfAbsent(product.getId(), sale);
+                }
+            }
+        }
+
+        return new Snapshot(active, Map.copyOf(activeById), Map.copyOf(activeByProduct), nextBoundary);
+    }
+
+    private record Snapshot(List<FlashSaleResponseDTO> active,
+                            Map<Long, FlashSaleResponseDTO> activeById,
+                            Map<Long, FlashSaleResponseDTO> activeByProduct,
+                            LocalDateTime validUntil) {
+
+        static final Snapshot EMPTY = new Snapshot(List.of(), Map.of(), Map.of(), LocalDateTime.MIN);
+    }
+}
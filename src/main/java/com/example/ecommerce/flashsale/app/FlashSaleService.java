@@ -3,21 +3,26 @@ package com.example.ecommerce.flashsale.app;
 import com.example.ecommerce.flashsale.api.dto.BuyRequest;
 import com.example.ecommerce.flashsale.domain.FlashSaleEvent;
 import com.example.ecommerce.flashsale.api.dto.FlashSaleResponseDTO;
-import com.example.ecommerce.flashsale.api.dto.ProductBasicDTO;
+import com.example.ecommerce.flashsale.infrastructure.persistence.flashsale.FlashSaleDTOMapper;
 import com.example.ecommerce.flashsale.infrastructure.persistence.flashsale.IFlashSaleRepository;
+import com.example.ecommerce.order.api.dto.OrderIntakeStatusDTO;
 import com.example.ecommerce.order.app.IOrderService;
 import com.example.ecommerce.order.domain.OrderItem;
+import com.example.ecommerce.order.infrastructure.queue.OrderIntakeQueue;
 import com.example.ecommerce.product.app.IProductService;
 import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.product.infrastructure.persistence.product.StockReservation;
 import com.example.ecommerce.user.domain.User;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -30,25 +35,83 @@ public class FlashSaleService {
     private final IFlashSaleRepository flashSaleRepository;
     private final IProductService productService;
     private final IOrderService orderService;
+    private final OrderIntakeQueue orderIntakeQueue;
+    private final ActiveFlashSaleIndex activeIndex;
     
     public FlashSaleService(
             IFlashSaleRepository flashSaleRepository,
             IProductService productService,
-            IOrderService orderService) {
+            IOrderService orderService,
+            OrderIntakeQueue orderIntakeQueue,
+            Duration indexResyncInterval) {
         this.flashSaleRepository = flashSaleRepository;
         this.productService = productService;
         this.orderService = orderService;
+        this.orderIntakeQueue = orderIntakeQueue;
+        this.activeIndex = new ActiveFlashSaleIndex(this::findAll, indexResyncInterval);
     }
     
 
     public void buyProducts(@NonNull User user, @NonNull List<BuyRequest.ProductOrder> productOrders) {
+        List<OrderItem> items = reserveItems(productOrders);
+        
+        // createOrderForUser will create the Order and set the relationship on items
+        orderService.createOrderForUser(user, items);
+    }
+    
+    /**
+     * Reserve the cart like {@link #buyProducts} but queue the order instead of inserting it.
+     *
+     * @return the token to poll with {@link #getOrderIntakeStatus}
+     */
+    @NonNull
+    public String buyProductsAsync(@NonNull User user, @NonNull List<BuyRequest.ProductOrder> productOrders) {
+        List<OrderItem> items = reserveItems(productOrders);
+        return orderIntakeQueue.enqueue(user, items);
+    }
+    
+    public boolean isAsyncOrderIntake() {
+        return orderIntakeQueue.isAsync();
+    }
+    
+    @NonNull
+    public OrderIntakeStatusDTO getOrderIntakeStatus(@NonNull String token) {
+        return orderIntakeQueue.findStatus(token)
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "No queued order found for token: " + token
+                ));
+    }
+    
+    private List<OrderItem> reserveItems(List<BuyRequest.ProductOrder> productOrders) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        
+        for (BuyRequest.ProductOrder po : productOrders) {
+            if (po.getProductId() == null || po.getQuantity() == null || po.getQuantity() <= 0) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "Each product order needs a product ID and a positive quantity");
+            }
+            quantities.merge(po.getProductId(), po.getQuantity(), Integer::sum);
+        }
+        
+        if (quantities.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one product is required");
+        }
+        
+        // Reserve the whole cart at once so a sold-out line never leaves the others decremented
+        StockReservation reservation = productService.reserveAll(quantities);
+        switch (reservation.outcome()) {
+            case OUT_OF_STOCK -> throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "One or more products are out of stock");
+            case PRODUCT_MISSING -> throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND, "Product not found with id: " + reservation.missingIds().get(0));
+            case RESERVED -> { }
+        }
+        Map<Long, Product> products = reservation.products();
+        
         List<OrderItem> items = new ArrayList<>();
         
         for (BuyRequest.ProductOrder po : productOrders) {
-            Product product = productService.returnIfInStock(po.getProductId(), po.getQuantity())
-                    .orElseThrow(() -> new ResponseStatusException(
-                            HttpStatus.BAD_REQUEST, "Product " + po.getProductId() + " is out of stock"
-                    ));
+            Product product = products.get(po.getProductId());
             
             OrderItem item = new OrderItem();
             item.setProduct(product);
@@ -58,8 +121,7 @@ public class FlashSaleService {
             items.add(item);
         }
         
-        // createOrderForUser will create the Order and set the relationship on items
-        orderService.createOrderForUser(user, items);
+        return items;
     }
     
     // -------------------
@@ -70,13 +132,15 @@ public class FlashSaleService {
     public Map<String, Object> create(@NonNull FlashSaleEvent flashSale) {
         List<Long> skipped = validateAndFilterProducts(flashSale);
         FlashSaleEvent created = flashSaleRepository.create(flashSale);
+        FlashSaleResponseDTO dto = FlashSaleDTOMapper.toDTO(created);
+        activeIndex.put(dto);
         
         String message = skipped.isEmpty() 
             ? "Flash sale created successfully" 
             : "Flash sale created, but " + skipped.size() + " product(s) were skipped (not found)";
         
         return Map.of(
-            "flashSale", toDTO(created),
+            "flashSale", dto,
             "skippedProductIds", skipped,
             "message", message
         );
@@ -84,9 +148,7 @@ public class FlashSaleService {
     
     @NonNull
     public List<FlashSaleResponseDTO> findAll() {
-        return flashSaleRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return flashSaleRepository.findAllDTO();
     }
     
     @NonNull
@@ -95,7 +157,7 @@ public class FlashSaleService {
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "Flash sale event not found with id: " + id
                 ));
-        return toDTO(event);
+        return FlashSaleDTOMapper.toDTO(event);
     }
     
     @NonNull
@@ -110,13 +172,15 @@ public class FlashSaleService {
         
         List<Long> skipped = validateAndFilterProducts(flashSale);
         FlashSaleEvent updated = flashSaleRepository.update(flashSale);
+        FlashSaleResponseDTO dto = FlashSaleDTOMapper.toDTO(updated);
+        activeIndex.put(dto);
         
         String message = skipped.isEmpty() 
             ? "Flash sale updated successfully" 
             : "Flash sale updated, but " + skipped.size() + " product(s) were skipped (not found)";
         
         return Map.of(
-            "flashSale", toDTO(updated),
+            "flashSale", dto,
             "skippedProductIds", skipped,
             "message", message
         );
@@ -155,54 +219,43 @@ public class FlashSaleService {
                         HttpStatus.NOT_FOUND, "Flash sale event not found with id: " + id
                 ));
         flashSaleRepository.delete(id);
+        activeIndex.remove(id);
     }
     
     // -------------------
     // Active Flash Sale Operations
     // -------------------
     
+    // Served from ActiveFlashSaleIndex, no repository scan per request
+    
     /**
      * Get all active flash sales (currently running).
      */
     @NonNull
     public List<FlashSaleResponseDTO> getActiveFlashSales() {
-        return flashSaleRepository.findAll().stream()
-                .filter(this::isActive)
-                .map(this::toDTO)
-                .toList();
+        return activeIndex.activeSales();
     }
     
 
     @NonNull
     public Optional<FlashSaleResponseDTO> getActiveFlashSale(@NonNull Long id) {
-        return flashSaleRepository.findById(id)
-                .filter(this::isActive)
-                .map(this::toDTO);
+        return activeIndex.activeSale(id);
     }
     
     public boolean isProductInActiveFlashSale(@NonNull Long productId) {
-        return flashSaleRepository.findAll().stream()
-                .filter(this::isActive)
-                .anyMatch(sale -> sale.getProducts().stream()
-                        .anyMatch(p -> p.getId().equals(productId)));
+        return activeIndex.isProductOnSale(productId);
     }
     
     @NonNull
     public Optional<FlashSaleResponseDTO> getFlashSaleForProduct(@NonNull Long productId) {
-        return flashSaleRepository.findAll().stream()
-                .filter(this::isActive)
-                .filter(sale -> sale.getProducts().stream()
-                        .anyMatch(p -> p.getId().equals(productId)))
-                .findFirst()
-                .map(this::toDTO);
+        return activeIndex.activeSaleForProduct(productId);
     }
     
     /**
      * Check if there are any active flash sales.
      */
     public boolean hasActiveFlashSale() {
-        return flashSaleRepository.findAll().stream()
-                .anyMatch(this::isActive);
+        return activeIndex.hasActiveSale();
     }
     
     /**
@@ -212,34 +265,5 @@ public class FlashSaleService {
         LocalDateTime now = LocalDateTime.now();
         return event.getStartDate().isBefore(now) && event.getEndDate().isAfter(now);
     }
-    
-    // -------------------
-    // DTO Conversion
-    // -------------------
-    
-    private FlashSaleResponseDTO toDTO(FlashSaleEvent event) {
-        List<ProductBasicDTO> productDTOs = event.getProducts().stream()
-                .map(this::toProductDTO)
-                .collect(Collectors.toList());
-        
-        return new FlashSaleResponseDTO(
-                event.getId(),
-                event.getName(),
-                event.getStartDate(),
-                event.getEndDate(),
-                productDTOs
-        );
-    }
-    
-    private ProductBasicDTO toProductDTO(Product product) {
-        return new ProductBasicDTO(
-                product.getId(),
-                product.getName(),
-                product.getDescription(),
-                product.getPrice(),
-                product.getDiscount(),
-                product.getImageLink()
-        );
-    }
 }
 
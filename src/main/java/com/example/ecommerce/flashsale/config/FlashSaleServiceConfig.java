@@ -3,11 +3,15 @@ package com.example.ecommerce.flashsale.config;
 import com.example.ecommerce.flashsale.infrastructure.persistence.flashsale.IFlashSaleRepository;
 import com.example.ecommerce.flashsale.app.FlashSaleService;
 import com.example.ecommerce.order.app.OrderService;    
+import com.example.ecommerce.order.infrastructure.queue.OrderIntakeQueue;
 import com.example.ecommerce.product.app.ProductService;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class FlashSaleServiceConfig {
     
@@ -16,8 +20,11 @@ public class FlashSaleServiceConfig {
     public FlashSaleService dbFlashSaleService(
             @Qualifier("dbFlashSaleRepository") IFlashSaleRepository flashSaleRepository,
             @Qualifier("dbProductService") ProductService productService,
-            @Qualifier("dbOrderService") OrderService orderService) {
-        return new FlashSaleService(flashSaleRepository, productService, orderService);
+            @Qualifier("dbOrderService") OrderService orderService,
+            OrderIntakeQueue orderIntakeQueue,
+            @Value("${flashsale.index.resync-ms:30000}") long resyncMs) {
+        return new FlashSaleService(
+                flashSaleRepository, productService, orderService, orderIntakeQueue, Duration.ofMillis(resyncMs));
     }
     
     @Bean
@@ -25,8 +32,11 @@ public class FlashSaleServiceConfig {
     public FlashSaleService cachedFlashSaleService(
             @Qualifier("cachedFlashSaleRepository") IFlashSaleRepository flashSaleRepository,
             @Qualifier("cachedProductService") ProductService productService,
-            @Qualifier("cachedOrderService") OrderService orderService) {
-        return new FlashSaleService(flashSaleRepository, productService, orderService);
+            @Qualifier("cachedOrderService") OrderService orderService,
+            OrderIntakeQueue orderIntakeQueue,
+            @Value("${flashsale.index.resync-ms:30000}") long resyncMs) {
+        return new FlashSaleService(
+                flashSaleRepository, productService, orderService, orderIntakeQueue, Duration.ofMillis(resyncMs));
     }
 
 }
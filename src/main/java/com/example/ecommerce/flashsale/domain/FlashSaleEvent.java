@@ -1,5 +1,6 @@
 package com.example.ecommerce.flashsale.domain;
 
+import com.example.ecommerce.common.config.IdSequences;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -19,7 +20,8 @@ import com.example.ecommerce.product.domain.Product;
 public class FlashSaleEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "flash_sale_event_seq")
+    @SequenceGenerator(name = "flash_sale_event_seq", sequenceName = "flash_sale_event_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     private String name;
@@ -6,13 +6,16 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import com.example.ecommerce.common.cache.NegativeCache;
+import com.example.ecommerce.common.cache.SingleFlight;
+import com.example.ecommerce.flashsale.api.dto.FlashSaleResponseDTO;
 import com.example.ecommerce.flashsale.domain.FlashSaleEvent;
+import com.example.ecommerce.flashsale.infrastructure.persistence.flashsale.FlashSaleDTOMapper;
 import com.example.ecommerce.flashsale.infrastructure.persistence.flashsale.IFlashSaleRepository;
 import com.example.ecommerce.flashsale.infrastructure.persistence.flashsale.FlashSaleTable;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,14 +27,20 @@ public class CachedFlashSaleRepository implements IFlashSaleRepository {
     
     private final FlashSaleTable flashSaleTable;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SingleFlight singleFlight;
+    private final NegativeCache negativeCache;
     
     private static final String CACHE_KEY_PREFIX = "flashsale:";
+    private static final String MISS_DOMAIN = "flashsale";
     private static final String ALL_FLASH_SALES_KEY = "flashsales:all";
+    private static final Duration MAX_ALL_FLASH_SALES_TTL = Duration.ofMinutes(10);
+    private static final Duration MIN_ALL_FLASH_SALES_TTL = Duration.ofSeconds(1);
     
     @Override
     @NonNull
     public FlashSaleEvent create(@NonNull FlashSaleEvent flashSale) {
         FlashSaleEvent saved = flashSaleTable.save(flashSale);
+        negativeCache.clear(MISS_DOMAIN, saved.getId());
         cacheFlashSale(saved);
         invalidateAllFlashSalesCache();
         return saved;
@@ -39,27 +48,58 @@ public class CachedFlashSaleRepository implements IFlashSaleRepository {
     
     @Override
     @NonNull
-    @SuppressWarnings("unchecked")
     public List<FlashSaleEvent> findAll() {
-        List<FlashSaleEvent> cached = (List<FlashSaleEvent>) redisTemplate.opsForValue().get(ALL_FLASH_SALES_KEY);
-        return cached != null ? cached : new ArrayList<>();
+        return flashSaleTable.findAllWithProducts();
+    }
+    
+    /**
+     * Read-through for the all-sales view:
+     * 1. Check cache first
+     * 2. On a miss, load once: concurrent misses wait for the same load
+     * 3. Cache the DTO list until the next sale starts or ends
+     */
+    @Override
+    @NonNull
+    public List<FlashSaleResponseDTO> findAllDTO() {
+        // Step 1: Check cache
+        List<FlashSaleResponseDTO> cached = getCachedAllFlashSales();
+        if (cached != null) {
+            return cached;
+        }
+        
+        // Step 2: Load from the database, re-checking the cache first
+        return singleFlight.load(ALL_FLASH_SALES_KEY, this::getCachedAllFlashSales, () -> {
+            List<FlashSaleResponseDTO> dtos = flashSaleTable.findAllWithProducts().stream()
+                    .map(FlashSaleDTOMapper::toDTO)
+                    .toList();
+            
+            // Step 3: Populate cache (read-through)
+            redisTemplate.opsForValue().set(ALL_FLASH_SALES_KEY, dtos, ttlUntilNextBoundary(dtos));
+            return dtos;
+        });
     }
     
     @Override
     @NonNull
     public Optional<FlashSaleEvent> findById(@NonNull Long id) {
         String cacheKey = CACHE_KEY_PREFIX + id;
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        Optional<FlashSaleEvent> cached = getCachedFlashSale(cacheKey);
         
         if (cached != null) {
-            return Optional.of((FlashSaleEvent) cached);
+            return cached;
         }
         
-        Optional<FlashSaleEvent> flashSaleOpt = flashSaleTable.findById(id);
-        
-        flashSaleOpt.ifPresent(this::cacheFlashSale);
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
+        }
         
-        return flashSaleOpt;
+        return singleFlight.loadOptional(cacheKey, () -> getCachedFlashSale(cacheKey), MISS_DOMAIN, id, () -> {
+            Optional<FlashSaleEvent> flashSaleOpt = flashSaleTable.findById(id);
+            
+            flashSaleOpt.ifPresentOrElse(this::cacheFlashSale, () -> negativeCache.markMissing(MISS_DOMAIN, id));
+            
+            return flashSaleOpt;
+        });
     }
     
     @Override
@@ -96,6 +136,40 @@ public class CachedFlashSaleRepository implements IFlashSaleRepository {
         return Duration.between(LocalDateTime.now(), flashSale.getEndDate());
     }
     
+    /**
+     * The cached sale, or null on a cache miss.
+     */
+    private Optional<FlashSaleEvent> getCachedFlashSale(String cacheKey) {
+        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        return cached != null ? Optional.of((FlashSaleEvent) cached) : null;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<FlashSaleResponseDTO> getCachedAllFlashSales() {
+        return (List<FlashSaleResponseDTO>) redisTemplate.opsForValue().get(ALL_FLASH_SALES_KEY);
+    }
+    
+    /**
+     * Time until the next sale starts or ends, so the cached view never outlives a boundary.
+     */
+    private Duration ttlUntilNextBoundary(List<FlashSaleResponseDTO> sales) {
+        LocalDateTime now = LocalDateTime.now();
+        Duration ttl = MAX_ALL_FLASH_SALES_TTL;
+        
+        for (FlashSaleResponseDTO sale : sales) {
+            for (LocalDateTime boundary : new LocalDateTime[]{sale.getStartDate(), sale.getEndDate()}) {
+                if (boundary != null && boundary.isAfter(now)) {
+                    Duration untilBoundary = Duration.between(now, boundary);
+                    if (untilBoundary.compareTo(ttl) < 0) {
+                        ttl = untilBoundary;
+                    }
+                }
+            }
+        }
+        
+        return ttl.compareTo(MIN_ALL_FLASH_SALES_TTL) < 0 ? MIN_ALL_FLASH_SALES_TTL : ttl;
+    }
+    
     private void evictFromCache(Long id) {
         String cacheKey = CACHE_KEY_PREFIX + id;
         redisTemplate.delete(cacheKey);
@@ -105,4 +179,3 @@ public class CachedFlashSaleRepository implements IFlashSaleRepository {
         redisTemplate.delete(ALL_FLASH_SALES_KEY);
     }
 }
-
@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import com.example.ecommerce.flashsale.api.dto.FlashSaleResponseDTO;
 import com.example.ecommerce.flashsale.domain.FlashSaleEvent;
 
 import java.util.List;
@@ -27,7 +28,15 @@ public class DatabaseFlashSaleRepository implements IFlashSaleRepository {
     @Override
     @NonNull
     public List<FlashSaleEvent> findAll() {
-        return flashSaleTable.findAll();
+        return flashSaleTable.findAllWithProducts();
+    }
+    
+    @Override
+    @NonNull
+    public List<FlashSaleResponseDTO> findAllDTO() {
+        return flashSaleTable.findAllWithProducts().stream()
+                .map(FlashSaleDTOMapper::toDTO)
+                .toList();
     }
     
     @Override
@@ -47,4 +56,3 @@ public class DatabaseFlashSaleRepository implements IFlashSaleRepository {
         flashSaleTable.deleteById(id);
     }
 }
-
@@ -0,0 +1,45 @@
+package com.example.ecommerce.flashsale.infrastructure.persistence.flashsale;
+
+import com.example.ecommerce.flashsale.api.dto.FlashSaleResponseDTO;
+import com.example.ecommerce.flashsale.api.dto.ProductBasicDTO;
+import com.example.ecommerce.flashsale.domain.FlashSaleEvent;
+import com.example.ecommerce.product.domain.Product;
+
+import java.util.List;
+
+/**
+ * Builds FlashSaleResponseDTOs from flash sale entities; shared by the repositories and the service.
+ */
+public final class FlashSaleDTOMapper {
+
+    private FlashSaleDTOMapper() {
+    }
+
+    /**
+     * The sale with the basic fields of its products. The products must be loaded.
+     */
+    public static FlashSaleResponseDTO toDTO(FlashSaleEvent event) {
+        List<ProductBasicDTO> products = event.getProducts().stream()
+                .map(FlashSaleDTOMapper::toProductDTO)
+                .toList();
+
+        return new FlashSaleResponseDTO(
+                event.getId(),
+                event.getName(),
+                event.getStartDate(),
+                event.getEndDate(),
+                products
+        );
+    }
+
+    private static ProductBasicDTO toProductDTO(Product product) {
+        return new ProductBasicDTO(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getDiscount(),
+                product.getImageLink()
+        );
+    }
+}
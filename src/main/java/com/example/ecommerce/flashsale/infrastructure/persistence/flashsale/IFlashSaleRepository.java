@@ -2,6 +2,7 @@ package com.example.ecommerce.flashsale.infrastructure.persistence.flashsale;
 
 import org.springframework.lang.NonNull;
 
+import com.example.ecommerce.flashsale.api.dto.FlashSaleResponseDTO;
 import com.example.ecommerce.flashsale.domain.FlashSaleEvent;
 
 import java.util.List;
@@ -17,6 +18,12 @@ public interface IFlashSaleRepository {
     @NonNull
     List<FlashSaleEvent> findAll();
     
+    /**
+     * All flash sales with their products, as response DTOs.
+     */
+    @NonNull
+    List<FlashSaleResponseDTO> findAllDTO();
+    
     @NonNull
     Optional<FlashSaleEvent> findById(@NonNull Long id);
 
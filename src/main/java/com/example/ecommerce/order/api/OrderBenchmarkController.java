@@ -1,33 +1,53 @@
 package com.example.ecommerce.order.api;
 
 import com.example.ecommerce.order.api.dto.OrderDTO;
+import com.example.ecommerce.order.api.dto.OrderPageDTO;
 import com.example.ecommerce.order.app.OrderService;
 import com.example.ecommerce.order.domain.Order;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/benchmark")
 public class OrderBenchmarkController {
     
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int EXPORT_FLUSH_EVERY = 500;
+    
     private final OrderService dbOrderService;
     private final OrderService cachedOrderService;
+    private final ObjectWriter orderWriter;
     
     public OrderBenchmarkController(
             @Qualifier("dbOrderService") OrderService dbOrderService,
-            @Qualifier("cachedOrderService") OrderService cachedOrderService) {
+            @Qualifier("cachedOrderService") OrderService cachedOrderService,
+            ObjectMapper objectMapper) {
         this.dbOrderService = dbOrderService;
         this.cachedOrderService = cachedOrderService;
+        this.orderWriter = objectMapper.writerFor(OrderDTO.class);
     }
     
     @GetMapping("/db/orders")
-    public ResponseEntity<List<OrderDTO>> dbGetAllOrders() {
-        List<OrderDTO> orders = dbOrderService.getAllOrdersDTO();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<OrderPageDTO> dbGetOrders(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(dbOrderService.getOrdersPageDTO(after, size));
+    }
+    
+    @GetMapping("/db/orders/export")
+    public ResponseEntity<StreamingResponseBody> dbExportOrders() {
+        return export(dbOrderService);
     }
     
     @GetMapping("/db/orders/{id}")
@@ -37,20 +57,30 @@ public class OrderBenchmarkController {
     }
     
     @GetMapping("/db/orders/user/{userId}")
-    public ResponseEntity<List<OrderDTO>> dbGetOrdersByUser(@PathVariable Long userId) {
-        List<OrderDTO> orders = dbOrderService.getOrdersByUserDTO(userId);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<OrderPageDTO> dbGetOrdersByUser(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "0") long before,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(dbOrderService.getOrdersByUserDTO(userId, before, size));
     }
     
     @GetMapping("/db/orders/raw")
-    public List<Order> dbFindAllRaw() {
-        return dbOrderService.findAll();
+    public List<Order> dbFindPageRaw(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "50") int size) {
+        return dbOrderService.findPage(after, size);
     }
         
     @GetMapping("/cached/orders")
-    public ResponseEntity<List<OrderDTO>> cachedGetAllOrders() {
-        List<OrderDTO> orders = cachedOrderService.getAllOrdersDTO();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<OrderPageDTO> cachedGetOrders(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(cachedOrderService.getOrdersPageDTO(after, size));
+    }
+    
+    @GetMapping("/cached/orders/export")
+    public ResponseEntity<StreamingResponseBody> cachedExportOrders() {
+        return export(cachedOrderService);
     }
     
     @GetMapping("/cached/orders/{id}")
@@ -60,14 +90,56 @@ public class OrderBenchmarkController {
     }
     
     @GetMapping("/cached/orders/user/{userId}")
-    public ResponseEntity<List<OrderDTO>> cachedGetOrdersByUser(@PathVariable Long userId) {
-        List<OrderDTO> orders = cachedOrderService.getOrdersByUserDTO(userId);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<OrderPageDTO> cachedGetOrdersByUser(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "0") long before,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(cachedOrderService.getOrdersByUserDTO(userId, before, size));
     }
     
     @GetMapping("/cached/orders/raw")
-    public List<Order> cachedFindAllRaw() {
-        return cachedOrderService.findAll();
+    public List<Order> cachedFindPageRaw(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "50") int size) {
+        return cachedOrderService.findPage(after, size);
+    }
+    
+    /**
+     * Every order as newline-delimited JSON, written while the rows are read.
+     */
+    private ResponseEntity<StreamingResponseBody> export(OrderService orderService) {
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            try {
+                orderService.exportOrdersDTO(order -> {
+                    writeLine(out, order);
+                    if (++written[0] % EXPORT_FLUSH_EVERY == 0) {
+                        flush(out);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+    
+    private void writeLine(OutputStream out, OrderDTO order) {
+        try {
+            out.write(orderWriter.writeValueAsBytes(order));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
 
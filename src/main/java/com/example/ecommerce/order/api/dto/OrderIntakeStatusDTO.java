@@ -0,0 +1,20 @@
+package com.example.ecommerce.order.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderIntakeStatusDTO {
+
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private String token;
+    private String status;
+    private Long orderId;   // set once the order is persisted
+    private String message; // failure reason, if any
+}
@@ -0,0 +1,15 @@
+package com.example.ecommerce.order.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPageDTO {
+    private List<OrderDTO> items;
+    private Long nextCursor; // pass back as the page's cursor ("after", or "before" for a user's orders), null on the last page
+}
@@ -1,23 +1,30 @@
 package com.example.ecommerce.order.app;
 
 import com.example.ecommerce.order.api.dto.OrderDTO;
+import com.example.ecommerce.order.api.dto.OrderPageDTO;
 import com.example.ecommerce.order.domain.Order;
 import com.example.ecommerce.order.domain.OrderItem;
-import com.example.ecommerce.product.domain.Product;
 import com.example.ecommerce.user.domain.User;
 
 import org.springframework.lang.NonNull;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface IOrderService {
     
     @NonNull
     Order create(@NonNull Order order);
     
+    /**
+     * One page of orders in ID order, with items and products.
+     * 
+     * @param after cursor from the previous page, 0 for the first page
+     * @param size page size, 1 to {@value OrderService#MAX_PAGE_SIZE}
+     */
     @NonNull
-    List<Order> findAll();
+    List<Order> findPage(long after, int size);
     
     @NonNull
     Optional<Order> findById(@NonNull Long id);
@@ -29,12 +36,23 @@ public interface IOrderService {
     Order createOrderForUser(@NonNull User user, @NonNull List<OrderItem> items);
     
     @NonNull
-    List<OrderDTO> getAllOrdersDTO();
+    OrderPageDTO getOrdersPageDTO(long after, int size);
+    
+    /**
+     * Pass every order to the sink as it is read, in ID order.
+     */
+    void exportOrdersDTO(@NonNull Consumer<OrderDTO> sink);
     
     @NonNull
     OrderDTO getOrderByIdDTO(@NonNull Long id);
     
+    /**
+     * One page of a user's orders, newest first.
+     * 
+     * @param before cursor from the previous page, 0 for the newest orders
+     * @param size page size, 1 to {@value OrderService#MAX_PAGE_SIZE}
+     */
     @NonNull
-    List<OrderDTO> getOrdersByUserDTO(@NonNull Long userId);
+    OrderPageDTO getOrdersByUserDTO(@NonNull Long userId, long before, int size);
 }
 
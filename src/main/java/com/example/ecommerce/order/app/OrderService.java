@@ -1,12 +1,10 @@
 package com.example.ecommerce.order.app;
 
 import com.example.ecommerce.order.api.dto.OrderDTO;
-import com.example.ecommerce.order.api.dto.OrderItemDTO;
+import com.example.ecommerce.order.api.dto.OrderPageDTO;
 import com.example.ecommerce.order.domain.Order;
 import com.example.ecommerce.order.domain.OrderItem;
 import com.example.ecommerce.order.infrastructure.persistence.order.IOrderRepository;
-import com.example.ecommerce.product.api.dto.ProductDTO;
-import com.example.ecommerce.user.api.dto.UserDTO;
 import com.example.ecommerce.user.domain.User;
 
 import org.springframework.http.HttpStatus;
@@ -16,9 +14,12 @@ import org.springframework.web.server.ResponseStatusException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class OrderService implements IOrderService {
     
+    public static final int MAX_PAGE_SIZE = 200;
+    
     private final IOrderRepository orderRepository;
     
     public OrderService(IOrderRepository orderRepository) {
@@ -33,8 +34,9 @@ public class OrderService implements IOrderService {
     
     @Override
     @NonNull
-    public List<Order> findAll() {
-        return orderRepository.findAll();
+    public List<Order> findPage(long after, int size) {
+        validatePageSize(size);
+        return orderRepository.findPage(after, size);
     }
     
     @Override
@@ -69,18 +71,22 @@ public class OrderService implements IOrderService {
 
     @Override
     @NonNull
-    public List<OrderDTO> getAllOrdersDTO() {
-        return orderRepository.findAll()
-                .stream()
-                .map(this::mapToDTO)
-                .toList();
+    public OrderPageDTO getOrdersPageDTO(long after, int size) {
+        validatePageSize(size);
+        List<OrderDTO> items = orderRepository.findPageDTO(after, size);
+        Long nextCursor = items.size() == size ? items.get(items.size() - 1).getId() : null;
+        return new OrderPageDTO(items, nextCursor);
+    }
+    
+    @Override
+    public void exportOrdersDTO(@NonNull Consumer<OrderDTO> sink) {
+        orderRepository.forEachDTO(sink);
     }
     
     @Override
     @NonNull
     public OrderDTO getOrderByIdDTO(@NonNull Long id) {
-        return orderRepository.findById(id)
-                .map(this::mapToDTO)
+        return orderRepository.findByIdDTO(id)
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "Order not found with id: " + id
                 ));
@@ -88,38 +94,17 @@ public class OrderService implements IOrderService {
     
     @Override
     @NonNull
-    public List<OrderDTO> getOrdersByUserDTO(@NonNull Long userId) {
-        return orderRepository.findByUserId(userId)
-                .stream()
-                .map(this::mapToDTO)
-                .toList();
+    public OrderPageDTO getOrdersByUserDTO(@NonNull Long userId, long before, int size) {
+        validatePageSize(size);
+        List<OrderDTO> items = orderRepository.findByUserIdDTO(userId, before > 0 ? before : Long.MAX_VALUE, size);
+        Long nextCursor = items.size() == size ? items.get(items.size() - 1).getId() : null;
+        return new OrderPageDTO(items, nextCursor);
     }
     
-    private OrderDTO mapToDTO(Order order) {
-        UserDTO userDTO = new UserDTO(
-                order.getUser().getId(),
-                order.getUser().getUsername(),
-                order.getUser().getEmail()
-        );
-
-        List<OrderItemDTO> items = order.getItems().stream()
-                .map(item -> new OrderItemDTO(
-                        item.getId(),
-                        item.getQuantity(),
-                        new ProductDTO(
-                                item.getProduct().getId(),
-                                item.getProduct().getName(),
-                                item.getProduct().getDescription(),
-                                item.getProduct().getPrice(),
-                                item.getProduct().getDiscount(),
-                                item.getProduct().getImageLink()
-                        ),
-                        item.getUnitPrice(),
-                        item.getOrderItemPrice()
-                ))
-                .toList();
-
-        return new OrderDTO(order.getId(), order.getOrderDate(), userDTO, items, order.getCouponApplied(), order.getTotalCost());
+    private void validatePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
     }
 }
-
@@ -1,5 +1,6 @@
 package com.example.ecommerce.order.domain;
 
+import com.example.ecommerce.common.config.IdSequences;
 import com.example.ecommerce.user.domain.User;
 import com.example.ecommerce.order.domain.OrderItem;
 import jakarta.persistence.*;
@@ -11,13 +12,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_user_id_id", columnList = "user_id, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     private LocalDateTime orderDate;
@@ -33,4 +35,9 @@ public class Order {
     private String couponApplied;
 
     private Double totalCost;
+
+    // Token of the async intake message this order was written from; unique, so a redelivered
+    // message cannot insert the order twice. Null for orders placed synchronously.
+    @Column(name = "intake_token", unique = true, updatable = false, length = 36)
+    private String intakeToken;
 }
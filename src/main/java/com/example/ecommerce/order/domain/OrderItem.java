@@ -1,5 +1,6 @@
 package com.example.ecommerce.order.domain;
 
+import com.example.ecommerce.common.config.IdSequences;
 import com.example.ecommerce.product.domain.Product;
 
 import jakarta.persistence.*;
@@ -13,7 +14,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
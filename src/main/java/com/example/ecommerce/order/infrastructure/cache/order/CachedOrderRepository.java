@@ -2,22 +2,55 @@ package com.example.ecommerce.order.infrastructure.cache.order;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import com.example.ecommerce.common.cache.NegativeCache;
+import com.example.ecommerce.common.cache.SingleFlight;
+import com.example.ecommerce.order.api.dto.OrderDTO;
+import com.example.ecommerce.order.api.dto.OrderItemDTO;
 import com.example.ecommerce.order.domain.Order;
 import com.example.ecommerce.order.infrastructure.persistence.order.IOrderRepository;
+import com.example.ecommerce.order.infrastructure.persistence.order.JdbcOrderExporter;
+import com.example.ecommerce.order.infrastructure.persistence.order.OrderDTOMapper;
 import com.example.ecommerce.order.infrastructure.persistence.order.OrderTable;
+import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.product.infrastructure.cache.product.ProductNearCache;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductDTOMapper;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductTable;
+import com.example.ecommerce.user.api.dto.UserDTO;
+import com.example.ecommerce.user.domain.User;
+import com.example.ecommerce.user.infrastructure.persistence.user.UserDTOMapper;
+import com.example.ecommerce.user.infrastructure.persistence.user.UserTable;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Write-Around implementation for Orders.
  * 
  * Create/Update: Writes to DB only, skips cache (write-around)
- * Read: Lazy loads into cache on first access (cache-aside)
+ * Read: orders are lazy loaded into cache on first access (cache-aside),
+ * from the single-query order read projections
+ * 
+ * The newest orders of each user are kept in {@link OrderHistoryCache}. Creating an order
+ * pushes it onto that window instead of invalidating it; update and delete drop it.
+ * 
+ * The cache holds {@link OrderReadModel}s, not OrderDTOs: user and product details are read
+ * back from user:{id} and product:{id} with one multi-get each, so they are stored once
+ * rather than in every order, and an order always shows the current product and user.
  */
 @Repository
 @Qualifier("cachedOrderRepository")
@@ -26,77 +59,168 @@ public class CachedOrderRepository implements IOrderRepository {
     
     private final OrderTable orderTable;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SingleFlight singleFlight;
+    private final NegativeCache negativeCache;
+    private final JdbcOrderExporter orderExporter;
+    private final UserTable userTable;
+    private final ProductTable productTable;
+    private final ProductNearCache productNearCache;
+    private final OrderHistoryCache historyCache;
+    
+    private static final String VERSION_PREFIX = "v" + OrderReadModel.VERSION + ":";
+    private static final String CACHE_KEY_PREFIX = "order:" + VERSION_PREFIX;
+    private static final String PAGE_KEY_PREFIX = "orders:" + VERSION_PREFIX + "page:";
+    private static final String PAGE_KEYS_SET = "orders:pages";
+    private static final Duration PAGE_TTL = Duration.ofMinutes(1);
+    private static final String HISTORY_LOAD_KEY_PREFIX = "orders:" + VERSION_PREFIX + "history:";
     
-    private static final String CACHE_KEY_PREFIX = "order:";
-    private static final String ALL_ORDERS_KEY = "orders:all";
-    private static final String USER_ORDERS_PREFIX = "orders:user:";
+    // Keys of the previous release; instances still running it read and fill them
+    private static final String LEGACY_CACHE_KEY_PREFIX = "order:";
+    private static final String LEGACY_USER_ORDERS_PREFIX = "orders:user:";
+    
+    private static final String MISS_DOMAIN = "order";
+    
+    private static final String USER_KEY_PREFIX = "user:";
+    private static final String PRODUCT_KEY_PREFIX = "product:";
     
     @Override
     @NonNull
     public Order create(@NonNull Order order) {
         Order saved = orderTable.save(order);
+        negativeCache.clear(MISS_DOMAIN, saved.getId());
         
-        invalidateAllOrdersCache();
+        // Cached pages are left alone: a new order usually lands after them, but its pooled
+        // sequence block can give it an ID inside one, which then misses it until PAGE_TTL
         if (saved.getUser() != null) {
-            invalidateUserOrdersCache(saved.getUser().getId());
+            Long userId = saved.getUser().getId();
+            redisTemplate.delete(legacyUserOrdersKey(userId));
+            // Read back through the projection (the saved entity's product may be a bare
+            // reference), but only when there is a cached window to add it to
+            if (historyCache.startAppend(userId)) {
+                historyCache.append(userId, toReadModels(OrderDTOMapper.fromRows(orderTable.findLinesByOrderId(saved.getId()))));
+            }
         }
         
         return saved;
     }
     
+    // Entity reads are not cached: the endpoints serve OrderDTOs, cached by the DTO reads below
+    
     @Override
     @NonNull
-    @SuppressWarnings("unchecked")
-    public List<Order> findAll() {
-        List<Order> cached = (List<Order>) redisTemplate.opsForValue().get(ALL_ORDERS_KEY);
+    public List<Order> findPage(long afterId, int size) {
+        List<Long> ids = orderTable.findIdsAfter(afterId, PageRequest.of(0, size));
+        return ids.isEmpty() ? List.of() : orderTable.findAllWithItemsByIdIn(ids);
+    }
+    
+    @Override
+    @NonNull
+    public Optional<Order> findById(@NonNull Long id) {
+        return orderTable.findWithItemsById(id);
+    }
+    
+    @Override
+    @NonNull
+    public List<Order> findByUserId(@NonNull Long userId) {
+        return orderTable.findOrdersWithItemsAndProductsByUserId(userId);
+    }
+    
+    /**
+     * Keyset page of orders, cached per cursor and size under orders:v{n}:page:{afterId}:{size}.
+     * 
+     * Only full pages are cached: the last page grows with every new order. An order created
+     * on another instance can get an ID inside a cached page (pooled sequence blocks), so
+     * pages expire after {@link #PAGE_TTL}. Update and delete drop every cached page.
+     */
+    @Override
+    @NonNull
+    public List<OrderDTO> findPageDTO(long afterId, int size) {
+        String pageKey = PAGE_KEY_PREFIX + afterId + ":" + size;
+        List<OrderDTO> cached = getCachedList(pageKey);
         
         if (cached != null) {
             return cached;
         }
         
-        List<Order> orders = orderTable.findAll();
-        
-        if (!orders.isEmpty()) {
-            redisTemplate.opsForValue().set(ALL_ORDERS_KEY, orders);
-            orders.forEach(this::cacheOrder);
-        }
-        
-        return orders;
+        return singleFlight.load(pageKey, () -> getCachedList(pageKey), () -> {
+            List<Long> ids = orderTable.findIdsAfter(afterId, PageRequest.of(0, size));
+            List<OrderDTO> page = ids.isEmpty() ? List.of() : OrderDTOMapper.fromRows(orderTable.findLinesByOrderIds(ids));
+            
+            if (page.size() == size) {
+                redisTemplate.opsForValue().set(pageKey, toReadModels(page), PAGE_TTL);
+                redisTemplate.opsForSet().add(PAGE_KEYS_SET, pageKey);
+                // Every tracked page expires before the set does
+                redisTemplate.expire(PAGE_KEYS_SET, PAGE_TTL);
+            }
+            
+            return page;
+        });
+    }
+    
+    /**
+     * Exports read straight from the database cursor; caching them would only evict hot keys.
+     */
+    @Override
+    public void forEachDTO(@NonNull Consumer<OrderDTO> sink) {
+        orderExporter.forEachOrder(sink);
     }
     
     @Override
     @NonNull
-    public Optional<Order> findById(@NonNull Long id) {
+    public Optional<OrderDTO> findByIdDTO(@NonNull Long id) {
         String cacheKey = CACHE_KEY_PREFIX + id;
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        Optional<OrderDTO> cached = getCached(cacheKey);
         
         if (cached != null) {
-            return Optional.of((Order) cached);
+            return cached;
         }
         
-        Optional<Order> orderOpt = orderTable.findById(id);
-        orderOpt.ifPresent(this::cacheOrder);
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
+        }
         
-        return orderOpt;
+        return singleFlight.loadOptional(cacheKey, () -> getCached(cacheKey), MISS_DOMAIN, id, () -> {
+            Optional<OrderDTO> orderOpt = OrderDTOMapper.fromRows(orderTable.findLinesByOrderId(id)).stream().findFirst();
+            orderOpt.ifPresentOrElse(
+                    order -> redisTemplate.opsForValue().set(cacheKey, OrderReadModel.from(order)),
+                    () -> negativeCache.markMissing(MISS_DOMAIN, id));
+            
+            return orderOpt;
+        });
     }
     
+    /**
+     * Pages inside the user's history window are served from {@link OrderHistoryCache}.
+     * A page reaching past the window takes what the window has and reads the rest from the
+     * database, unless the window already holds the user's whole history.
+     */
     @Override
     @NonNull
-    @SuppressWarnings("unchecked")
-    public List<Order> findByUserId(@NonNull Long userId) {
-        String cacheKey = USER_ORDERS_PREFIX + userId;
-        List<Order> cached = (List<Order>) redisTemplate.opsForValue().get(cacheKey);
-        
-        if (cached != null) {
-            return cached;
+    public List<OrderDTO> findByUserIdDTO(@NonNull Long userId, long beforeId, int size) {
+        // Step 1: The cached window, loaded on a miss
+        List<OrderReadModel> window = historyCache.window(userId);
+        if (window == null) {
+            String cacheKey = HISTORY_LOAD_KEY_PREFIX + userId;
+            window = singleFlight.load(cacheKey, () -> historyCache.window(userId), () -> loadHistory(userId));
         }
         
-        List<Order> orders = orderTable.findOrdersWithItemsAndProductsByUserId(userId);
-        if (!orders.isEmpty()) {
-            redisTemplate.opsForValue().set(cacheKey, orders);
-        }
+        // Step 2: The part of the page inside the window
+        List<OrderReadModel> cachedPart = window.stream()
+                .filter(order -> order.id() < beforeId)
+                .limit(size)
+                .toList();
+        List<OrderDTO> page = new ArrayList<>(resolve(cachedPart));
         
-        return orders;
+        // Step 3: Older orders from the database
+        boolean wholeHistory = window.size() < historyCache.windowSize();
+        if (page.size() < size && !wholeHistory) {
+            long cursor = cachedPart.isEmpty() ? beforeId : cachedPart.get(cachedPart.size() - 1).id();
+            List<Long> ids = orderTable.findIdsByUserIdBefore(userId, cursor, PageRequest.of(0, size - page.size()));
+            if (!ids.isEmpty()) {
+                page.addAll(OrderDTOMapper.fromRowsNewestFirst(orderTable.findLinesByOrderIds(ids)));
+            }
+        }
+        return page;
     }
     
     @Override
@@ -105,7 +229,7 @@ public class CachedOrderRepository implements IOrderRepository {
         Order updated = orderTable.save(order);
         
         evictFromCache(updated.getId());
-        invalidateAllOrdersCache();
+        invalidateOrderPages();
         if (updated.getUser() != null) {
             invalidateUserOrdersCache(updated.getUser().getId());
         }
@@ -118,7 +242,7 @@ public class CachedOrderRepository implements IOrderRepository {
         Optional<Order> orderOpt = orderTable.findById(id);
         orderTable.deleteById(id);
         evictFromCache(id);
-        invalidateAllOrdersCache();
+        invalidateOrderPages();
         orderOpt.ifPresent(order -> {
             if (order.getUser() != null) {
                 invalidateUserOrdersCache(order.getUser().getId());
@@ -126,22 +250,171 @@ public class CachedOrderRepository implements IOrderRepository {
         });
     }
     
-    private void cacheOrder(Order order) {
-        String cacheKey = CACHE_KEY_PREFIX + order.getId();
-        redisTemplate.opsForValue().set(cacheKey, order);
+    /**
+     * Key of the full per-user order list cached by the previous release, which may still be running.
+     */
+    public static String legacyUserOrdersKey(@NonNull Long userId) {
+        return LEGACY_USER_ORDERS_PREFIX + userId;
+    }
+    
+    /**
+     * Miss path for a history window. Returns an empty list for a user without orders,
+     * which is not cached.
+     */
+    private List<OrderReadModel> loadHistory(Long userId) {
+        long epoch = historyCache.epoch(userId);
+        List<Long> ids = orderTable.findIdsByUserIdBefore(userId, Long.MAX_VALUE, PageRequest.of(0, historyCache.windowSize()));
+        List<OrderReadModel> window = ids.isEmpty()
+                ? List.of()
+                : toReadModels(OrderDTOMapper.fromRowsNewestFirst(orderTable.findLinesByOrderIds(ids)));
+        historyCache.fill(userId, epoch, window);
+        return window;
+    }
+    
+    /**
+     * The cached orders with users and products resolved, or null on a cache miss.
+     */
+    @SuppressWarnings("unchecked")
+    private List<OrderDTO> getCachedList(String cacheKey) {
+        List<OrderReadModel> cached = (List<OrderReadModel>) redisTemplate.opsForValue().get(cacheKey);
+        return cached != null ? resolve(cached) : null;
+    }
+    
+    /**
+     * The cached order, or null on a cache miss.
+     */
+    private Optional<OrderDTO> getCached(String cacheKey) {
+        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        return cached != null ? Optional.of(resolve(List.of((OrderReadModel) cached)).get(0)) : null;
+    }
+    
+    private static List<OrderReadModel> toReadModels(List<OrderDTO> orders) {
+        return orders.stream().map(OrderReadModel::from).toList();
+    }
+    
+    /**
+     * Turn read models back into OrderDTOs, with one multi-get for their users and one for
+     * their products. Entries missing from those caches are read from the database in one
+     * query each and written back. A product deleted since the order was placed keeps the
+     * name it had at order time.
+     */
+    private List<OrderDTO> resolve(List<OrderReadModel> models) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (OrderReadModel model : models) {
+            if (model.userId() != null) {
+                userIds.add(model.userId());
+            }
+            model.items().stream()
+                    .map(OrderReadModel.Item::productId)
+                    .filter(Objects::nonNull)
+                    .forEach(productIds::add);
+        }
+        
+        Map<Long, UserDTO> users = resolveUsers(userIds);
+        Map<Long, ProductDTO> products = resolveProducts(productIds);
+        
+        List<OrderDTO> orders = new ArrayList<>(models.size());
+        for (OrderReadModel model : models) {
+            List<OrderItemDTO> items = new ArrayList<>(model.items().size());
+            for (OrderReadModel.Item item : model.items()) {
+                ProductDTO product = products.get(item.productId());
+                if (product == null) {
+                    product = new ProductDTO(item.productId(), item.productName(), null, null, null, null);
+                }
+                items.add(new OrderItemDTO(item.id(), item.quantity(), product, item.unitPrice(), item.orderItemPrice()));
+            }
+            UserDTO user = model.userId() != null
+                    ? users.getOrDefault(model.userId(), new UserDTO(model.userId(), null, null))
+                    : null;
+            orders.add(new OrderDTO(model.id(), model.orderDate(), user, items, model.couponApplied(), model.totalCost()));
+        }
+        return orders;
+    }
+    
+    private Map<Long, UserDTO> resolveUsers(Collection<Long> ids) {
+        Map<Long, UserDTO> found = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        multiGet(USER_KEY_PREFIX, ids, UserDTO.class, found, missingIds);
+        
+        if (!missingIds.isEmpty()) {
+            Map<String, Object> backfill = new HashMap<>();
+            for (User user : userTable.findAllById(missingIds)) {
+                UserDTO dto = UserDTOMapper.toDTO(user);
+                found.put(user.getId(), dto);
+                backfill.put(USER_KEY_PREFIX + user.getId(), dto);
+            }
+            if (!backfill.isEmpty()) {
+                redisTemplate.opsForValue().multiSet(backfill);
+            }
+        }
+        return found;
+    }
+    
+    private Map<Long, ProductDTO> resolveProducts(Collection<Long> ids) {
+        Map<Long, ProductDTO> found = new HashMap<>();
+        List<Long> remoteIds = new ArrayList<>();
+        for (Long id : ids) {
+            ProductDTO local = productNearCache.get(id);
+            if (local != null) {
+                found.put(id, local);
+            } else {
+                remoteIds.add(id);
+            }
+        }
+        
+        List<Long> missingIds = new ArrayList<>();
+        multiGet(PRODUCT_KEY_PREFIX, remoteIds, ProductDTO.class, found, missingIds);
+        
+        if (!missingIds.isEmpty()) {
+            Map<String, Object> backfill = new HashMap<>();
+            for (Product product : productTable.findAllById(missingIds)) {
+                ProductDTO dto = ProductDTOMapper.toDTO(product);
+                found.put(product.getId(), dto);
+                backfill.put(PRODUCT_KEY_PREFIX + product.getId(), dto);
+            }
+            if (!backfill.isEmpty()) {
+                redisTemplate.opsForValue().multiSet(backfill);
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Read prefix + id for every id; hits go to found, misses to missingIds.
+     */
+    private <T> void multiGet(String prefix, Collection<Long> ids, Class<T> type,
+                              Map<Long, T> found, List<Long> missingIds) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> keyIds = new ArrayList<>(ids);
+        List<Object> cached = redisTemplate.opsForValue().multiGet(keyIds.stream().map(id -> prefix + id).toList());
+        for (int i = 0; i < keyIds.size(); i++) {
+            Object value = cached != null ? cached.get(i) : null;
+            if (type.isInstance(value)) {
+                found.put(keyIds.get(i), type.cast(value));
+            } else {
+                missingIds.add(keyIds.get(i));
+            }
+        }
     }
     
     private void evictFromCache(Long id) {
-        String cacheKey = CACHE_KEY_PREFIX + id;
-        redisTemplate.delete(cacheKey);
+        redisTemplate.delete(List.of(CACHE_KEY_PREFIX + id, LEGACY_CACHE_KEY_PREFIX + id));
     }
     
-    private void invalidateAllOrdersCache() {
-        redisTemplate.delete(ALL_ORDERS_KEY);
+    private void invalidateOrderPages() {
+        Set<Object> pageKeys = redisTemplate.opsForSet().members(PAGE_KEYS_SET);
+        if (pageKeys != null && !pageKeys.isEmpty()) {
+            redisTemplate.delete(pageKeys.stream().map(String::valueOf).toList());
+        }
+        redisTemplate.delete(PAGE_KEYS_SET);
     }
     
     private void invalidateUserOrdersCache(Long userId) {
-        redisTemplate.delete(USER_ORDERS_PREFIX + userId);
+        redisTemplate.delete(legacyUserOrdersKey(userId));
+        historyCache.evict(userId);
     }
 }
 
@@ -0,0 +1,155 @@
+package com.example.ecommerce.order.infrastructure.cache.order;
+
+import com.example.ecommerce.common.config.RedisScriptRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The latest orders of each user, kept in Redis as a capped sorted set of {@link OrderReadModel}s.
+ *
+ * The set for a user (orders:v{n}:recent:{userId}) is scored by order ID and always holds
+ * that user's highest order IDs, up to the window size. New orders are added to an existing
+ * set and the lowest IDs are trimmed off, so a purchase does not invalidate the history.
+ * IDs come from pooled blocks and are not handed out in creation order, so trimming by ID
+ * rather than by arrival keeps the window a contiguous prefix of the user's orders by ID,
+ * which the database continuation of a page relies on. A missing set is loaded from the
+ * database on the next read.
+ *
+ * Each user also has an epoch counter, bumped by every append and eviction. A load stores
+ * its result only if the epoch has not moved since it started; otherwise an order written
+ * during the load would be missing from the window until it expires.
+ */
+@Component
+@Slf4j
+public class OrderHistoryCache {
+
+    private static final String KEY_PREFIX = "orders:v" + OrderReadModel.VERSION + ":recent:";
+    private static final String EPOCH_SUFFIX = ":epoch";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final int windowSize;
+    private final Duration ttl;
+
+    public OrderHistoryCache(
+            RedisTemplate<String, Object> redisTemplate,
+            RedisScriptRegistry scriptRegistry,
+            @Value("${order.history.window-size:50}") int windowSize,
+            @Value("${order.history.ttl-minutes:30}") long ttlMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.windowSize = windowSize;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    public int windowSize() {
+        return windowSize;
+    }
+
+    /**
+     * The cached window, newest (highest ID) first, or null when it is not cached.
+     */
+    @Nullable
+    public List<OrderReadModel> window(@NonNull Long userId) {
+        Set<Object> cached = redisTemplate.opsForZSet().reverseRange(key(userId), 0, -1);
+        if (cached == null || cached.isEmpty()) {
+            return null;
+        }
+        List<OrderReadModel> window = new ArrayList<>(cached.size());
+        for (Object entry : cached) {
+            window.add((OrderReadModel) entry);
+        }
+        return window;
+    }
+
+    /**
+     * Read before loading a window from the database, and pass to {@link #fill}.
+     */
+    public long epoch(@NonNull Long userId) {
+        Object epoch = redisTemplate.opsForValue().get(key(userId) + EPOCH_SUFFIX);
+        return epoch != null ? ((Number) epoch).longValue() : 0;
+    }
+
+    /**
+     * Store a window loaded from the database, unless the user's orders changed since
+     * {@link #epoch} was read.
+     *
+     * @param newestFirst the user's newest orders, at most the window size
+     */
+    public void fill(@NonNull Long userId, long epoch, @NonNull List<OrderReadModel> newestFirst) {
+        if (newestFirst.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(newestFirst.size() * 2 + 2);
+        args.add(epoch);
+        args.add(ttl.toMillis());
+        addScored(args, newestFirst);
+
+        Long stored = scriptRegistry.execute(RedisScriptRegistry.ORDER_HISTORY_FILL, Long.class,
+                List.of(key(userId), key(userId) + EPOCH_SUFFIX), args.toArray());
+        if (stored == null || stored == 0) {
+            log.debug("Order history of user {} changed while loading, not cached", userId);
+        }
+    }
+
+    /**
+     * Call after new orders of a user were written and before reading them back for
+     * {@link #append}. Bumps the epoch first, so a load that missed the orders cannot store
+     * its window after this returns false.
+     *
+     * @return whether a window is cached, i.e. whether there is anything to append to
+     */
+    public boolean startAppend(@NonNull Long userId) {
+        redisTemplate.opsForValue().increment(key(userId) + EPOCH_SUFFIX);
+        redisTemplate.expire(key(userId) + EPOCH_SUFFIX, ttl);
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key(userId)));
+    }
+
+    /**
+     * Add new orders of one user to their window, if it is cached, and trim it back to the
+     * window size by ID.
+     */
+    public void append(@NonNull Long userId, @NonNull List<OrderReadModel> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(orders.size() * 2 + 2);
+        args.add((long) windowSize);
+        args.add(ttl.toMillis());
+        addScored(args, orders);
+
+        scriptRegistry.execute(RedisScriptRegistry.ORDER_HISTORY_APPEND, Long.class,
+                List.of(key(userId), key(userId) + EPOCH_SUFFIX), args.toArray());
+    }
+
+    /**
+     * Drop the window after an order changed or was deleted.
+     */
+    public void evict(@NonNull Long userId) {
+        // Epoch first: a load that read the old epoch must not store the old window again
+        redisTemplate.opsForValue().increment(key(userId) + EPOCH_SUFFIX);
+        redisTemplate.expire(key(userId) + EPOCH_SUFFIX, ttl);
+        redisTemplate.delete(key(userId));
+    }
+
+    // Script arguments: the order ID (the score), then the order
+    private static void addScored(List<Object> args, List<OrderReadModel> orders) {
+        for (OrderReadModel order : orders) {
+            args.add(order.id());
+            args.add(order);
+        }
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
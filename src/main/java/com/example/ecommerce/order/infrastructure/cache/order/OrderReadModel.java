@@ -0,0 +1,60 @@
+package com.example.ecommerce.order.infrastructure.cache.order;
+
+import com.example.ecommerce.order.api.dto.OrderDTO;
+import com.example.ecommerce.order.api.dto.OrderItemDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cached form of an order: IDs, quantities and prices, plus the product name at order time.
+ * User and product details are not copied in; they are resolved from the user and product
+ * caches when the order is read.
+ *
+ * VERSION is part of every order cache key. A release that changes this shape bumps it and
+ * reads and writes new keys, so instances on either release never read each other's entries.
+ */
+public record OrderReadModel(
+        Long id,
+        LocalDateTime orderDate,
+        Long userId,
+        String couponApplied,
+        Double totalCost,
+        List<Item> items) {
+
+    public static final int VERSION = 1;
+
+    public record Item(
+            Long id,
+            Long productId,
+            String productName,
+            Integer quantity,
+            Double unitPrice,
+            Double orderItemPrice) {
+    }
+
+    public static OrderReadModel from(OrderDTO order) {
+        List<Item> items = order.getItems() == null ? List.of() : order.getItems().stream()
+                .map(OrderReadModel::item)
+                .toList();
+        return new OrderReadModel(
+                order.getId(),
+                order.getOrderDate(),
+                order.getUser() != null ? order.getUser().getId() : null,
+                order.getCouponApplied(),
+                order.getTotalCost(),
+                items
+        );
+    }
+
+    private static Item item(OrderItemDTO item) {
+        return new Item(
+                item.getId(),
+                item.getProduct() != null ? item.getProduct().getId() : null,
+                item.getProduct() != null ? item.getProduct().getName() : null,
+                item.getQuantity(),
+                item.getUnitPrice(),
+                item.getOrderItemPrice()
+        );
+    }
+}
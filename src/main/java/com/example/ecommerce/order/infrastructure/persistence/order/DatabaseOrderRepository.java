@@ -1,15 +1,18 @@
 package com.example.ecommerce.order.infrastructure.persistence.order;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import com.example.ecommerce.order.api.dto.OrderDTO;
 import com.example.ecommerce.order.domain.Order;
 
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 @Qualifier("dbOrderRepository")
@@ -17,6 +20,7 @@ import java.util.Optional;
 public class DatabaseOrderRepository implements IOrderRepository {
     
     private final OrderTable orderTable;
+    private final JdbcOrderExporter orderExporter;
     
     @Override
     @NonNull
@@ -26,14 +30,15 @@ public class DatabaseOrderRepository implements IOrderRepository {
     
     @Override
     @NonNull
-    public List<Order> findAll() {
-        return orderTable.findAll();
+    public List<Order> findPage(long afterId, int size) {
+        List<Long> ids = orderTable.findIdsAfter(afterId, PageRequest.of(0, size));
+        return ids.isEmpty() ? List.of() : orderTable.findAllWithItemsByIdIn(ids);
     }
     
     @Override
     @NonNull
     public Optional<Order> findById(@NonNull Long id) {
-        return orderTable.findById(id);
+        return orderTable.findWithItemsById(id);
     }
     
     @Override
@@ -42,6 +47,31 @@ public class DatabaseOrderRepository implements IOrderRepository {
         return orderTable.findOrdersWithItemsAndProductsByUserId(userId);
     }
     
+    @Override
+    @NonNull
+    public List<OrderDTO> findPageDTO(long afterId, int size) {
+        List<Long> ids = orderTable.findIdsAfter(afterId, PageRequest.of(0, size));
+        return ids.isEmpty() ? List.of() : OrderDTOMapper.fromRows(orderTable.findLinesByOrderIds(ids));
+    }
+    
+    @Override
+    public void forEachDTO(@NonNull Consumer<OrderDTO> sink) {
+        orderExporter.forEachOrder(sink);
+    }
+    
+    @Override
+    @NonNull
+    public Optional<OrderDTO> findByIdDTO(@NonNull Long id) {
+        return OrderDTOMapper.fromRows(orderTable.findLinesByOrderId(id)).stream().findFirst();
+    }
+    
+    @Override
+    @NonNull
+    public List<OrderDTO> findByUserIdDTO(@NonNull Long userId, long beforeId, int size) {
+        List<Long> ids = orderTable.findIdsByUserIdBefore(userId, beforeId, PageRequest.of(0, size));
+        return ids.isEmpty() ? List.of() : OrderDTOMapper.fromRowsNewestFirst(orderTable.findLinesByOrderIds(ids));
+    }
+    
     @Override
     @NonNull
     public Order update(@NonNull Order order) {
@@ -2,18 +2,26 @@ package com.example.ecommerce.order.infrastructure.persistence.order;
 
 import org.springframework.lang.NonNull;
 
+import com.example.ecommerce.order.api.dto.OrderDTO;
 import com.example.ecommerce.order.domain.Order;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface IOrderRepository {
     
     @NonNull
     Order create(@NonNull Order order);
     
+    /**
+     * One page of orders in ID order (keyset pagination).
+     * 
+     * @param afterId only orders with a greater ID are returned, 0 for the first page
+     * @param size maximum number of orders
+     */
     @NonNull
-    List<Order> findAll();
+    List<Order> findPage(long afterId, int size);
     
     @NonNull
     Optional<Order> findById(@NonNull Long id);
@@ -21,6 +29,28 @@ public interface IOrderRepository {
     @NonNull
     List<Order> findByUserId(@NonNull Long userId);
     
+    // DTO reads: a fixed number of queries however many orders and items are returned
+    
+    @NonNull
+    List<OrderDTO> findPageDTO(long afterId, int size);
+    
+    /**
+     * Stream every order to the sink in ID order without holding them all in memory.
+     */
+    void forEachDTO(@NonNull Consumer<OrderDTO> sink);
+    
+    @NonNull
+    Optional<OrderDTO> findByIdDTO(@NonNull Long id);
+    
+    /**
+     * One page of a user's order history, newest first (keyset pagination).
+     * 
+     * @param beforeId only orders with a smaller ID are returned, Long.MAX_VALUE for the first page
+     * @param size maximum number of orders
+     */
+    @NonNull
+    List<OrderDTO> findByUserIdDTO(@NonNull Long userId, long beforeId, int size);
+    
     @NonNull
     Order update(@NonNull Order order);
     
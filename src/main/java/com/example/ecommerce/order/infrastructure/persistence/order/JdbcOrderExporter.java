@@ -0,0 +1,111 @@
+package com.example.ecommerce.order.infrastructure.persistence.order;
+
+import com.example.ecommerce.order.api.dto.OrderDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams every order, with user, items and products, from a server-side JDBC cursor.
+ *
+ * Rows are read {@value #FETCH_SIZE} at a time and handed over one order at a time, so memory
+ * stays constant however many orders there are. Postgres only uses a cursor for a fetch size
+ * inside a transaction, hence the read-only transaction around the query.
+ */
+@Component
+@RequiredArgsConstructor
+public class JdbcOrderExporter {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String ORDER_LINES_SQL = """
+        SELECT o.id, o.order_date, o.coupon_applied, o.total_cost,
+               u.id AS user_id, u.username, u.email,
+               i.id AS item_id, i.quantity, i.unit_price, i.order_item_price,
+               p.id AS product_id, p.name, p.description, p.price, p.discount, p.image_link
+        FROM orders o
+        JOIN users u ON u.id = o.user_id
+        LEFT JOIN order_item i ON i.order_id = o.id
+        LEFT JOIN products p ON p.id = i.product_id
+        ORDER BY o.id, i.id
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Pass every order, in ID order, to the sink.
+     */
+    public void forEachOrder(@NonNull Consumer<OrderDTO> sink) {
+        transactionTemplate.executeWithoutResult(status -> {
+            JdbcTemplate cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+            cursorTemplate.setFetchSize(FETCH_SIZE);
+            OrderGrouper grouper = new OrderGrouper(sink);
+            cursorTemplate.query(ORDER_LINES_SQL, grouper);
+            grouper.flush();
+        });
+    }
+
+    /**
+     * Rows arrive sorted by order, so an order is complete when the next one starts.
+     */
+    private static final class OrderGrouper implements RowCallbackHandler {
+
+        private final Consumer<OrderDTO> sink;
+        private final List<OrderLineRow> current = new ArrayList<>();
+
+        OrderGrouper(Consumer<OrderDTO> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(@NonNull ResultSet rs) throws SQLException {
+            OrderLineRow row = toRow(rs);
+            if (!current.isEmpty() && !current.get(0).orderId().equals(row.orderId())) {
+                flush();
+            }
+            current.add(row);
+        }
+
+        void flush() {
+            if (current.isEmpty()) {
+                return;
+            }
+            OrderDTOMapper.fromRows(current).forEach(sink);
+            current.clear();
+        }
+
+        private static OrderLineRow toRow(ResultSet rs) throws SQLException {
+            Timestamp orderDate = rs.getTimestamp("order_date");
+            return new OrderLineRow(
+                    rs.getLong("id"),
+                    orderDate != null ? orderDate.toLocalDateTime() : null,
+                    rs.getString("coupon_applied"),
+                    rs.getObject("total_cost", Double.class),
+                    rs.getLong("user_id"),
+                    rs.getString("username"),
+                    rs.getString("email"),
+                    rs.getObject("item_id", Long.class),
+                    rs.getObject("quantity", Integer.class),
+                    rs.getObject("unit_price", Double.class),
+                    rs.getObject("order_item_price", Double.class),
+                    rs.getObject("product_id", Long.class),
+                    rs.getString("name"),
+                    rs.getString("description"),
+                    rs.getObject("price", Double.class),
+                    rs.getObject("discount", Integer.class),
+                    rs.getString("image_link")
+            );
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.ecommerce.order.infrastructure.persistence.order;
+
+import com.example.ecommerce.order.api.dto.OrderDTO;
+import com.example.ecommerce.order.api.dto.OrderItemDTO;
+import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.user.api.dto.UserDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds OrderDTOs from the flat rows of the order read queries.
+ */
+public final class OrderDTOMapper {
+
+    private OrderDTOMapper() {
+    }
+
+    /**
+     * Group rows into orders, keeping the row order (orders by ID, items by ID).
+     */
+    public static List<OrderDTO> fromRows(List<OrderLineRow> rows) {
+        Map<Long, OrderDTO> orders = new LinkedHashMap<>();
+        for (OrderLineRow row : rows) {
+            OrderDTO order = orders.computeIfAbsent(row.orderId(), id -> new OrderDTO(
+                    id,
+                    row.orderDate(),
+                    new UserDTO(row.userId(), row.username(), row.email()),
+                    new ArrayList<>(),
+                    row.couponApplied(),
+                    row.totalCost()
+            ));
+            if (row.itemId() != null) {
+                order.getItems().add(new OrderItemDTO(
+                        row.itemId(),
+                        row.quantity(),
+                        new ProductDTO(
+                                row.productId(),
+                                row.productName(),
+                                row.productDescription(),
+                                row.productPrice(),
+                                row.productDiscount(),
+                                row.productImageLink()
+                        ),
+                        row.unitPrice(),
+                        row.orderItemPrice()
+                ));
+            }
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    /**
+     * Same as {@link #fromRows}, with the orders in descending ID order.
+     */
+    public static List<OrderDTO> fromRowsNewestFirst(List<OrderLineRow> rows) {
+        List<OrderDTO> orders = fromRows(rows);
+        Collections.reverse(orders);
+        return orders;
+    }
+}
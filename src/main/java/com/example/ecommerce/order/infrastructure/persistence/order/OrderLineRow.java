@@ -0,0 +1,27 @@
+package com.example.ecommerce.order.infrastructure.persistence.order;
+
+import java.time.LocalDateTime;
+
+/**
+ * One order item with its order, user and product columns, read by a single join.
+ * An order without items yields one row with null item and product columns.
+ */
+public record OrderLineRow(
+        Long orderId,
+        LocalDateTime orderDate,
+        String couponApplied,
+        Double totalCost,
+        Long userId,
+        String username,
+        String email,
+        Long itemId,
+        Integer quantity,
+        Double unitPrice,
+        Double orderItemPrice,
+        Long productId,
+        String productName,
+        String productDescription,
+        Double productPrice,
+        Integer productDiscount,
+        String productImageLink) {
+}
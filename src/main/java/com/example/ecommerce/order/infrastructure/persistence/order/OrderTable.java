@@ -1,19 +1,64 @@
 package com.example.ecommerce.order.infrastructure.persistence.order;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.example.ecommerce.order.domain.Order;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderTable extends JpaRepository<Order, Long> {
     
+    String ORDER_LINE_SELECT = "SELECT new com.example.ecommerce.order.infrastructure.persistence.order.OrderLineRow(" +
+            "o.id, o.orderDate, o.couponApplied, o.totalCost, " +
+            "u.id, u.username, u.email, " +
+            "i.id, i.quantity, i.unitPrice, i.orderItemPrice, " +
+            "p.id, p.name, p.description, p.price, p.discount, p.imageLink) " +
+            "FROM Order o " +
+            "JOIN o.user u " +
+            "LEFT JOIN o.items i " +
+            "LEFT JOIN i.product p ";
+    
     @Query("SELECT DISTINCT o FROM Order o " +
+            "JOIN FETCH o.user " +
             "LEFT JOIN FETCH o.items i " +
             "LEFT JOIN FETCH i.product " +
             "WHERE o.user.id = :userId")
     List<Order> findOrdersWithItemsAndProductsByUserId(@Param("userId") Long userId);
+    
+    /**
+     * IDs of the keyset page after the given order ID. Paging on IDs first keeps the
+     * LIMIT on orders, not on the joined item rows.
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.id > :afterId ORDER BY o.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * Orders with user, items and products in one query.
+     */
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @EntityGraph(attributePaths = {"user", "items", "items.product"})
+    Optional<Order> findWithItemsById(Long id);
+    
+    // DTO read queries: one row per item, grouped by OrderDTOMapper
+    
+    @Query(ORDER_LINE_SELECT + "WHERE o.id IN :orderIds ORDER BY o.id, i.id")
+    List<OrderLineRow> findLinesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
+    @Query(ORDER_LINE_SELECT + "WHERE o.id = :orderId ORDER BY i.id")
+    List<OrderLineRow> findLinesByOrderId(@Param("orderId") Long orderId);
+    
+    /**
+     * A user's order IDs below the cursor, newest first; served by idx_orders_user_id_id.
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId AND o.id < :beforeId ORDER BY o.id DESC")
+    List<Long> findIdsByUserIdBefore(@Param("userId") Long userId, @Param("beforeId") Long beforeId, Pageable pageable);
 }
-
@@ -0,0 +1,134 @@
+package com.example.ecommerce.order.infrastructure.queue;
+
+import com.example.ecommerce.common.config.IdSequences;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts queued orders and their items with two JDBC batches in one transaction.
+ *
+ * IDs come from the same sequences Hibernate uses: each nextval() hands out a pooled-lo
+ * block of {@value IdSequences#ALLOCATION_SIZE} ids, so this writer and JPA never collide.
+ *
+ * Writes are idempotent per intake token: a message delivered again after its order was
+ * committed (a crash before XACK, or an entry claimed from a slow consumer) gets the existing
+ * order back instead of a second one. The unique intake_token column settles a race between
+ * two deliveries; the loser's batch fails and is retried message by message, which then finds
+ * the winner's order.
+ */
+@Component
+@RequiredArgsConstructor
+public class JdbcOrderBatchWriter {
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (id, order_date, user_id, coupon_applied, total_cost, intake_token) VALUES (?, ?, ?, NULL, ?, ?)";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO order_item (id, order_id, product_id, quantity, unit_price, order_item_price) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_EXISTING_SQL =
+            "SELECT intake_token, id FROM orders WHERE intake_token = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Persist the given orders, skipping those already written by an earlier delivery.
+     *
+     * @return the order IDs, new or existing, in message order
+     */
+    @NonNull
+    public List<Long> write(@NonNull List<OrderIntakeMessage> messages) {
+        return transactionTemplate.execute(status -> {
+            // Step 1: Orders of these messages that are already committed
+            Map<String, Long> existing = findExisting(messages.stream().map(OrderIntakeMessage::getToken).toList());
+            List<OrderIntakeMessage> fresh = messages.stream()
+                    .filter(message -> !existing.containsKey(message.getToken()))
+                    .toList();
+
+            List<Long> result = new ArrayList<>(messages.size());
+            if (fresh.isEmpty()) {
+                messages.forEach(message -> result.add(existing.get(message.getToken())));
+                return result;
+            }
+
+            // Step 2: Insert the new orders
+            List<Long> orderIds = allocateIds("orders_seq", fresh.size());
+            List<Object[]> orderRows = new ArrayList<>(fresh.size());
+            for (int i = 0; i < fresh.size(); i++) {
+                OrderIntakeMessage message = fresh.get(i);
+                orderRows.add(new Object[]{
+                        orderIds.get(i),
+                        new Timestamp(message.getOrderDateEpochMillis()),
+                        message.getUserId(),
+                        message.getTotalCost(),
+                        message.getToken()
+                });
+            }
+            jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orderRows);
+
+            // Step 3: Insert all items of the new orders in one batch
+            int itemCount = fresh.stream().mapToInt(message -> message.getItems().size()).sum();
+            List<Long> itemIds = allocateIds("order_item_seq", itemCount);
+            List<Object[]> itemRows = new ArrayList<>(itemCount);
+            for (int i = 0; i < fresh.size(); i++) {
+                for (OrderIntakeMessage.Line line : fresh.get(i).getItems()) {
+                    itemRows.add(new Object[]{
+                            itemIds.get(itemRows.size()),
+                            orderIds.get(i),
+                            line.getProductId(),
+                            line.getQuantity(),
+                            line.getUnitPrice(),
+                            line.getOrderItemPrice()
+                    });
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, itemRows);
+
+            Map<String, Long> written = new HashMap<>(existing);
+            for (int i = 0; i < fresh.size(); i++) {
+                written.put(fresh.get(i).getToken(), orderIds.get(i));
+            }
+            messages.forEach(message -> result.add(written.get(message.getToken())));
+            return result;
+        });
+    }
+
+    /**
+     * IDs of the orders already written for the given intake tokens, by token.
+     */
+    @NonNull
+    public Map<String, Long> findExisting(@NonNull List<String> tokens) {
+        Map<String, Long> existing = new HashMap<>();
+        if (tokens.isEmpty()) {
+            return existing;
+        }
+        jdbcTemplate.query(SELECT_EXISTING_SQL,
+                (RowCallbackHandler) rs -> existing.put(rs.getString(1), rs.getLong(2)),
+                (Object) tokens.toArray(String[]::new));
+        return existing;
+    }
+
+    private List<Long> allocateIds(String sequence, int count) {
+        int blocks = (count + IdSequences.ALLOCATION_SIZE - 1) / IdSequences.ALLOCATION_SIZE;
+        List<Long> blockStarts = jdbcTemplate.queryForList(
+                "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)", Long.class, blocks);
+
+        List<Long> ids = new ArrayList<>(count);
+        for (Long start : blockStarts) {
+            for (int offset = 0; offset < IdSequences.ALLOCATION_SIZE && ids.size() < count; offset++) {
+                ids.add(start + offset);
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,470 @@
+package com.example.ecommerce.order.infrastructure.queue;
+
+import com.example.ecommerce.order.api.dto.OrderDTO;
+import com.example.ecommerce.order.api.dto.OrderIntakeStatusDTO;
+import com.example.ecommerce.order.infrastructure.cache.order.CachedOrderRepository;
+import com.example.ecommerce.order.infrastructure.cache.order.OrderHistoryCache;
+import com.example.ecommerce.order.infrastructure.cache.order.OrderReadModel;
+import com.example.ecommerce.order.infrastructure.persistence.order.OrderDTOMapper;
+import com.example.ecommerce.order.infrastructure.persistence.order.OrderTable;
+import com.example.ecommerce.product.infrastructure.sync.StockSyncJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consumer pool for the order intake stream.
+ *
+ * Each worker reads batches with XREADGROUP, inserts them through {@link JdbcOrderBatchWriter},
+ * publishes the outcome per token and acknowledges the entries. A batch that fails as a whole
+ * is retried message by message so one bad order cannot block the others; the stock reserved
+ * for an order that still fails is released again.
+ *
+ * Only errors that would repeat on every attempt (a constraint violation, bad data) fail an
+ * order that way. A transient error (lost or exhausted connections, a failover, a lock or query
+ * timeout, a commit with an unknown outcome) leaves the whole batch unacknowledged, so it is
+ * delivered again once the database is back.
+ *
+ * Consumer names are unique per process ({instance}-writer-{n}), so instances never share a
+ * pending list. Entries a worker read but did not acknowledge are re-read after an error, and
+ * entries idle for order.intake.claim-idle-ms (a crashed or stuck instance) are claimed by
+ * any live worker with XCLAIM. Re-processing is safe: the writer is idempotent per token.
+ * An entry delivered more than order.intake.max-deliveries times is moved to the
+ * {@value #DEAD_LETTER_KEY} stream instead, its order marked failed and its stock released.
+ *
+ * Workers only run with order.intake.mode=async.
+ *
+ * Metrics:
+ * - order.intake.batch        - duration of a persisted batch
+ * - order.intake.persisted    - orders written
+ * - order.intake.failures     - orders that could not be written
+ * - order.intake.claimed      - idle entries taken over from another consumer
+ * - order.intake.dead-letters - entries given up after too many deliveries
+ */
+@Component
+@Slf4j
+public class OrderIntakeConsumer {
+
+    static final String DEAD_LETTER_KEY = "orders:intake:dead";
+
+    private static final String GROUP = "order-writers";
+    private static final String REASON_FIELD = "reason";
+    // Consumers without pending entries idle this many claim intervals are removed from the group
+    private static final int STALE_CONSUMER_CLAIM_INTERVALS = 10;
+    private static final String STOCK_KEY_PREFIX = "stock:";
+    private static final Duration ERROR_BACKOFF = Duration.ofSeconds(1);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final OrderIntakeQueue intakeQueue;
+    private final JdbcOrderBatchWriter writer;
+    private final OrderTable orderTable;
+    private final OrderHistoryCache historyCache;
+    private final int consumers;
+    private final int batchSize;
+    private final Duration pollTimeout;
+    private final Duration claimIdle;
+    private final int maxDeliveries;
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong nextClaimAt = new AtomicLong();
+
+    private final Timer batchTimer;
+    private final Counter persistedCounter;
+    private final Counter failureCounter;
+    private final Counter claimedCounter;
+    private final Counter deadLetterCounter;
+
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public OrderIntakeConsumer(
+            RedisTemplate<String, Object> redisTemplate,
+            OrderIntakeQueue intakeQueue,
+            JdbcOrderBatchWriter writer,
+            OrderTable orderTable,
+            OrderHistoryCache historyCache,
+            MeterRegistry meterRegistry,
+            @Value("${order.intake.consumers:4}") int consumers,
+            @Value("${order.intake.batch-size:100}") int batchSize,
+            @Value("${order.intake.poll-timeout-ms:2000}") long pollTimeoutMs,
+            @Value("${order.intake.claim-idle-ms:30000}") long claimIdleMs,
+            @Value("${order.intake.max-deliveries:5}") int maxDeliveries) {
+        this.redisTemplate = redisTemplate;
+        this.intakeQueue = intakeQueue;
+        this.writer = writer;
+        this.orderTable = orderTable;
+        this.historyCache = historyCache;
+        this.consumers = consumers;
+        this.batchSize = batchSize;
+        this.pollTimeout = Duration.ofMillis(pollTimeoutMs);
+        this.claimIdle = Duration.ofMillis(claimIdleMs);
+        this.maxDeliveries = maxDeliveries;
+
+        this.batchTimer = Timer.builder("order.intake.batch").register(meterRegistry);
+        this.persistedCounter = Counter.builder("order.intake.persisted").register(meterRegistry);
+        this.failureCounter = Counter.builder("order.intake.failures").register(meterRegistry);
+        this.claimedCounter = Counter.builder("order.intake.claimed").register(meterRegistry);
+        this.deadLetterCounter = Counter.builder("order.intake.dead-letters").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!intakeQueue.isAsync()) {
+            return;
+        }
+
+        createGroup();
+        running = true;
+        executor = Executors.newFixedThreadPool(consumers);
+        for (int i = 0; i < consumers; i++) {
+            String name = instanceId + "-writer-" + i;
+            executor.submit(() -> consume(name));
+        }
+        log.info("Started {} order intake consumers {}-writer-* on {}", consumers, instanceId, OrderIntakeQueue.STREAM_KEY);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(pollTimeout.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void createGroup() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                connection.streamCommands().xGroupCreate(
+                        OrderIntakeQueue.STREAM_KEY.getBytes(StandardCharsets.UTF_8), GROUP, ReadOffset.from("0"), true);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            if (!String.valueOf(e.getMessage()).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private void consume(String name) {
+        Consumer consumer = Consumer.from(GROUP, name);
+        // Set after an error: re-read the entries this worker read but never acknowledged
+        boolean drainPending = false;
+
+        while (running) {
+            try {
+                if (!drainPending && claimDue()) {
+                    List<MapRecord<String, Object, Object>> claimed = claimIdleEntries(consumer);
+                    if (!claimed.isEmpty()) {
+                        process(claimed, deliveryCounts(consumer, claimed));
+                        continue;
+                    }
+                }
+
+                List<MapRecord<String, Object, Object>> records = drainPending
+                        ? redisTemplate.opsForStream().read(consumer,
+                                StreamReadOptions.empty().count(batchSize),
+                                StreamOffset.create(OrderIntakeQueue.STREAM_KEY, ReadOffset.from("0")))
+                        : redisTemplate.opsForStream().read(consumer,
+                                StreamReadOptions.empty().count(batchSize).block(pollTimeout),
+                                StreamOffset.create(OrderIntakeQueue.STREAM_KEY, ReadOffset.lastConsumed()));
+
+                if (records == null || records.isEmpty()) {
+                    drainPending = false;
+                    continue;
+                }
+                // New entries are on their first delivery; re-read ones may have failed before
+                process(records, drainPending ? deliveryCounts(consumer, records) : Map.of());
+            } catch (RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                log.error("Order intake consumer {} failed, retrying pending entries: {}", name, e.getMessage());
+                drainPending = true;
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * One worker per instance and claim interval looks for entries other consumers left idle.
+     */
+    private boolean claimDue() {
+        long now = System.currentTimeMillis();
+        long due = nextClaimAt.get();
+        return now >= due && nextClaimAt.compareAndSet(due, now + claimIdle.toMillis() / 2);
+    }
+
+    /**
+     * Take over entries idle for at least the claim timeout, and drop consumers of instances
+     * that are gone. XCLAIM re-checks the idle time, so two instances never both get an entry.
+     */
+    private List<MapRecord<String, Object, Object>> claimIdleEntries(Consumer consumer) {
+        PendingMessages pending = redisTemplate.opsForStream()
+                .pending(OrderIntakeQueue.STREAM_KEY, GROUP, Range.unbounded(), batchSize * 10L);
+        RecordId[] idle = pending.stream()
+                .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(claimIdle) >= 0)
+                .limit(batchSize)
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+
+        List<MapRecord<String, Object, Object>> claimed = idle.length == 0
+                ? List.of()
+                : redisTemplate.opsForStream().claim(OrderIntakeQueue.STREAM_KEY, GROUP, consumer.getName(),
+                        RedisStreamCommands.XClaimOptions.minIdle(claimIdle).ids(idle));
+        if (!claimed.isEmpty()) {
+            claimedCounter.increment(claimed.size());
+            log.info("Consumer {} claimed {} idle order intake entries", consumer.getName(), claimed.size());
+        }
+
+        Duration staleAfter = claimIdle.multipliedBy(STALE_CONSUMER_CLAIM_INTERVALS);
+        for (StreamInfo.XInfoConsumer info : redisTemplate.opsForStream().consumers(OrderIntakeQueue.STREAM_KEY, GROUP)) {
+            if (info.pendingCount() == 0 && info.idleTime().compareTo(staleAfter) > 0) {
+                redisTemplate.opsForStream().deleteConsumer(OrderIntakeQueue.STREAM_KEY,
+                        Consumer.from(GROUP, info.consumerName()));
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * How often each of the given entries, pending for this consumer, has been delivered.
+     */
+    private Map<RecordId, Long> deliveryCounts(Consumer consumer, List<MapRecord<String, Object, Object>> records) {
+        PendingMessages pending = redisTemplate.opsForStream().pending(OrderIntakeQueue.STREAM_KEY, consumer,
+                Range.closed(records.get(0).getId().getValue(), records.get(records.size() - 1).getId().getValue()),
+                records.size());
+        Map<RecordId, Long> counts = new HashMap<>();
+        pending.forEach(message -> counts.put(message.getId(), message.getTotalDeliveryCount()));
+        return counts;
+    }
+
+    /**
+     * @param deliveries delivery count per entry; entries not in it are on their first delivery
+     * @throws RuntimeException on a transient error, with none of the entries acknowledged
+     */
+    void process(List<MapRecord<String, Object, Object>> records, Map<RecordId, Long> deliveries) {
+        RecordId[] recordIds = records.stream().map(MapRecord::getId).toArray(RecordId[]::new);
+
+        // Step 1: Decode, skipping malformed entries and setting aside the ones delivered too often
+        List<OrderIntakeMessage> decoded = new ArrayList<>(records.size());
+        List<MapRecord<String, Object, Object>> exhausted = new ArrayList<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            if (!(record.getValue().get(OrderIntakeQueue.PAYLOAD_FIELD) instanceof OrderIntakeMessage message)) {
+                log.warn("Dropping malformed order intake entry {}", record.getId());
+            } else if (deliveries.getOrDefault(record.getId(), 1L) > maxDeliveries) {
+                exhausted.add(record);
+            } else {
+                decoded.add(message);
+            }
+        }
+        if (!exhausted.isEmpty()) {
+            deadLetter(exhausted);
+            // Their stock is released; they must not come back if the rest of the batch fails
+            acknowledge(exhausted.stream().map(MapRecord::getId).toArray(RecordId[]::new));
+        }
+
+        // Skip tokens already reported as persisted by an earlier delivery
+        List<OrderIntakeStatusDTO> previous = decoded.isEmpty() ? List.of() : intakeQueue.findStatuses(
+                decoded.stream().map(OrderIntakeMessage::getToken).toList());
+        List<OrderIntakeMessage> messages = new ArrayList<>(decoded.size());
+        for (int i = 0; i < decoded.size(); i++) {
+            OrderIntakeStatusDTO status = previous.get(i);
+            if (status == null || !OrderIntakeStatusDTO.COMPLETED.equals(status.getStatus())) {
+                messages.add(decoded.get(i));
+            }
+        }
+
+        // Step 2: Persist and publish the outcome
+        if (!messages.isEmpty()) {
+            List<OrderIntakeStatusDTO> statuses = batchTimer.record(() -> persist(messages));
+            intakeQueue.updateStatuses(statuses);
+            updateOrderCaches(messages, statuses);
+        }
+
+        // Step 3: Acknowledge and drop the entries so the stream stays small
+        acknowledge(recordIds);
+    }
+
+    private void acknowledge(RecordId[] recordIds) {
+        redisTemplate.opsForStream().acknowledge(OrderIntakeQueue.STREAM_KEY, GROUP, recordIds);
+        redisTemplate.opsForStream().delete(OrderIntakeQueue.STREAM_KEY, recordIds);
+    }
+
+    private List<OrderIntakeStatusDTO> persist(List<OrderIntakeMessage> messages) {
+        try {
+            List<Long> orderIds = writer.write(messages);
+            persistedCounter.increment(messages.size());
+
+            List<OrderIntakeStatusDTO> statuses = new ArrayList<>(messages.size());
+            for (int i = 0; i < messages.size(); i++) {
+                statuses.add(completed(messages.get(i), orderIds.get(i)));
+            }
+            return statuses;
+        } catch (DataAccessException | TransactionException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            if (messages.size() == 1) {
+                return List.of(failed(messages.get(0), e));
+            }
+            log.warn("Order batch of {} failed, retrying one by one: {}", messages.size(), e.getMessage());
+        }
+
+        List<OrderIntakeStatusDTO> statuses = new ArrayList<>(messages.size());
+        for (OrderIntakeMessage message : messages) {
+            try {
+                Long orderId = writer.write(List.of(message)).get(0);
+                persistedCounter.increment();
+                statuses.add(completed(message, orderId));
+            } catch (DataAccessException | TransactionException e) {
+                if (isTransient(e)) {
+                    // Orders written so far are found again by token on the next delivery
+                    throw e;
+                }
+                statuses.add(failed(message, e));
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Whether the same write may succeed on a later delivery. Resource failures cover lost and
+     * unobtainable connections; any transaction error, a failed commit included, may have
+     * committed after all, so it is never answered by releasing the stock.
+     */
+    static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    /**
+     * Give up on entries that kept failing: keep a copy on the dead-letter stream and publish
+     * their outcome. An order that did get committed by one of the attempts is reported as such.
+     */
+    private void deadLetter(List<MapRecord<String, Object, Object>> records) {
+        List<OrderIntakeMessage> messages = records.stream()
+                .map(record -> (OrderIntakeMessage) record.getValue().get(OrderIntakeQueue.PAYLOAD_FIELD))
+                .toList();
+        Map<String, Long> committed = writer.findExisting(messages.stream().map(OrderIntakeMessage::getToken).toList());
+
+        List<OrderIntakeStatusDTO> statuses = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            OrderIntakeMessage message = messages.get(i);
+            Long orderId = committed.get(message.getToken());
+            if (orderId != null) {
+                statuses.add(completed(message, orderId));
+                continue;
+            }
+            redisTemplate.opsForStream().add(StreamRecords.newRecord().in(DEAD_LETTER_KEY).ofMap(Map.of(
+                    OrderIntakeQueue.PAYLOAD_FIELD, message,
+                    REASON_FIELD, "Delivered more than " + maxDeliveries + " times, last as " + records.get(i).getId())));
+            deadLetterCounter.increment();
+            statuses.add(failed(message, new IllegalStateException("gave up after " + maxDeliveries + " deliveries")));
+        }
+        intakeQueue.updateStatuses(statuses);
+    }
+
+    private OrderIntakeStatusDTO completed(OrderIntakeMessage message, Long orderId) {
+        return new OrderIntakeStatusDTO(message.getToken(), OrderIntakeStatusDTO.COMPLETED, orderId, null);
+    }
+
+    private OrderIntakeStatusDTO failed(OrderIntakeMessage message, Exception e) {
+        failureCounter.increment();
+        log.error("Could not persist order {} for user {}: {}", message.getToken(), message.getUserId(), e.getMessage());
+        releaseStock(message);
+        return new OrderIntakeStatusDTO(
+                message.getToken(), OrderIntakeStatusDTO.FAILED, null, "Order could not be persisted");
+    }
+
+    /**
+     * Give the reserved units back to the Redis counters; the stock flusher persists them.
+     */
+    private void releaseStock(OrderIntakeMessage message) {
+        for (OrderIntakeMessage.Line line : message.getItems()) {
+            redisTemplate.opsForValue().increment(STOCK_KEY_PREFIX + line.getProductId(), line.getQuantity());
+            redisTemplate.opsForSet().add(StockSyncJob.DIRTY_STOCK_KEY, line.getProductId());
+        }
+    }
+
+    /**
+     * Same cache updates as a synchronous create in CachedOrderRepository: drop the full order
+     * list cached by the previous release and add the new orders to each user's history window.
+     * The orders of users with a cached window are read back with one query for the whole batch.
+     */
+    private void updateOrderCaches(List<OrderIntakeMessage> messages, List<OrderIntakeStatusDTO> statuses) {
+        Set<String> keys = new LinkedHashSet<>();
+        Map<Long, Boolean> windowCached = new HashMap<>();
+        Map<Long, Long> userByOrder = new HashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            Long userId = messages.get(i).getUserId();
+            keys.add(CachedOrderRepository.legacyUserOrdersKey(userId));
+            if (statuses.get(i).getOrderId() != null
+                    && windowCached.computeIfAbsent(userId, historyCache::startAppend)) {
+                userByOrder.put(statuses.get(i).getOrderId(), userId);
+            }
+        }
+        redisTemplate.delete(keys);
+
+        if (userByOrder.isEmpty()) {
+            return;
+        }
+        Map<Long, List<OrderReadModel>> byUser = new HashMap<>();
+        for (OrderDTO order : OrderDTOMapper.fromRows(orderTable.findLinesByOrderIds(userByOrder.keySet()))) {
+            byUser.computeIfAbsent(userByOrder.get(order.getId()), userId -> new ArrayList<>())
+                    .add(OrderReadModel.from(order));
+        }
+        byUser.forEach(historyCache::append);
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(ERROR_BACKOFF.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.ecommerce.order.infrastructure.queue;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Order as queued on the intake stream: IDs and prices only, no entities.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderIntakeMessage {
+    private String token;
+    private Long userId;
+    private Long orderDateEpochMillis;
+    private Double totalCost;
+    private List<Line> items;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Line {
+        private Long productId;
+        private Integer quantity;
+        private Double unitPrice;
+        private Double orderItemPrice;
+    }
+}
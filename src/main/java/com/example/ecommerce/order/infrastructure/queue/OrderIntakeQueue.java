@@ -0,0 +1,133 @@
+package com.example.ecommerce.order.infrastructure.queue;
+
+import com.example.ecommerce.order.api.dto.OrderIntakeStatusDTO;
+import com.example.ecommerce.order.domain.OrderItem;
+import com.example.ecommerce.user.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Producer side of the asynchronous order intake.
+ *
+ * With order.intake.mode=async the flash-sale buy path enqueues the reserved cart to the
+ * Redis Stream {@value #STREAM_KEY} and returns a token right away. {@link OrderIntakeConsumer}
+ * persists the orders in batches and records the outcome under order:intake:{token}.
+ */
+@Component
+public class OrderIntakeQueue {
+
+    public static final String STREAM_KEY = "orders:intake";
+    public static final String PAYLOAD_FIELD = "payload";
+
+    private static final String STATUS_KEY_PREFIX = "order:intake:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final boolean async;
+    private final Duration statusTtl;
+    private final Counter enqueuedCounter;
+
+    public OrderIntakeQueue(
+            RedisTemplate<String, Object> redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${order.intake.mode:sync}") String mode,
+            @Value("${order.intake.status-ttl-minutes:60}") long statusTtlMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.async = "async".equalsIgnoreCase(mode);
+        this.statusTtl = Duration.ofMinutes(statusTtlMinutes);
+        this.enqueuedCounter = Counter.builder("order.intake.enqueued").register(meterRegistry);
+    }
+
+    /**
+     * Whether the buy endpoint should enqueue orders instead of inserting them in the request thread.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Queue an order for the given user and already reserved items.
+     *
+     * @return the token clients poll for the order status
+     */
+    @NonNull
+    public String enqueue(@NonNull User user, @NonNull List<OrderItem> items) {
+        String token = UUID.randomUUID().toString();
+
+        List<OrderIntakeMessage.Line> lines = items.stream()
+                .map(item -> new OrderIntakeMessage.Line(
+                        item.getProduct().getId(),
+                        item.getQuantity(),
+                        item.getUnitPrice(),
+                        item.getOrderItemPrice()
+                ))
+                .toList();
+        double totalCost = items.stream()
+                .mapToDouble(OrderItem::getOrderItemPrice)
+                .sum();
+
+        OrderIntakeMessage message = new OrderIntakeMessage(
+                token, user.getId(), System.currentTimeMillis(), totalCost, lines);
+
+        // Status first, so a fast consumer can never be overwritten by PENDING
+        updateStatus(new OrderIntakeStatusDTO(token, OrderIntakeStatusDTO.PENDING, null, null));
+        redisTemplate.opsForStream().add(
+                StreamRecords.newRecord().in(STREAM_KEY).ofMap(Map.of(PAYLOAD_FIELD, message)));
+        enqueuedCounter.increment();
+
+        return token;
+    }
+
+    @NonNull
+    public Optional<OrderIntakeStatusDTO> findStatus(@NonNull String token) {
+        Object cached = redisTemplate.opsForValue().get(STATUS_KEY_PREFIX + token);
+        return Optional.ofNullable((OrderIntakeStatusDTO) cached);
+    }
+
+    /**
+     * Statuses for several tokens with one MGET; missing entries are null.
+     */
+    @NonNull
+    List<OrderIntakeStatusDTO> findStatuses(@NonNull List<String> tokens) {
+        List<String> keys = tokens.stream().map(token -> STATUS_KEY_PREFIX + token).toList();
+        List<Object> cached = redisTemplate.opsForValue().multiGet(keys);
+        if (cached == null) {
+            return Collections.nCopies(tokens.size(), null);
+        }
+        return cached.stream().map(OrderIntakeStatusDTO.class::cast).toList();
+    }
+
+    void updateStatus(@NonNull OrderIntakeStatusDTO status) {
+        redisTemplate.opsForValue().set(STATUS_KEY_PREFIX + status.getToken(), status, statusTtl);
+    }
+
+    /**
+     * Write several statuses in one pipeline.
+     */
+    void updateStatuses(@NonNull List<OrderIntakeStatusDTO> statuses) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (OrderIntakeStatusDTO status : statuses) {
+                    ops.opsForValue().set(STATUS_KEY_PREFIX + status.getToken(), status, statusTtl);
+                }
+                return null;
+            }
+        });
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.*;
 
 import com.example.ecommerce.product.api.dto.ProductCreateRequest;
 import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.product.api.dto.ProductPageDTO;
 import com.example.ecommerce.product.api.dto.ProductUpdateRequest;
 import com.example.ecommerce.product.app.ProductService;
 import com.example.ecommerce.product.domain.Product;
@@ -42,6 +43,13 @@ public class ProductBenchmarkController {
         return dbProductService.findAllDTO();
     }
     
+    @GetMapping("/db/products/page")
+    public ProductPageDTO dbFindPage(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "50") int size) {
+        return dbProductService.findPageDTO(after, size);
+    }
+    
     @GetMapping("/db/products/{id}")
     public Product dbFindById(@PathVariable Long id) {
         popularProductRefreshJob.trackProductView(id);
@@ -77,6 +85,13 @@ public class ProductBenchmarkController {
         return cachedProductService.findAllDTO();
     }
     
+    @GetMapping("/cached/products/page")
+    public ProductPageDTO cachedFindPage(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "50") int size) {
+        return cachedProductService.findPageDTO(after, size);
+    }
+    
     @GetMapping("/cached/products/{id}")
     public ProductDTO cachedFindById(@PathVariable Long id) {
         popularProductRefreshJob.trackProductView(id);
@@ -0,0 +1,15 @@
+package com.example.ecommerce.product.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPageDTO {
+    private List<ProductDTO> items;
+    private Long nextCursor; // pass as "after" for the next page, null on the last page
+}
@@ -4,10 +4,14 @@ import org.springframework.lang.NonNull;
 
 import com.example.ecommerce.product.api.dto.ProductCreateRequest;
 import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.product.api.dto.ProductPageDTO;
 import com.example.ecommerce.product.api.dto.ProductUpdateRequest;
 import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductCatalogEntry;
+import com.example.ecommerce.product.infrastructure.persistence.product.StockReservation;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -30,6 +34,21 @@ public interface IProductService {
     @NonNull
     List<ProductDTO> findAllDTO();
     
+    /**
+     * The whole catalog with stock counters, without loading any collections.
+     */
+    @NonNull
+    List<ProductCatalogEntry> findCatalog();
+    
+    /**
+     * One catalog page in ID order.
+     * 
+     * @param after cursor from the previous page, 0 for the first page
+     * @param size page size, 1 to {@value ProductService#MAX_PAGE_SIZE}
+     */
+    @NonNull
+    ProductPageDTO findPageDTO(long after, int size);
+    
     @NonNull
     Product findById(@NonNull Long id);
     
@@ -51,5 +70,15 @@ public interface IProductService {
      */
     @NonNull
     Optional<Product> returnIfInStock(@NonNull Long productId, int quantity);
+    
+    /**
+     * Reserve stock for several products in one all-or-nothing step.
+     * If any product is sold out, no stock is decremented.
+     * 
+     * @param quantities product ID to quantity to reserve
+     * @return the reserved products, or why nothing was reserved: a sold-out or missing product
+     */
+    @NonNull
+    StockReservation reserveAll(@NonNull Map<Long, Integer> quantities);
 }
 
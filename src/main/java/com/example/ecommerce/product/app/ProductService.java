@@ -8,15 +8,19 @@ import com.example.ecommerce.category.domain.Category;
 import com.example.ecommerce.category.infrastructure.persistence.category.CategoryTable;
 import com.example.ecommerce.product.api.dto.ProductCreateRequest;
 import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.product.api.dto.ProductPageDTO;
 import com.example.ecommerce.product.api.dto.ProductUpdateRequest;
 import com.example.ecommerce.product.domain.Product;
 import com.example.ecommerce.product.domain.ProductPriceHistory;
 import com.example.ecommerce.product.domain.Stock;
 import com.example.ecommerce.product.infrastructure.persistence.product.IProductRepository;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductCatalogEntry;
+import com.example.ecommerce.product.infrastructure.persistence.product.StockReservation;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -27,6 +31,8 @@ import java.util.Set;
  */
 public class ProductService implements IProductService {
     
+    public static final int MAX_PAGE_SIZE = 200;
+    
     private final IProductRepository productRepository;
     private final CategoryTable categoryTable;
     
@@ -91,6 +97,23 @@ public class ProductService implements IProductService {
     public List<ProductDTO> findAllDTO() {
         return productRepository.findAllDTO();
     }
+    
+    @NonNull
+    public List<ProductCatalogEntry> findCatalog() {
+        return productRepository.findCatalog();
+    }
+
+    @NonNull
+    public ProductPageDTO findPageDTO(long after, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
+        List<ProductDTO> items = productRepository.findPageDTO(after, size);
+        Long nextCursor = items.size() == size ? items.get(items.size() - 1).getId() : null;
+        return new ProductPageDTO(items, nextCursor);
+    }
 
     @NonNull
     public Product findById(@NonNull Long id) {
@@ -171,5 +194,10 @@ public class ProductService implements IProductService {
     public Optional<Product> returnIfInStock(@NonNull Long productId, int quantity) {
         return productRepository.returnIfInStock(productId, quantity);
     }
+    
+    @Override
+    @NonNull
+    public StockReservation reserveAll(@NonNull Map<Long, Integer> quantities) {
+        return productRepository.reserveAll(quantities);
+    }
 }
-
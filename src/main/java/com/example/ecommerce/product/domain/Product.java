@@ -1,6 +1,7 @@
 package com.example.ecommerce.product.domain;
 
 import com.example.ecommerce.category.domain.Category;
+import com.example.ecommerce.common.config.IdSequences;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -21,7 +22,8 @@ import java.util.Set;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Product implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     private String name;
@@ -1,5 +1,6 @@
 package com.example.ecommerce.product.domain;
 
+import com.example.ecommerce.common.config.IdSequences;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -23,7 +24,8 @@ import java.time.LocalDateTime;
 public class ProductPriceHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_price_history_seq")
+    @SequenceGenerator(name = "product_price_history_seq", sequenceName = "product_price_history_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     private Double oldPrice;
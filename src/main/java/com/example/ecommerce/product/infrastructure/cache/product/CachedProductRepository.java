@@ -3,22 +3,34 @@ package com.example.ecommerce.product.infrastructure.cache.product;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.ecommerce.common.cache.NegativeCache;
+import com.example.ecommerce.common.cache.SingleFlight;
+import com.example.ecommerce.common.config.RedisScriptRegistry;
 import com.example.ecommerce.flashsale.infrastructure.persistence.flashsale.FlashSaleTable;
 import com.example.ecommerce.product.api.dto.ProductDTO;
 import com.example.ecommerce.product.domain.Product;
 import com.example.ecommerce.product.infrastructure.persistence.product.IProductRepository;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductCatalogEntry;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductDTOMapper;
 import com.example.ecommerce.product.infrastructure.persistence.product.ProductTable;
+import com.example.ecommerce.product.infrastructure.persistence.product.StockReservation;
+import com.example.ecommerce.product.infrastructure.sync.StockSyncJob;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Supplier;
 
 
 @Repository
@@ -30,33 +42,32 @@ public class CachedProductRepository implements IProductRepository {
     private final ProductTable productTable;
     private final RedisTemplate<String, Object> redisTemplate;
     private final FlashSaleTable flashSaleTable;
+    private final RedisScriptRegistry scriptRegistry;
+    private final ProductNearCache nearCache;
+    private final SingleFlight singleFlight;
+    private final NegativeCache negativeCache;
     
     private static final String CACHE_KEY_PREFIX = "product:";
-    private static final String ALL_PRODUCTS_KEY = "products:all";
+    private static final String MISS_DOMAIN = "product";
     private static final String STOCK_KEY_PREFIX = "stock:";
+    private static final String PAGE_KEY_PREFIX = "products:page:";
+    private static final String PAGE_KEYS_SET = "products:pages";
+    private static final Duration PAGE_TTL = Duration.ofMinutes(5);
+    private static final int ALL_PRODUCTS_PAGE_SIZE = 500;
     
-    private static final String ATOMIC_DECREMENT_SCRIPT = 
-        "local stock = tonumber(redis.call('GET', KEYS[1]) or '0') " +
-        "local quantity = tonumber(ARGV[1]) " +
-        "if stock >= quantity then " +
-        "    redis.call('DECRBY', KEYS[1], quantity) " +
-        "    return 1 " +
-        "else " +
-        "    return 0 " +
-        "end";
-    
-
     @Override
     @NonNull
     public Product create(@NonNull Product product) {
         // Step 1: Write to database first
         Product saved = productTable.save(product);
+        negativeCache.clear(MISS_DOMAIN, saved.getId());
         
         // Step 2: Write to cache (write-through)
         cacheProduct(saved);
+        nearCache.invalidate(saved.getId());
         
-        // Step 3: Invalidate all-products cache for consistency
-        invalidateAllProductsCache();
+        // Step 3: Invalidate catalog pages, whose membership changed
+        invalidateCatalogPages();
         
         return saved;
     }
@@ -64,74 +75,143 @@ public class CachedProductRepository implements IProductRepository {
     @Override
     @NonNull
     public List<Product> findAll() {
-        List<Product> products = productTable.findAllWithStock();
+        List<Product> products = productTable.findAllWithRelations();
         products.forEach(this::cacheProduct);
         return products;
     }
     
     /**
-     * Read-through caching for findAll:
-     * 1. Check cache first
-     * 2. If cache miss, fetch from DB
-     * 3. Populate cache with the result
-     * 4. Return data
+     * The whole catalog, walked page by page through the same cached ID pages and product:{id}
+     * entries as {@link #findPageDTO}. There is no single catalog value to rebuild, so an update
+     * only rewrites its own entry.
      */
     @Override
     @NonNull
-    @SuppressWarnings("unchecked")
     public List<ProductDTO> findAllDTO() {
-        // Step 1: Check cache
-        try {
-            List<ProductDTO> cachedDTOs = (List<ProductDTO>) redisTemplate.opsForValue().get(ALL_PRODUCTS_KEY);
-            
-            if (cachedDTOs != null) {
-                return cachedDTOs;
+        List<ProductDTO> products = new ArrayList<>();
+        long afterId = 0;
+        List<Long> ids;
+        do {
+            ids = pageIds(afterId, ALL_PRODUCTS_PAGE_SIZE);
+            products.addAll(assemble(ids));
+            if (!ids.isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == ALL_PRODUCTS_PAGE_SIZE);
+        return products;
+    }
+    
+    @Override
+    @NonNull
+    public List<ProductCatalogEntry> findCatalog() {
+        return productTable.findCatalog();
+    }
+    
+    /**
+     * Catalog page assembled from the per-product entries:
+     * 1. Page IDs from products:page:{afterId}:{size}, loaded from the ID index on a miss
+     * 2. Products from the near-cache, then one MGET of product:{id} for the rest
+     * 3. Products still missing from the database, written back with one MSET
+     * 
+     * An update only rewrites its own product:{id}; create and delete change page
+     * membership and drop the cached ID lists.
+     */
+    @Override
+    @NonNull
+    public List<ProductDTO> findPageDTO(long afterId, int size) {
+        return assemble(pageIds(afterId, size));
+    }
+    
+    private List<Long> pageIds(long afterId, int size) {
+        String pageKey = PAGE_KEY_PREFIX + afterId + ":" + size;
+        List<Long> ids = getCachedPageIds(pageKey);
+        if (ids != null) {
+            return ids;
+        }
+        return singleFlight.load(pageKey, () -> getCachedPageIds(pageKey), () -> {
+            List<Long> loaded = productTable.findIdsAfter(afterId, PageRequest.of(0, size));
+            redisTemplate.opsForValue().set(pageKey, loaded, PAGE_TTL);
+            redisTemplate.opsForSet().add(PAGE_KEYS_SET, pageKey);
+            // Every tracked page expires before the set does
+            redisTemplate.expire(PAGE_KEYS_SET, PAGE_TTL);
+            return loaded;
+        });
+    }
+    
+    private List<ProductDTO> assemble(List<Long> ids) {
+        // Near-cache, then Redis
+        Map<Long, ProductDTO> found = new HashMap<>();
+        List<Long> remoteIds = new ArrayList<>();
+        for (Long id : ids) {
+            ProductDTO local = nearCache.get(id);
+            if (local != null) {
+                found.put(id, local);
+            } else {
+                remoteIds.add(id);
             }
-        } catch (Exception e) {
-            log.warn("Failed to deserialize cached products list, invalidating cache: {}", e.getMessage());
-            invalidateAllProductsCache();
         }
         
-        // Step 2: Cache miss - fetch from database
-        List<Product> products = productTable.findAllWithStock();
-        
-        // Step 3: Populate cache (read-through)
-        if (!products.isEmpty()) {
-            List<ProductDTO> dtos = products.stream()
-                    .map(this::productToDTO)
-                    .collect(Collectors.toList());
-            redisTemplate.opsForValue().set(ALL_PRODUCTS_KEY, dtos);
-            
-            products.forEach(this::cacheProduct);
+        List<Long> missingIds = new ArrayList<>();
+        if (!remoteIds.isEmpty()) {
+            List<Object> cached = redisTemplate.opsForValue().multiGet(
+                    remoteIds.stream().map(id -> CACHE_KEY_PREFIX + id).toList());
+            for (int i = 0; i < remoteIds.size(); i++) {
+                Object value = cached != null ? cached.get(i) : null;
+                if (value instanceof ProductDTO dto) {
+                    found.put(remoteIds.get(i), dto);
+                    nearCache.put(dto);
+                } else {
+                    missingIds.add(remoteIds.get(i));
+                }
+            }
         }
         
-        List<ProductDTO> dtos = products.stream()
-                .map(this::productToDTO)
-                .collect(Collectors.toList());
+        // Database for the rest
+        if (!missingIds.isEmpty()) {
+            Map<String, Object> backfill = new HashMap<>();
+            for (Product product : productTable.findAllById(missingIds)) {
+                ProductDTO dto = ProductDTOMapper.toDTO(product);
+                found.put(product.getId(), dto);
+                backfill.put(CACHE_KEY_PREFIX + product.getId(), dto);
+            }
+            if (!backfill.isEmpty()) {
+                redisTemplate.opsForValue().multiSet(backfill);
+            }
+        }
         
-        return dtos;
+        // Page order; a product deleted since the IDs were cached is skipped
+        List<ProductDTO> page = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductDTO dto = found.get(id);
+            if (dto != null) {
+                page.add(dto);
+            }
+        }
+        return page;
     }
     
     @Override
     @NonNull
     public Optional<Product> findById(@NonNull Long id) {
-        String cacheKey = CACHE_KEY_PREFIX + id;
-        
         try {
-            Object cached = redisTemplate.opsForValue().get(cacheKey);
+            ProductDTO cached = getCachedDTO(id);
             
             if (cached != null) {
-                ProductDTO dto = (ProductDTO) cached;
-                return Optional.of(dtoToProduct(dto));
+                return Optional.of(ProductDTOMapper.toProduct(cached));
             }
         } catch (Exception e) {
             log.warn("Failed to deserialize cached product {}, evicting from cache: {}", id, e.getMessage());
             evictFromCache(id);
         }
         
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
+        }
+        
+        // Not coalesced: callers modify and save the fully loaded entity
         Optional<Product> productOpt = productTable.findByIdWithAllRelations(id);
         
-        productOpt.ifPresent(this::cacheProduct);
+        productOpt.ifPresentOrElse(this::cacheProduct, () -> negativeCache.markMissing(MISS_DOMAIN, id));
         
         return productOpt;
     }
@@ -139,25 +219,22 @@ public class CachedProductRepository implements IProductRepository {
     @Override
     @NonNull
     public Optional<ProductDTO> findByIdDTO(@NonNull Long id) {
-        String cacheKey = CACHE_KEY_PREFIX + id;
-        
         try {
-            Object cached = redisTemplate.opsForValue().get(cacheKey);
+            ProductDTO cached = getCachedDTO(id);
             
             if (cached != null) {
-                ProductDTO dto = (ProductDTO) cached;
-                return Optional.of(dto);
+                return Optional.of(cached);
             }
         } catch (Exception e) {
             log.warn("Failed to deserialize cached product {}, evicting from cache: {}", id, e.getMessage());
             evictFromCache(id);
         }
         
-        Optional<Product> productOpt = productTable.findByIdWithAllRelations(id);
-        
-        productOpt.ifPresent(this::cacheProduct);
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
+        }
         
-        return productOpt.map(this::productToDTO);
+        return loadById(id);
     }
 
     @Override
@@ -170,11 +247,9 @@ public class CachedProductRepository implements IProductRepository {
         Product fullyLoaded = productTable.findByIdWithAllRelations(updated.getId())
                 .orElse(updated);
         
-        // Step 3: Update cache (write-through)
+        // Step 3: Update cache (write-through) and drop stale near-cache copies
         cacheProduct(fullyLoaded);
-        
-        // Step 4: Invalidate all-products cache for consistency
-        invalidateAllProductsCache();
+        nearCache.invalidate(fullyLoaded.getId());
         
         return fullyLoaded;
     }
@@ -186,7 +261,8 @@ public class CachedProductRepository implements IProductRepository {
         flashSaleTable.removeProductFromAllFlashSales(id);
         productTable.deleteById(id);
         evictFromCache(id);
-        invalidateAllProductsCache();
+        nearCache.invalidate(id);
+        invalidateCatalogPages();
     }
     
     @Override
@@ -194,30 +270,127 @@ public class CachedProductRepository implements IProductRepository {
     public Optional<Product> returnIfInStock(@NonNull Long productId, int quantity) {
         String stockKey = STOCK_KEY_PREFIX + productId;
         
-        DefaultRedisScript<Long> script = new DefaultRedisScript<>(ATOMIC_DECREMENT_SCRIPT, Long.class);
-        Long result = redisTemplate.execute(script, Collections.singletonList(stockKey), quantity);
+        Long result = scriptRegistry.execute(
+                RedisScriptRegistry.STOCK_DECREMENT, Long.class,
+                List.of(stockKey, StockSyncJob.DIRTY_STOCK_KEY), quantity, productId);
         
         if (result != null && result == 1) {
-            String cacheKey = CACHE_KEY_PREFIX + productId;
-            Object cached = redisTemplate.opsForValue().get(cacheKey);
+            ProductDTO cached = getCachedDTO(productId);
             
             if (cached != null) {
-                ProductDTO dto = (ProductDTO) cached;
-                return Optional.of(dtoToProduct(dto));
+                return Optional.of(ProductDTOMapper.toProduct(cached));
             }
             
-            Optional<Product> productOpt = productTable.findById(productId);
-            productOpt.ifPresent(this::cacheProduct);
-            
-            return productOpt;
+            return loadById(productId).map(ProductDTOMapper::toProduct);
         }
         
         return Optional.empty();
     }
+    
+    @Override
+    @NonNull
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public StockReservation reserveAll(@NonNull Map<Long, Integer> quantities) {
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        List<String> keys = new ArrayList<>(productIds.size() * 2 + 1);
+        productIds.forEach(id -> keys.add(STOCK_KEY_PREFIX + id));
+        productIds.forEach(id -> keys.add(CACHE_KEY_PREFIX + id));
+        keys.add(StockSyncJob.DIRTY_STOCK_KEY);
+        
+        List<Object> args = new ArrayList<>(productIds.size() * 2);
+        productIds.forEach(id -> args.add(quantities.get(id)));
+        args.addAll(productIds);
+        
+        // Checks and decrements every line in one script call, see scripts/stock-reserve-all.lua
+        List<Object> reply = scriptRegistry.execute(RedisScriptRegistry.STOCK_RESERVE_ALL, List.class, keys, args.toArray());
+        
+        if (reply == null || reply.isEmpty() || ((Number) reply.get(0)).longValue() != 1) {
+            return StockReservation.outOfStock();
+        }
+        
+        // Metadata came back with the reservation; only load products that were not cached
+        Map<Long, Product> reserved = new LinkedHashMap<>();
+        List<Long> uncachedIds = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            Object cached = i + 1 < reply.size() ? reply.get(i + 1) : null;
+            if (cached instanceof ProductDTO dto) {
+                reserved.put(productIds.get(i), ProductDTOMapper.toProduct(dto));
+            } else {
+                uncachedIds.add(productIds.get(i));
+            }
+        }
+        
+        if (!uncachedIds.isEmpty()) {
+            productTable.findAllById(uncachedIds).forEach(product -> {
+                cacheProduct(product);
+                reserved.put(product.getId(), product);
+            });
+        }
+        
+        // A stock counter can outlive its product; give the cart back rather than sell it
+        if (reserved.size() != productIds.size()) {
+            releaseAll(productIds, quantities);
+            return StockReservation.productMissing(
+                    productIds.stream().filter(id -> !reserved.containsKey(id)).toList());
+        }
+        
+        return StockReservation.reserved(reserved);
+    }
+    
+    /**
+     * Undo a reservation of {@link #reserveAll} in one script call, see scripts/stock-release-all.lua.
+     */
+    private void releaseAll(List<Long> productIds, Map<Long, Integer> quantities) {
+        List<String> keys = new ArrayList<>(productIds.size() + 1);
+        productIds.forEach(id -> keys.add(STOCK_KEY_PREFIX + id));
+        keys.add(StockSyncJob.DIRTY_STOCK_KEY);
+        
+        List<Object> args = new ArrayList<>(productIds.size() * 2);
+        productIds.forEach(id -> args.add(quantities.get(id)));
+        args.addAll(productIds);
+        
+        scriptRegistry.execute(RedisScriptRegistry.STOCK_RELEASE_ALL, Long.class, keys, args.toArray());
+    }
+        
+    /**
+     * Cache miss path for one product; concurrent misses share a single database read.
+     */
+    private Optional<ProductDTO> loadById(Long id) {
+        String cacheKey = CACHE_KEY_PREFIX + id;
+        Supplier<Optional<ProductDTO>> cacheLookup = () -> {
+            ProductDTO cached = getCachedDTO(id);
+            return cached != null ? Optional.of(cached) : null;
+        };
+
+        return singleFlight.loadOptional(cacheKey, cacheLookup, MISS_DOMAIN, id, () -> {
+            Optional<Product> productOpt = productTable.findByIdWithAllRelations(id);
+            productOpt.ifPresentOrElse(this::cacheProduct, () -> negativeCache.markMissing(MISS_DOMAIN, id));
+            return productOpt.map(ProductDTOMapper::toDTO);
+        });
+    }
+    
+    /**
+     * Near-cache first, then Redis; a Redis hit is kept in the near-cache.
+     */
+    private ProductDTO getCachedDTO(Long id) {
+        ProductDTO local = nearCache.get(id);
+        if (local != null) {
+            return local;
+        }
         
+        Object cached = redisTemplate.opsForValue().get(CACHE_KEY_PREFIX + id);
+        if (cached == null) {
+            return null;
+        }
+        
+        ProductDTO dto = (ProductDTO) cached;
+        nearCache.put(dto);
+        return dto;
+    }
+    
     private void cacheProduct(Product product) {
         String cacheKey = CACHE_KEY_PREFIX + product.getId();
-        ProductDTO dto = productToDTO(product);
+        ProductDTO dto = ProductDTOMapper.toDTO(product);
         redisTemplate.opsForValue().set(cacheKey, dto);
     }
     
@@ -226,30 +399,18 @@ public class CachedProductRepository implements IProductRepository {
         redisTemplate.delete(cacheKey);
     }
     
-    private void invalidateAllProductsCache() {
-        redisTemplate.delete(ALL_PRODUCTS_KEY);
-    }
-    
-    private ProductDTO productToDTO(Product product) {
-        ProductDTO dto = new ProductDTO();
-        dto.setId(product.getId());
-        dto.setName(product.getName());
-        dto.setDescription(product.getDescription());
-        dto.setPrice(product.getPrice());
-        dto.setDiscount(product.getDiscount());
-        dto.setImageLink(product.getImageLink());
-        return dto;
+    @SuppressWarnings("unchecked")
+    private List<Long> getCachedPageIds(String pageKey) {
+        List<Number> cached = (List<Number>) redisTemplate.opsForValue().get(pageKey);
+        return cached != null ? cached.stream().map(Number::longValue).toList() : null;
     }
     
-    private Product dtoToProduct(ProductDTO dto) {
-        Product product = new Product();
-        product.setId(dto.getId());
-        product.setName(dto.getName());
-        product.setDescription(dto.getDescription());
-        product.setPrice(dto.getPrice());
-        product.setDiscount(dto.getDiscount());
-        product.setImageLink(dto.getImageLink());
-        return product;
+    private void invalidateCatalogPages() {
+        Set<Object> pageKeys = redisTemplate.opsForSet().members(PAGE_KEYS_SET);
+        if (pageKeys != null && !pageKeys.isEmpty()) {
+            redisTemplate.delete(pageKeys.stream().map(String::valueOf).toList());
+        }
+        redisTemplate.delete(PAGE_KEYS_SET);
     }
 }
 
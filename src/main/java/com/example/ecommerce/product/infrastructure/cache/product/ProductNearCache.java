@@ -0,0 +1,101 @@
+package com.example.ecommerce.product.infrastructure.cache.product;
+
+import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-process L1 cache for product metadata in front of the Redis product:{id} keys.
+ *
+ * Entries are bounded by size and TTL. Writes through CachedProductRepository publish the
+ * product ID on {@value #INVALIDATION_CHANNEL}, and every instance drops its local copy.
+ * A missed message (e.g. during a Redis reconnect) is bounded by the TTL.
+ *
+ * Returned DTOs are shared between callers and must not be modified.
+ *
+ * Hit, miss and eviction counts are exported as cache.* metrics tagged cache=productNearCache.
+ */
+@Component
+@Slf4j
+public class ProductNearCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "product:invalidations";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final boolean enabled;
+    private final Cache<Long, ProductDTO> cache;
+
+    public ProductNearCache(
+            RedisTemplate<String, Object> redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            MeterRegistry meterRegistry,
+            @Value("${product.near-cache.enabled:true}") boolean enabled,
+            @Value("${product.near-cache.max-size:10000}") long maxSize,
+            @Value("${product.near-cache.ttl-ms:5000}") long ttlMs) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productNearCache");
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+        }
+    }
+
+    @Nullable
+    public ProductDTO get(@NonNull Long id) {
+        return enabled ? cache.getIfPresent(id) : null;
+    }
+
+    public void put(@NonNull ProductDTO dto) {
+        if (enabled && dto.getId() != null) {
+            cache.put(dto.getId(), dto);
+        }
+    }
+
+    /**
+     * Drop the local entry and tell every other instance to drop theirs.
+     */
+    public void invalidate(@NonNull Long id) {
+        cache.invalidate(id);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, id);
+        } catch (Exception e) {
+            log.warn("Failed to publish near-cache invalidation for product {}: {}", id, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+        Object id = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (id instanceof Number number) {
+            cache.invalidate(number.longValue());
+        } else {
+            log.warn("Ignoring malformed near-cache invalidation: {}", id);
+        }
+    }
+}
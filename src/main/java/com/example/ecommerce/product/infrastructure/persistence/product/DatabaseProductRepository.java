@@ -6,12 +6,16 @@ import com.example.ecommerce.product.domain.Product;
 import com.example.ecommerce.product.domain.Stock;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -36,14 +40,28 @@ public class DatabaseProductRepository implements IProductRepository {
     @Override
     @NonNull
     public List<Product> findAll() {
-        return productTable.findAllWithStock();
+        return productTable.findAllWithRelations();
     }
 
     @Override
     @NonNull
     public List<ProductDTO> findAllDTO() {
-        return productTable.findAllWithStock().stream()
-                .map(this::productToDTO)
+        return productTable.findCatalog().stream()
+                .map(ProductCatalogEntry::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @NonNull
+    public List<ProductCatalogEntry> findCatalog() {
+        return productTable.findCatalog();
+    }
+
+    @Override
+    @NonNull
+    public List<ProductDTO> findPageDTO(long afterId, int size) {
+        return productTable.findPageAfter(afterId, PageRequest.of(0, size)).stream()
+                .map(ProductDTOMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
@@ -56,20 +74,9 @@ public class DatabaseProductRepository implements IProductRepository {
     @Override
     @NonNull
     public Optional<ProductDTO> findByIdDTO(@NonNull Long id) {
-        return productTable.findById(id).map(this::productToDTO);
+        return productTable.findById(id).map(ProductDTOMapper::toDTO);
     }
     
-    private ProductDTO productToDTO(Product product) {
-        ProductDTO dto = new ProductDTO();
-        dto.setId(product.getId());
-        dto.setName(product.getName());
-        dto.setDescription(product.getDescription());
-        dto.setPrice(product.getPrice());
-        dto.setDiscount(product.getDiscount());
-        dto.setImageLink(product.getImageLink());
-        return dto;
-    }
-
     @Override
     @NonNull
     public Product update(@NonNull Product product) {
@@ -114,4 +121,37 @@ public class DatabaseProductRepository implements IProductRepository {
 
         return Optional.of(product);
     }
+
+    @Override
+    @Transactional
+    @NonNull
+    public StockReservation reserveAll(@NonNull Map<Long, Integer> quantities) {
+        // Lock every product of the cart in a single query
+        List<Product> locked = productTable.findAllByIdWithStock(quantities.keySet());
+
+        // Some products do not exist: reserve nothing and report the missing ones
+        if (locked.size() != quantities.size()) {
+            Set<Long> found = locked.stream().map(Product::getId).collect(Collectors.toSet());
+            return StockReservation.productMissing(
+                    quantities.keySet().stream().filter(id -> !found.contains(id)).toList());
+        }
+
+        // Check every line before touching any stock
+        for (Product product : locked) {
+            Integer currentStock = product.getStock().getCurrentValue();
+            if (currentStock == null || currentStock < quantities.get(product.getId())) {
+                return StockReservation.outOfStock();
+            }
+        }
+
+        Map<Long, Product> reserved = new LinkedHashMap<>();
+        for (Product product : locked) {
+            Stock stock = product.getStock();
+            stock.setCurrentValue(stock.getCurrentValue() - quantities.get(product.getId()));
+            reserved.put(product.getId(), product);
+        }
+        productTable.saveAll(locked);
+
+        return StockReservation.reserved(reserved);
+    }
 }
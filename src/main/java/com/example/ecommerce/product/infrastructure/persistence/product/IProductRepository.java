@@ -6,6 +6,7 @@ import com.example.ecommerce.product.api.dto.ProductDTO;
 import com.example.ecommerce.product.domain.Product;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -20,6 +21,22 @@ public interface IProductRepository {
     @NonNull
     List<ProductDTO> findAllDTO();
     
+    /**
+     * The whole catalog with stock counters, as flat projection rows (no collections).
+     */
+    @NonNull
+    List<ProductCatalogEntry> findCatalog();
+    
+    /**
+     * One catalog page in ID order (keyset pagination).
+     * 
+     * @param afterId only products with a greater ID are returned, 0 for the first page
+     * @param size maximum number of products
+     * @return the page, shorter than size only on the last page
+     */
+    @NonNull
+    List<ProductDTO> findPageDTO(long afterId, int size);
+    
     @NonNull
     Optional<Product> findById(@NonNull Long id);
     
@@ -33,4 +50,14 @@ public interface IProductRepository {
     
     @NonNull
     Optional<Product> returnIfInStock(@NonNull Long productId, int quantity);
+    
+    /**
+     * Reserve stock for several products at once (all-or-nothing).
+     * Either every quantity is decremented or none is.
+     * 
+     * @param quantities product ID to quantity to reserve
+     * @return the reserved products, or why nothing was reserved: a sold-out or missing product
+     */
+    @NonNull
+    StockReservation reserveAll(@NonNull Map<Long, Integer> quantities);
 }
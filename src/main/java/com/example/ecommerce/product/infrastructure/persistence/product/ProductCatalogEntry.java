@@ -0,0 +1,21 @@
+package com.example.ecommerce.product.infrastructure.persistence.product;
+
+import com.example.ecommerce.product.api.dto.ProductDTO;
+
+/**
+ * One catalog row: product columns plus its stock counter, read with a single
+ * products/stocks join and no collection fetches.
+ */
+public record ProductCatalogEntry(
+        Long id,
+        String name,
+        String description,
+        Double price,
+        Integer discount,
+        String imageLink,
+        Integer currentStock) {
+
+    public ProductDTO toDTO() {
+        return new ProductDTO(id, name, description, price, discount, imageLink);
+    }
+}
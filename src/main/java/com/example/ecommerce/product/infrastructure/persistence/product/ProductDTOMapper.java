@@ -0,0 +1,39 @@
+package com.example.ecommerce.product.infrastructure.persistence.product;
+
+import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.product.domain.Product;
+
+/**
+ * Converts between product entities and ProductDTOs, the form products are cached in;
+ * shared by the repositories.
+ */
+public final class ProductDTOMapper {
+
+    private ProductDTOMapper() {
+    }
+
+    public static ProductDTO toDTO(Product product) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(product.getId());
+        dto.setName(product.getName());
+        dto.setDescription(product.getDescription());
+        dto.setPrice(product.getPrice());
+        dto.setDiscount(product.getDiscount());
+        dto.setImageLink(product.getImageLink());
+        return dto;
+    }
+
+    /**
+     * A detached entity with the cached fields; associations are not loaded.
+     */
+    public static Product toProduct(ProductDTO dto) {
+        Product product = new Product();
+        product.setId(dto.getId());
+        product.setName(dto.getName());
+        product.setDescription(dto.getDescription());
+        product.setPrice(dto.getPrice());
+        product.setDiscount(dto.getDiscount());
+        product.setImageLink(dto.getImageLink());
+        return product;
+    }
+}
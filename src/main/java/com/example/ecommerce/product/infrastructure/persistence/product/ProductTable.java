@@ -1,26 +1,122 @@
 package com.example.ecommerce.product.infrastructure.persistence.product;
 
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.ecommerce.product.domain.Product;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ProductTable extends JpaRepository<Product, Long> {
+    
+    // Postgres allows 32767 bind parameters per statement
+    int IN_LIST_CHUNK_SIZE = 1000;
  
+    /**
+     * The whole catalog as flat rows, one per product.
+     */
+    @Query("""
+        SELECT new com.example.ecommerce.product.infrastructure.persistence.product.ProductCatalogEntry(
+            p.id, p.name, p.description, p.price, p.discount, p.imageLink, s.currentValue)
+        FROM Product p
+        LEFT JOIN p.stock s
+        ORDER BY p.id
+    """)
+    List<ProductCatalogEntry> findCatalog();
+    
     @Query("""
-        SELECT DISTINCT p
+        SELECT p
         FROM Product p
         LEFT JOIN FETCH p.stock
+        ORDER BY p.id
+    """)
+    List<Product> findAllWithStock();
+    
+    @Query("""
+        SELECT p
+        FROM Product p
+        LEFT JOIN FETCH p.stock
+        WHERE p.id IN :ids
+    """)
+    List<Product> findByIdInWithStock(@Param("ids") Collection<Long> ids);
+    
+    @Query("""
+        SELECT p
+        FROM Product p
         LEFT JOIN FETCH p.categories
+        WHERE p.id IN :ids
+    """)
+    List<Product> fetchCategories(@Param("ids") Collection<Long> ids);
+    
+    @Query("""
+        SELECT p
+        FROM Product p
         LEFT JOIN FETCH p.priceHistory
+        WHERE p.id IN :ids
     """)
-    List<Product> findAllWithStock();
+    List<Product> fetchPriceHistory(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * All products with stock, categories and price history.
+     * 
+     * Fetch-joining both collections in one query returns categories x price changes rows
+     * per product. Instead, products and stock are read first, then each collection with
+     * its own IN-list query. All queries share one persistence context, so the collections
+     * are attached to the already-loaded products.
+     */
+    @Transactional(readOnly = true)
+    default List<Product> findAllWithRelations() {
+        List<Product> products = findAllWithStock();
+        fetchCollections(products);
+        return products;
+    }
+    
+    @Transactional(readOnly = true)
+    default Optional<Product> findByIdWithAllRelations(Long id) {
+        List<Product> products = findByIdInWithStock(List.of(id));
+        fetchCollections(products);
+        return products.stream().findFirst();
+    }
+    
+    private void fetchCollections(List<Product> products) {
+        for (int from = 0; from < products.size(); from += IN_LIST_CHUNK_SIZE) {
+            List<Long> ids = products.subList(from, Math.min(products.size(), from + IN_LIST_CHUNK_SIZE)).stream()
+                    .map(Product::getId)
+                    .toList();
+            fetchCategories(ids);
+            fetchPriceHistory(ids);
+        }
+    }
+    
+    /**
+     * Keyset page: products after the given ID, in ID order.
+     * Seeks on the primary key, so deep pages cost the same as the first one.
+     */
+    @Query("""
+        SELECT p
+        FROM Product p
+        WHERE p.id > :afterId
+        ORDER BY p.id
+    """)
+    List<Product> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * IDs of the keyset page after the given ID; answered from the primary key index.
+     */
+    @Query("""
+        SELECT p.id
+        FROM Product p
+        WHERE p.id > :afterId
+        ORDER BY p.id
+    """)
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
     
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("""
@@ -31,13 +127,18 @@ public interface ProductTable extends JpaRepository<Product, Long> {
     """)
     Optional<Product> findByIdWithStock(@Param("id") Long id);
     
+    /**
+     * Lock several products with their stock in one query.
+     * Rows are locked in ID order so concurrent carts cannot deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("""
         SELECT p
         FROM Product p
-        LEFT JOIN FETCH p.stock
-        LEFT JOIN FETCH p.categories
-        LEFT JOIN FETCH p.priceHistory
-        WHERE p.id = :id
+        JOIN FETCH p.stock
+        WHERE p.id IN :ids
+        ORDER BY p.id
     """)
-    Optional<Product> findByIdWithAllRelations(@Param("id") Long id);
+    List<Product> findAllByIdWithStock(@Param("ids") Collection<Long> ids);
+    
 }
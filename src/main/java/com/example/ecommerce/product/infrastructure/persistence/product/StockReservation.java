@@ -0,0 +1,34 @@
+package com.example.ecommerce.product.infrastructure.persistence.product;
+
+import com.example.ecommerce.product.domain.Product;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of reserving a whole cart. Stock is only decremented when every product exists
+ * and has enough units; any other outcome leaves the stock as it was.
+ *
+ * @param products the reserved products keyed by ID, empty unless RESERVED
+ * @param missingIds products of the cart that do not exist, empty unless PRODUCT_MISSING
+ */
+public record StockReservation(Outcome outcome, Map<Long, Product> products, List<Long> missingIds) {
+
+    public enum Outcome {
+        RESERVED,
+        OUT_OF_STOCK,
+        PRODUCT_MISSING
+    }
+
+    public static StockReservation reserved(Map<Long, Product> products) {
+        return new StockReservation(Outcome.RESERVED, products, List.of());
+    }
+
+    public static StockReservation outOfStock() {
+        return new StockReservation(Outcome.OUT_OF_STOCK, Map.of(), List.of());
+    }
+
+    public static StockReservation productMissing(List<Long> missingIds) {
+        return new StockReservation(Outcome.PRODUCT_MISSING, Map.of(), missingIds);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.ecommerce.product.infrastructure.sync;
 
+import com.example.ecommerce.product.api.dto.ProductDTO;
 import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductDTOMapper;
 import com.example.ecommerce.product.infrastructure.persistence.product.ProductTable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -53,9 +55,11 @@ public class PopularProductRefreshJob {
                     Optional<Product> productOpt = productTable.findById(productId);
                     
                     if (productOpt.isPresent()) {
+                        // Same mapper as CachedProductRepository, which reads these entries
+                        ProductDTO dto = ProductDTOMapper.toDTO(productOpt.get());
                         redisTemplate.opsForValue().set(
                             cacheKey, 
-                            productOpt.get(), 
+                            dto, 
                             PRODUCT_CACHE_TTL_MINUTES, 
                             TimeUnit.MINUTES
                         );
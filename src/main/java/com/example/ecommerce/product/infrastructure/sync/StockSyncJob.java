@@ -1,79 +1,161 @@
-// package com.example.ecommerce.product.infrastructure.sync;
-
-// import com.example.ecommerce.product.domain.Product;
-// import com.example.ecommerce.product.infrastructure.persistence.product.ProductTable;
-// import com.example.ecommerce.product.infrastructure.persistence.stock.StockTable;
-// import lombok.RequiredArgsConstructor;
-// import lombok.extern.slf4j.Slf4j;
-// import org.springframework.data.redis.core.RedisTemplate;
-// import org.springframework.scheduling.annotation.Scheduled;
-// import org.springframework.stereotype.Component;
-// import org.springframework.transaction.annotation.Transactional;
-
-// import java.util.Set;
-
-// @Component
-// @RequiredArgsConstructor
-// @Slf4j
-// public class StockSyncJob {
-    
-//     private final RedisTemplate<String, Object> redisTemplate;
-//     private final ProductTable productTable;
-//     private final StockTable stockTable;
-    
-//     private static final String STOCK_KEY_PREFIX = "stock:";
-    
-//     @Scheduled(fixedRate = 120000) // Every 2 minutes
-//     @Transactional
-//     public void syncStockToDatabase() {
-//         log.info("Starting stock sync from Redis to Database...");
-        
-//         Set<String> stockKeys = redisTemplate.keys(STOCK_KEY_PREFIX + "*");
-        
-//         if (stockKeys == null || stockKeys.isEmpty()) {
-//             log.info("No stock keys found in Redis. Sync complete.");
-//             return;
-//         }
-        
-//         int syncedCount = 0;
-//         int errorCount = 0;
-        
-//         for (String key : stockKeys) {
-//             try {
-//                 Long productId = extractProductId(key);
-//                 if (productId == null) continue;
-                
-//                 Object stockValue = redisTemplate.opsForValue().get(key);
-//                 if (stockValue == null) continue;
-                
-//                 Integer currentStock = ((Number) stockValue).intValue();
-                
-//                 Product product = productTable.findById(productId).orElse(null);
-//                 if (product == null || product.getStock() == null) {
-//                     log.warn("Product {} or its stock not found, skipping", productId);
-//                     continue;
-//                 }
-                
-//                 Long stockId = product.getStock().getId();
-//                 stockTable.updateCurrentValue(stockId, currentStock);
-//                 syncedCount++;
-                
-//             } catch (Exception e) {
-//                 log.error("Error syncing stock for key {}: {}", key, e.getMessage());
-//                 errorCount++;
-//             }
-//         }
-        
-//         log.info("Stock sync complete. Synced: {}, Errors: {}", syncedCount, errorCount);
-//     }
-    
-//     private Long extractProductId(String key) {
-//         try {
-//             return Long.parseLong(key.replace(STOCK_KEY_PREFIX, ""));
-//         } catch (NumberFormatException e) {
-//             log.warn("Invalid stock key format: {}", key);
-//             return null;
-//         }
-//     }
-// }
+package com.example.ecommerce.product.infrastructure.sync;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Write-behind flusher for Redis stock counters.
+ *
+ * The stock Lua scripts add every decremented product ID to the dirty set {@value #DIRTY_STOCK_KEY}.
+ * Each cycle drains that set with SPOP batches, reads the counters with one MGET per batch
+ * and writes them with a single JDBC batch UPDATE. IDs of a failed batch are put back into the set.
+ *
+ * Metrics:
+ * - stock.sync.flush       - duration of a flush cycle
+ * - stock.sync.batch.size  - products written per cycle
+ * - stock.sync.failures    - failed batches
+ * - stock.sync.lag         - seconds since the last successful flush
+ * - stock.sync.backlog     - dirty products left after the last cycle
+ */
+@Component
+@Slf4j
+public class StockSyncJob {
+
+    public static final String DIRTY_STOCK_KEY = "stocks:dirty";
+
+    private static final String STOCK_KEY_PREFIX = "stock:";
+    private static final String UPDATE_STOCK_SQL =
+            "UPDATE stocks SET current_value = ? WHERE id = (SELECT stock_id FROM products WHERE id = ?)";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxPerCycle;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter failureCounter;
+
+    private volatile long lastSuccessfulFlush = System.currentTimeMillis();
+    private volatile long backlog;
+
+    public StockSyncJob(
+            RedisTemplate<String, Object> redisTemplate,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${stock.sync.batch-size:1000}") int batchSize,
+            @Value("${stock.sync.max-per-cycle:50000}") int maxPerCycle) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxPerCycle = maxPerCycle;
+
+        this.flushTimer = Timer.builder("stock.sync.flush").register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("stock.sync.batch.size").register(meterRegistry);
+        this.failureCounter = Counter.builder("stock.sync.failures").register(meterRegistry);
+        Gauge.builder("stock.sync.lag", this,
+                        job -> (System.currentTimeMillis() - job.lastSuccessfulFlush) / 1000.0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("stock.sync.backlog", this, job -> job.backlog).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.sync.interval-ms:5000}")
+    public void syncStockToDatabase() {
+        flushTimer.record(this::flush);
+    }
+
+    /**
+     * Flush whatever is still dirty so a graceful shutdown does not leave stock only in Redis.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing dirty stock before shutdown...");
+        flush();
+    }
+
+    private synchronized void flush() {
+        int flushed = 0;
+        boolean failed = false;
+
+        try {
+            while (flushed < maxPerCycle) {
+                // Step 1: Claim a batch of dirty product IDs
+                List<Object> claimed = redisTemplate.opsForSet().pop(DIRTY_STOCK_KEY, batchSize);
+                if (claimed == null || claimed.isEmpty()) {
+                    break;
+                }
+
+                // Step 2: Write the batch, returning the IDs to the set on failure
+                try {
+                    flushed += writeBatch(claimed);
+                } catch (RuntimeException e) {
+                    failed = true;
+                    failureCounter.increment();
+                    redisTemplate.opsForSet().add(DIRTY_STOCK_KEY, claimed.toArray());
+                    log.error("Stock sync failed for {} products, re-queued: {}", claimed.size(), e.getMessage());
+                    break;
+                }
+            }
+
+            Long remaining = redisTemplate.opsForSet().size(DIRTY_STOCK_KEY);
+            backlog = remaining != null ? remaining : 0;
+        } catch (RuntimeException e) {
+            failed = true;
+            failureCounter.increment();
+            log.error("Stock sync could not reach Redis: {}", e.getMessage());
+        }
+
+        batchSizeSummary.record(flushed);
+        if (!failed) {
+            lastSuccessfulFlush = System.currentTimeMillis();
+        }
+        if (flushed > 0) {
+            log.info("Stock sync complete. Flushed: {}, Backlog: {}", flushed, backlog);
+        }
+    }
+
+    private int writeBatch(List<Object> claimed) {
+        List<Long> productIds = claimed.stream()
+                .filter(Objects::nonNull)
+                .map(id -> Long.parseLong(id.toString()))
+                .toList();
+
+        List<String> stockKeys = productIds.stream().map(id -> STOCK_KEY_PREFIX + id).toList();
+        List<Object> values = redisTemplate.opsForValue().multiGet(stockKeys);
+        if (values == null) {
+            throw new IllegalStateException("MGET returned no reply");
+        }
+
+        // Counters that expired or were never cached have nothing to persist
+        List<Object[]> rows = new ArrayList<>(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            if (values.get(i) instanceof Number stock) {
+                rows.add(new Object[]{stock.intValue(), productIds.get(i)});
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_STOCK_SQL, rows));
+        }
+        return rows.size();
+    }
+}
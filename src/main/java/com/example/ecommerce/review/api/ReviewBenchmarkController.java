@@ -2,6 +2,8 @@ package com.example.ecommerce.review.api;
 
 import com.example.ecommerce.review.api.dto.ReviewCreateRequest;
 import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.example.ecommerce.review.api.dto.ReviewPageDTO;
+import com.example.ecommerce.review.api.dto.ReviewStatsDTO;
 import com.example.ecommerce.review.app.ReviewService;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
@@ -46,8 +48,17 @@ public class ReviewBenchmarkController {
     }
     
     @GetMapping("/db/reviews/product/{productId}")
-    public List<ReviewDTO> dbFindByProductId(@PathVariable Long productId) {
-        return dbReviewService.findByProductId(productId);
+    public ReviewPageDTO dbFindByProductId(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return dbReviewService.findByProductId(productId, sort, cursor, size);
+    }
+    
+    @GetMapping("/db/reviews/product/{productId}/count")
+    public Map<String, Object> dbCountByProductId(@PathVariable Long productId) {
+        return Map.of("productId", productId, "reviewCount", dbReviewService.countByProductId(productId));
     }
     
     @GetMapping("/db/reviews/user/{userId}")
@@ -56,12 +67,8 @@ public class ReviewBenchmarkController {
     }
     
     @GetMapping("/db/reviews/product/{productId}/stats")
-    public Map<String, Object> dbGetProductStats(@PathVariable Long productId) {
-        return Map.of(
-            "productId", productId,
-            "averageGrade", dbReviewService.getAverageGradeByProductId(productId),
-            "reviewCount", dbReviewService.getReviewCountByProductId(productId)
-        );
+    public ReviewStatsDTO dbGetProductStats(@PathVariable Long productId) {
+        return dbReviewService.getStatsByProductId(productId);
     }
     
     @PutMapping("/db/reviews/{id}")
@@ -96,8 +103,17 @@ public class ReviewBenchmarkController {
     }
     
     @GetMapping("/cached/reviews/product/{productId}")
-    public List<ReviewDTO> cachedFindByProductId(@PathVariable Long productId) {
-        return cachedReviewService.findByProductId(productId);
+    public ReviewPageDTO cachedFindByProductId(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return cachedReviewService.findByProductId(productId, sort, cursor, size);
+    }
+    
+    @GetMapping("/cached/reviews/product/{productId}/count")
+    public Map<String, Object> cachedCountByProductId(@PathVariable Long productId) {
+        return Map.of("productId", productId, "reviewCount", cachedReviewService.countByProductId(productId));
     }
     
     @GetMapping("/cached/reviews/user/{userId}")
@@ -106,12 +122,8 @@ public class ReviewBenchmarkController {
     }
     
     @GetMapping("/cached/reviews/product/{productId}/stats")
-    public Map<String, Object> cachedGetProductStats(@PathVariable Long productId) {
-        return Map.of(
-            "productId", productId,
-            "averageGrade", cachedReviewService.getAverageGradeByProductId(productId),
-            "reviewCount", cachedReviewService.getReviewCountByProductId(productId)
-        );
+    public ReviewStatsDTO cachedGetProductStats(@PathVariable Long productId) {
+        return cachedReviewService.getStatsByProductId(productId);
     }
     
     @PutMapping("/cached/reviews/{id}")
@@ -0,0 +1,15 @@
+package com.example.ecommerce.review.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReviewPageDTO {
+    private List<ReviewDTO> items;
+    private String nextCursor; // pass as "cursor" for the next page, null on the last page
+}
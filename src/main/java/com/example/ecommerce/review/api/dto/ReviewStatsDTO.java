@@ -0,0 +1,31 @@
+package com.example.ecommerce.review.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReviewStatsDTO {
+    private Long productId;
+    private Long reviewCount;
+    private Double averageGrade; // null when the product has no reviews
+    private Map<Integer, Long> gradeCounts; // grade (1-5) -> number of reviews
+
+    /**
+     * @param gradeCounts reviews per grade, 1 star first
+     */
+    public static ReviewStatsDTO of(Long productId, long reviewCount, long gradeSum, List<Long> gradeCounts) {
+        Map<Integer, Long> byGrade = new LinkedHashMap<>();
+        for (int grade = 1; grade <= gradeCounts.size(); grade++) {
+            byGrade.put(grade, gradeCounts.get(grade - 1));
+        }
+        Double average = reviewCount > 0 ? (double) gradeSum / reviewCount : null;
+        return new ReviewStatsDTO(productId, reviewCount, average, byGrade);
+    }
+}
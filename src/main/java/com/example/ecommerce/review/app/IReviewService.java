@@ -2,6 +2,8 @@ package com.example.ecommerce.review.app;
 
 import com.example.ecommerce.review.api.dto.ReviewCreateRequest;
 import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.example.ecommerce.review.api.dto.ReviewPageDTO;
+import com.example.ecommerce.review.api.dto.ReviewStatsDTO;
 import org.springframework.lang.NonNull;
 
 import java.util.List;
@@ -17,8 +19,15 @@ public interface IReviewService {
     @NonNull
     ReviewDTO findById(@NonNull Long id);
     
+    /**
+     * @param sort   "newest" or "grade"
+     * @param cursor nextCursor of the previous page, null for the first page
+     */
     @NonNull
-    List<ReviewDTO> findByProductId(@NonNull Long productId);
+    ReviewPageDTO findByProductId(@NonNull Long productId, @NonNull String sort, String cursor, int size);
+    
+    @NonNull
+    Long countByProductId(@NonNull Long productId);
     
     @NonNull
     List<ReviewDTO> findByUserId(@NonNull Long userId);
@@ -28,8 +37,7 @@ public interface IReviewService {
     
     void delete(@NonNull Long id);
     
-    Double getAverageGradeByProductId(@NonNull Long productId);
-    
-    Long getReviewCountByProductId(@NonNull Long productId);
+    @NonNull
+    ReviewStatsDTO getStatsByProductId(@NonNull Long productId);
 }
 
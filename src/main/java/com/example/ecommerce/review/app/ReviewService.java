@@ -4,8 +4,12 @@ import com.example.ecommerce.product.domain.Product;
 import com.example.ecommerce.product.infrastructure.persistence.product.ProductTable;
 import com.example.ecommerce.review.api.dto.ReviewCreateRequest;
 import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.example.ecommerce.review.api.dto.ReviewPageDTO;
+import com.example.ecommerce.review.api.dto.ReviewStatsDTO;
 import com.example.ecommerce.review.domain.Review;
 import com.example.ecommerce.review.infrastructure.persistence.review.IReviewRepository;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewCursor;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewSort;
 import com.example.ecommerce.user.domain.User;
 import com.example.ecommerce.user.infrastructure.persistence.user.UserTable;
 import org.springframework.http.HttpStatus;
@@ -17,6 +21,8 @@ import java.util.stream.Collectors;
 
 public class ReviewService implements IReviewService {
     
+    public static final int MAX_PAGE_SIZE = 200;
+    
     private final IReviewRepository reviewRepository;
     private final UserTable userTable;
     private final ProductTable productTable;
@@ -67,8 +73,30 @@ public class ReviewService implements IReviewService {
     
     @Override
     @NonNull
-    public List<ReviewDTO> findByProductId(@NonNull Long productId) {
-        return reviewRepository.findByProductIdDTO(productId);
+    public ReviewPageDTO findByProductId(@NonNull Long productId, @NonNull String sort, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
+        ReviewSort order;
+        ReviewCursor after;
+        try {
+            order = ReviewSort.fromParam(sort);
+            after = cursor == null || cursor.isBlank() ? ReviewCursor.FIRST : ReviewCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort or cursor");
+        }
+        
+        List<ReviewDTO> items = reviewRepository.findPageByProductIdDTO(productId, order, after, size);
+        String nextCursor = items.size() == size ? ReviewCursor.of(items.get(items.size() - 1)).encode() : null;
+        return new ReviewPageDTO(items, nextCursor);
+    }
+    
+    @Override
+    @NonNull
+    public Long countByProductId(@NonNull Long productId) {
+        return reviewRepository.getStatsByProductId(productId).getReviewCount();
     }
     
     @Override
@@ -100,13 +128,9 @@ public class ReviewService implements IReviewService {
     }
     
     @Override
-    public Double getAverageGradeByProductId(@NonNull Long productId) {
-        return reviewRepository.getAverageGradeByProductId(productId);
-    }
-    
-    @Override
-    public Long getReviewCountByProductId(@NonNull Long productId) {
-        return reviewRepository.countByProductId(productId);
+    @NonNull
+    public ReviewStatsDTO getStatsByProductId(@NonNull Long productId) {
+        return reviewRepository.getStatsByProductId(productId);
     }
     
     private void validateGrade(Integer grade) {
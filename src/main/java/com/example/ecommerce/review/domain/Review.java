@@ -1,5 +1,6 @@
 package com.example.ecommerce.review.domain;
 
+import com.example.ecommerce.common.config.IdSequences;
 import com.example.ecommerce.product.domain.Product;
 import com.example.ecommerce.user.domain.User;
 import com.fasterxml.jackson.annotation.JsonFormat;
@@ -20,12 +21,16 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_product_id_id", columnList = "product_id, id"),
+        @Index(name = "idx_reviews_product_id_grade_id", columnList = "product_id, grade, id")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Review implements Serializable {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reviews_seq")
+    @SequenceGenerator(name = "reviews_seq", sequenceName = "reviews_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 1000)
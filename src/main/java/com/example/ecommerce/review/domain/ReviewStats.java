@@ -0,0 +1,52 @@
+package com.example.ecommerce.review.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Review totals of one product, kept up to date on every review write so ratings are read
+ * by primary key instead of aggregated over the reviews table.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Table(name = "review_stats")
+public class ReviewStats {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "grade_sum", nullable = false)
+    private long gradeSum;
+
+    @Column(name = "grade_1_count", nullable = false)
+    private long grade1Count;
+
+    @Column(name = "grade_2_count", nullable = false)
+    private long grade2Count;
+
+    @Column(name = "grade_3_count", nullable = false)
+    private long grade3Count;
+
+    @Column(name = "grade_4_count", nullable = false)
+    private long grade4Count;
+
+    @Column(name = "grade_5_count", nullable = false)
+    private long grade5Count;
+
+    /**
+     * Reviews per grade, 1 star first.
+     */
+    public List<Long> gradeCounts() {
+        return List.of(grade1Count, grade2Count, grade3Count, grade4Count, grade5Count);
+    }
+}
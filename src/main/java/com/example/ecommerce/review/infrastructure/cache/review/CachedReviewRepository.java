@@ -1,16 +1,29 @@
 package com.example.ecommerce.review.infrastructure.cache.review;
 
+import com.example.ecommerce.common.cache.NegativeCache;
+import com.example.ecommerce.common.cache.SingleFlight;
 import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.example.ecommerce.review.api.dto.ReviewStatsDTO;
 import com.example.ecommerce.review.domain.Review;
+import com.example.ecommerce.review.domain.ReviewStats;
 import com.example.ecommerce.review.infrastructure.persistence.review.IReviewRepository;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewCursor;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewSort;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewStatsTable;
 import com.example.ecommerce.review.infrastructure.persistence.review.ReviewTable;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewWriter;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewWriter.ReviewWrite;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -23,8 +36,11 @@ import java.util.stream.Collectors;
  * 
  * Why Write-Around?
  * - Reviews are created occasionally but read frequently
- * - Product reviews are fetched as a list, not individually
- * - Better to cache by product_id (list of reviews) than individual reviews
+ * - Product reviews are fetched as pages, not individually
+ * - Better to cache by product_id (pages of reviews) than individual reviews
+ * 
+ * Review totals per product are the exception: every write adds its change to the cached
+ * totals ({@link ReviewStatsCache}) instead of invalidating them.
  */
 @Repository
 @Qualifier("cachedReviewRepository")
@@ -33,22 +49,31 @@ public class CachedReviewRepository implements IReviewRepository {
 
     private final ReviewTable reviewTable;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SingleFlight singleFlight;
+    private final NegativeCache negativeCache;
+    private final ReviewWriter reviewWriter;
+    private final ReviewStatsTable reviewStatsTable;
+    private final ReviewStatsCache reviewStatsCache;
     
     private static final String CACHE_KEY_PREFIX = "review:";
+    private static final String MISS_DOMAIN = "review";
     private static final String PRODUCT_REVIEWS_PREFIX = "reviews:product:";
+    private static final String PAGES_SUFFIX = ":pages";
+    private static final String LISTING_END = "end";
     private static final String USER_REVIEWS_PREFIX = "reviews:user:";
-    private static final String PRODUCT_AVG_PREFIX = "reviews:avg:";
-    private static final String PRODUCT_COUNT_PREFIX = "reviews:count:";
+    private static final String PRODUCT_STATS_PREFIX = "reviews:stats:";
     private static final long CACHE_TTL_MINUTES = 30;
 
     @Override
     @NonNull
     public Review create(@NonNull Review review) {
-        Review saved = reviewTable.save(review);
+        ReviewWrite write = reviewWriter.save(review);
+        Review saved = write.review();
+        negativeCache.clear(MISS_DOMAIN, saved.getId());
         
-        invalidateProductReviewsCache(saved.getProduct().getId());
+        evictPagesAt(write);
         invalidateUserReviewsCache(saved.getUser().getId());
-        invalidateProductStatsCache(saved.getProduct().getId());
+        reviewStatsCache.apply(write.productId(), write.change());
         
         return saved;
     }
@@ -79,8 +104,12 @@ public class CachedReviewRepository implements IReviewRepository {
             return reviewTable.findById(id);
         }
         
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
+        }
+        
         Optional<Review> reviewOpt = reviewTable.findById(id);
-        reviewOpt.ifPresent(this::cacheReview);
+        reviewOpt.ifPresentOrElse(this::cacheReview, () -> negativeCache.markMissing(MISS_DOMAIN, id));
         
         return reviewOpt;
     }
@@ -89,16 +118,22 @@ public class CachedReviewRepository implements IReviewRepository {
     @NonNull
     public Optional<ReviewDTO> findByIdDTO(@NonNull Long id) {
         String cacheKey = CACHE_KEY_PREFIX + id;
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        Optional<ReviewDTO> cached = getCachedDTO(cacheKey);
         
         if (cached != null) {
-            return Optional.of((ReviewDTO) cached);
+            return cached;
         }
         
-        Optional<Review> reviewOpt = reviewTable.findById(id);
-        reviewOpt.ifPresent(this::cacheReview);
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
+        }
         
-        return reviewOpt.map(this::reviewToDTO);
+        return singleFlight.loadOptional(cacheKey, () -> getCachedDTO(cacheKey), MISS_DOMAIN, id, () -> {
+            Optional<Review> reviewOpt = reviewTable.findById(id);
+            reviewOpt.ifPresentOrElse(this::cacheReview, () -> negativeCache.markMissing(MISS_DOMAIN, id));
+            
+            return reviewOpt.map(this::reviewToDTO);
+        });
     }
 
     @Override
@@ -107,28 +142,37 @@ public class CachedReviewRepository implements IReviewRepository {
         return reviewTable.findByProductId(productId);
     }
     
+    /**
+     * Keyset page, cached under reviews:product:{id}:{sort}:{cursor}:{size} until a write
+     * lands inside it (see {@link #evictPagesAt}).
+     */
     @Override
     @NonNull
-    @SuppressWarnings("unchecked")
-    public List<ReviewDTO> findByProductIdDTO(@NonNull Long productId) {
-        String cacheKey = PRODUCT_REVIEWS_PREFIX + productId;
-        List<ReviewDTO> cached = (List<ReviewDTO>) redisTemplate.opsForValue().get(cacheKey);
+    public List<ReviewDTO> findPageByProductIdDTO(@NonNull Long productId, @NonNull ReviewSort sort,
+                                                  @NonNull ReviewCursor after, int size) {
+        String pageKey = PRODUCT_REVIEWS_PREFIX + productId + ":" + sort.name().toLowerCase(Locale.ROOT)
+                + ":" + after.key() + ":" + size;
+        List<ReviewDTO> cached = getCachedList(pageKey);
         
         if (cached != null) {
             return cached;
         }
         
-        List<Review> reviews = reviewTable.findByProductId(productId);
-        
-        if (!reviews.isEmpty()) {
-            List<ReviewDTO> dtos = reviews.stream()
-                    .map(this::reviewToDTO)
-                    .collect(Collectors.toList());
-            redisTemplate.opsForValue().set(cacheKey, dtos, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
-            return dtos;
-        }
-        
-        return List.of();
+        return singleFlight.load(pageKey, () -> getCachedList(pageKey), () -> {
+            List<ReviewDTO> page = sort == ReviewSort.GRADE
+                    ? reviewTable.findPageByGrade(productId, after.grade(), after.id(), PageRequest.of(0, size))
+                    : reviewTable.findPageNewest(productId, after.id(), PageRequest.of(0, size));
+            
+            // A full page ends at its last review, a short one at the end of the listing
+            String end = page.size() == size ? ReviewCursor.of(page.get(page.size() - 1)).key() : LISTING_END;
+            String pagesKey = PRODUCT_REVIEWS_PREFIX + productId + PAGES_SUFFIX;
+            redisTemplate.opsForValue().set(pageKey, page, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+            redisTemplate.opsForHash().put(pagesKey, pageKey, sort.name() + "|" + after.key() + "|" + end);
+            // Every registered page expires before the registry does
+            redisTemplate.expire(pagesKey, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+            
+            return page;
+        });
     }
 
     @Override
@@ -139,85 +183,72 @@ public class CachedReviewRepository implements IReviewRepository {
     
     @Override
     @NonNull
-    @SuppressWarnings("unchecked")
     public List<ReviewDTO> findByUserIdDTO(@NonNull Long userId) {
         String cacheKey = USER_REVIEWS_PREFIX + userId;
-        List<ReviewDTO> cached = (List<ReviewDTO>) redisTemplate.opsForValue().get(cacheKey);
+        List<ReviewDTO> cached = getCachedList(cacheKey);
         
         if (cached != null) {
             return cached;
         }
         
-        List<Review> reviews = reviewTable.findByUserId(userId);
-        
-        if (!reviews.isEmpty()) {
-            List<ReviewDTO> dtos = reviews.stream()
-                    .map(this::reviewToDTO)
-                    .collect(Collectors.toList());
-            redisTemplate.opsForValue().set(cacheKey, dtos, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
-            return dtos;
-        }
-        
-        return List.of();
+        return singleFlight.load(cacheKey, () -> getCachedList(cacheKey), () -> {
+            List<Review> reviews = reviewTable.findByUserId(userId);
+            
+            if (!reviews.isEmpty()) {
+                List<ReviewDTO> dtos = reviews.stream()
+                        .map(this::reviewToDTO)
+                        .collect(Collectors.toList());
+                redisTemplate.opsForValue().set(cacheKey, dtos, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+                return dtos;
+            }
+            
+            return List.<ReviewDTO>of();
+        });
     }
 
     @Override
     @NonNull
     public Review update(@NonNull Review review) {
-        Review updated = reviewTable.save(review);
+        ReviewWrite write = reviewWriter.save(review);
+        Review updated = write.review();
         
         evictFromCache(updated.getId());
-        invalidateProductReviewsCache(updated.getProduct().getId());
+        evictPagesAt(write);
         invalidateUserReviewsCache(updated.getUser().getId());
-        invalidateProductStatsCache(updated.getProduct().getId());
+        reviewStatsCache.apply(write.productId(), write.change());
         
         return updated;
     }
 
     @Override
     public void delete(@NonNull Long id) {
-        Optional<Review> reviewOpt = reviewTable.findById(id);
-        reviewTable.deleteById(id);
+        Optional<ReviewWrite> deleted = reviewWriter.delete(id);
         
         evictFromCache(id);
-        reviewOpt.ifPresent(review -> {
-            invalidateProductReviewsCache(review.getProduct().getId());
-            invalidateUserReviewsCache(review.getUser().getId());
-            invalidateProductStatsCache(review.getProduct().getId());
+        deleted.ifPresent(write -> {
+            evictPagesAt(write);
+            invalidateUserReviewsCache(write.review().getUser().getId());
+            reviewStatsCache.apply(write.productId(), write.change());
         });
     }
 
     @Override
-    public Double getAverageGradeByProductId(@NonNull Long productId) {
-        String cacheKey = PRODUCT_AVG_PREFIX + productId;
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
-        
-        if (cached != null) {
-            return ((Number) cached).doubleValue();
-        }
-        
-        Double avg = reviewTable.getAverageGradeByProductId(productId);
-        
-        if (avg != null) {
-            redisTemplate.opsForValue().set(cacheKey, avg, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
-        }
-        
-        return avg;
-    }
-
-    @Override
-    public Long countByProductId(@NonNull Long productId) {
-        String cacheKey = PRODUCT_COUNT_PREFIX + productId;
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
+    @NonNull
+    public ReviewStatsDTO getStatsByProductId(@NonNull Long productId) {
+        ReviewStats cached = reviewStatsCache.get(productId);
         
-        if (cached != null) {
-            return ((Number) cached).longValue();
+        if (cached == null) {
+            // Cache miss - primary key read of the summary table, once for all concurrent misses
+            cached = singleFlight.load(PRODUCT_STATS_PREFIX + productId, () -> reviewStatsCache.get(productId), () -> {
+                long epoch = reviewStatsCache.epoch(productId);
+                ReviewStats stats = reviewStatsTable.findById(productId)
+                        .orElseGet(() -> new ReviewStats(productId, 0, 0, 0, 0, 0, 0, 0));
+                reviewStatsCache.fill(productId, epoch, stats);
+                return stats;
+            });
         }
         
-        Long count = reviewTable.countByProductId(productId);
-        redisTemplate.opsForValue().set(cacheKey, count, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
-        
-        return count;
+        return ReviewStatsDTO.of(productId, cached.getReviewCount(), cached.getGradeSum(), cached.gradeCounts());
     }
 
     @Override
@@ -225,6 +256,19 @@ public class CachedReviewRepository implements IReviewRepository {
         return reviewTable.existsByUserIdAndProductId(userId, productId);
     }
     
+    /**
+     * The cached review, or null on a cache miss.
+     */
+    private Optional<ReviewDTO> getCachedDTO(String cacheKey) {
+        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        return cached != null ? Optional.of((ReviewDTO) cached) : null;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<ReviewDTO> getCachedList(String cacheKey) {
+        return (List<ReviewDTO>) redisTemplate.opsForValue().get(cacheKey);
+    }
+    
     private void cacheReview(Review review) {
         String cacheKey = CACHE_KEY_PREFIX + review.getId();
         ReviewDTO dto = reviewToDTO(review);
@@ -235,19 +279,49 @@ public class CachedReviewRepository implements IReviewRepository {
         redisTemplate.delete(CACHE_KEY_PREFIX + id);
     }
     
-    private void invalidateProductReviewsCache(Long productId) {
-        redisTemplate.delete(PRODUCT_REVIEWS_PREFIX + productId);
+    /**
+     * Drop the cached pages of the written review's product that hold its old or new position.
+     * 
+     * Each cached page is registered in reviews:product:{id}:pages with the range it covers:
+     * from its cursor to its last review, or to the end of the listing for a short page. Pages
+     * elsewhere in the listing do not change, since a keyset page is defined by its cursor.
+     * A new review therefore drops the first page of the newest-first listing (and the page
+     * of its grade in the by-grade listing), not every page.
+     */
+    private void evictPagesAt(ReviewWrite write) {
+        Review review = write.review();
+        List<ReviewCursor> positions = new ArrayList<>(2);
+        positions.add(new ReviewCursor(review.getGrade(), review.getId()));
+        if (write.previousGrade() != null && !write.previousGrade().equals(review.getGrade())) {
+            positions.add(new ReviewCursor(write.previousGrade(), review.getId()));
+        }
+        
+        String pagesKey = PRODUCT_REVIEWS_PREFIX + write.productId() + PAGES_SUFFIX;
+        Map<Object, Object> pages = redisTemplate.opsForHash().entries(pagesKey);
+        List<String> stale = new ArrayList<>();
+        for (Map.Entry<Object, Object> page : pages.entrySet()) {
+            String[] range = String.valueOf(page.getValue()).split("\\|");
+            ReviewSort sort = ReviewSort.valueOf(range[0]);
+            ReviewCursor start = ReviewCursor.parse(range[1]);
+            ReviewCursor end = LISTING_END.equals(range[2]) ? null : ReviewCursor.parse(range[2]);
+            
+            boolean covered = positions.stream().anyMatch(position ->
+                    start.precedes(sort, position) && (end == null || !end.precedes(sort, position)));
+            if (covered) {
+                stale.add(String.valueOf(page.getKey()));
+            }
+        }
+        
+        if (!stale.isEmpty()) {
+            redisTemplate.delete(stale);
+            redisTemplate.opsForHash().delete(pagesKey, stale.toArray());
+        }
     }
     
     private void invalidateUserReviewsCache(Long userId) {
         redisTemplate.delete(USER_REVIEWS_PREFIX + userId);
     }
     
-    private void invalidateProductStatsCache(Long productId) {
-        redisTemplate.delete(PRODUCT_AVG_PREFIX + productId);
-        redisTemplate.delete(PRODUCT_COUNT_PREFIX + productId);
-    }
-    
     private ReviewDTO reviewToDTO(Review review) {
         return new ReviewDTO(
             review.getId(),
@@ -0,0 +1,121 @@
+package com.example.ecommerce.review.infrastructure.cache.review;
+
+import com.example.ecommerce.common.config.RedisScriptRegistry;
+import com.example.ecommerce.review.domain.ReviewStats;
+import com.example.ecommerce.review.infrastructure.persistence.review.GradeChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Review totals of each product (count, grade sum, reviews per grade), kept in Redis as a hash.
+ *
+ * Every review write adds its change to the hash with HINCRBY, so ratings stay cached across
+ * writes instead of being dropped and aggregated again. A missing hash is loaded from the
+ * review_stats summary table on the next read and expires after the TTL; increments do not
+ * extend it, so a hash that drifted from the table is replaced within one TTL.
+ *
+ * Each product also has an epoch counter, bumped by every write. A load stores its result
+ * only if the epoch has not moved since it started, the same scheme as {@code OrderHistoryCache}.
+ */
+@Component
+@Slf4j
+public class ReviewStatsCache {
+
+    private static final String KEY_PREFIX = "reviews:stats:";
+    private static final String EPOCH_SUFFIX = ":epoch";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisScriptRegistry scriptRegistry;
+    private final Duration ttl;
+
+    public ReviewStatsCache(
+            RedisTemplate<String, Object> redisTemplate,
+            RedisScriptRegistry scriptRegistry,
+            @Value("${review.stats.ttl-minutes:60}") long ttlMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.scriptRegistry = scriptRegistry;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * The cached totals, or null when they are not cached.
+     */
+    @Nullable
+    public ReviewStats get(@NonNull Long productId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(key(productId));
+        if (fields.isEmpty()) {
+            return null;
+        }
+        return new ReviewStats(
+                productId,
+                number(fields, "count"),
+                number(fields, "sum"),
+                number(fields, "1"),
+                number(fields, "2"),
+                number(fields, "3"),
+                number(fields, "4"),
+                number(fields, "5")
+        );
+    }
+
+    /**
+     * Read before loading totals from the database, and pass to {@link #fill}.
+     */
+    public long epoch(@NonNull Long productId) {
+        Object epoch = redisTemplate.opsForValue().get(key(productId) + EPOCH_SUFFIX);
+        return epoch != null ? ((Number) epoch).longValue() : 0;
+    }
+
+    /**
+     * Store totals loaded from the database, unless a review of the product was written since
+     * {@link #epoch} was read.
+     */
+    public void fill(@NonNull Long productId, long epoch, @NonNull ReviewStats stats) {
+        List<Object> args = new ArrayList<>(9);
+        args.add(epoch);
+        args.add(ttl.toMillis());
+        args.add(stats.getReviewCount());
+        args.add(stats.getGradeSum());
+        args.addAll(stats.gradeCounts());
+
+        Long stored = scriptRegistry.execute(RedisScriptRegistry.REVIEW_STATS_FILL, Long.class,
+                List.of(key(productId), key(productId) + EPOCH_SUFFIX), args.toArray());
+        if (stored == null || stored == 0) {
+            log.debug("Review stats of product {} changed while loading, not cached", productId);
+        }
+    }
+
+    /**
+     * Add a committed review write to the product's totals, if they are cached.
+     */
+    public void apply(@NonNull Long productId, @NonNull GradeChange change) {
+        List<Object> args = new ArrayList<>(8);
+        args.add(ttl.toMillis());
+        args.add(change.countDelta());
+        args.add(change.sumDelta());
+        for (long delta : change.gradeDeltas()) {
+            args.add(delta);
+        }
+
+        scriptRegistry.execute(RedisScriptRegistry.REVIEW_STATS_APPLY, Long.class,
+                List.of(key(productId), key(productId) + EPOCH_SUFFIX), args.toArray());
+    }
+
+    private static long number(Map<Object, Object> fields, String field) {
+        Object value = fields.get(field);
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
+    private static String key(Long productId) {
+        return KEY_PREFIX + productId;
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.ecommerce.review.infrastructure.persistence.review;
 
 import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.example.ecommerce.review.api.dto.ReviewStatsDTO;
 import com.example.ecommerce.review.domain.Review;
+import com.example.ecommerce.review.domain.ReviewStats;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
@@ -17,11 +20,13 @@ import java.util.stream.Collectors;
 public class DatabaseReviewRepository implements IReviewRepository {
 
     private final ReviewTable reviewTable;
+    private final ReviewStatsTable reviewStatsTable;
+    private final ReviewWriter reviewWriter;
 
     @Override
     @NonNull
     public Review create(@NonNull Review review) {
-        return reviewTable.save(review);
+        return reviewWriter.save(review).review();
     }
 
     @Override
@@ -58,10 +63,11 @@ public class DatabaseReviewRepository implements IReviewRepository {
     
     @Override
     @NonNull
-    public List<ReviewDTO> findByProductIdDTO(@NonNull Long productId) {
-        return reviewTable.findByProductId(productId).stream()
-                .map(this::reviewToDTO)
-                .collect(Collectors.toList());
+    public List<ReviewDTO> findPageByProductIdDTO(@NonNull Long productId, @NonNull ReviewSort sort,
+                                                  @NonNull ReviewCursor after, int size) {
+        return sort == ReviewSort.GRADE
+                ? reviewTable.findPageByGrade(productId, after.grade(), after.id(), PageRequest.of(0, size))
+                : reviewTable.findPageNewest(productId, after.id(), PageRequest.of(0, size));
     }
 
     @Override
@@ -81,22 +87,20 @@ public class DatabaseReviewRepository implements IReviewRepository {
     @Override
     @NonNull
     public Review update(@NonNull Review review) {
-        return reviewTable.save(review);
+        return reviewWriter.save(review).review();
     }
 
     @Override
     public void delete(@NonNull Long id) {
-        reviewTable.deleteById(id);
-    }
-
-    @Override
-    public Double getAverageGradeByProductId(@NonNull Long productId) {
-        return reviewTable.getAverageGradeByProductId(productId);
+        reviewWriter.delete(id);
     }
 
     @Override
-    public Long countByProductId(@NonNull Long productId) {
-        return reviewTable.countByProductId(productId);
+    @NonNull
+    public ReviewStatsDTO getStatsByProductId(@NonNull Long productId) {
+        ReviewStats stats = reviewStatsTable.findById(productId)
+                .orElseGet(() -> new ReviewStats(productId, 0, 0, 0, 0, 0, 0, 0));
+        return ReviewStatsDTO.of(productId, stats.getReviewCount(), stats.getGradeSum(), stats.gradeCounts());
     }
 
     @Override
@@ -0,0 +1,38 @@
+package com.example.ecommerce.review.infrastructure.persistence.review;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * What one review write changes in its product's review totals.
+ *
+ * @param gradeDeltas change per grade, 1 star first
+ */
+public record GradeChange(long countDelta, long sumDelta, long[] gradeDeltas) {
+
+    public static final int MAX_GRADE = 5;
+
+    /**
+     * @param removedGrade grade of the review before the write, null for a new review
+     * @param addedGrade   grade after the write, null for a deleted review
+     */
+    public static GradeChange of(@Nullable Integer removedGrade, @Nullable Integer addedGrade) {
+        long count = 0;
+        long sum = 0;
+        long[] grades = new long[MAX_GRADE];
+        if (removedGrade != null) {
+            count--;
+            sum -= removedGrade;
+            grades[removedGrade - 1]--;
+        }
+        if (addedGrade != null) {
+            count++;
+            sum += addedGrade;
+            grades[addedGrade - 1]++;
+        }
+        return new GradeChange(count, sum, grades);
+    }
+
+    public boolean isEmpty() {
+        return countDelta == 0 && sumDelta == 0;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.ecommerce.review.infrastructure.persistence.review;
 
 import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.example.ecommerce.review.api.dto.ReviewStatsDTO;
 import com.example.ecommerce.review.domain.Review;
 import org.springframework.lang.NonNull;
 
@@ -27,8 +28,12 @@ public interface IReviewRepository {
     @NonNull
     List<Review> findByProductId(@NonNull Long productId);
     
+    /**
+     * One page of a product's reviews: the first {@code size} after {@code after} in {@code sort} order.
+     */
     @NonNull
-    List<ReviewDTO> findByProductIdDTO(@NonNull Long productId);
+    List<ReviewDTO> findPageByProductIdDTO(@NonNull Long productId, @NonNull ReviewSort sort,
+                                           @NonNull ReviewCursor after, int size);
     
     @NonNull
     List<Review> findByUserId(@NonNull Long userId);
@@ -41,9 +46,8 @@ public interface IReviewRepository {
     
     void delete(@NonNull Long id);
     
-    Double getAverageGradeByProductId(@NonNull Long productId);
-    
-    Long countByProductId(@NonNull Long productId);
+    @NonNull
+    ReviewStatsDTO getStatsByProductId(@NonNull Long productId);
     
     boolean existsByUserAndProduct(@NonNull Long userId, @NonNull Long productId);
 }
@@ -0,0 +1,62 @@
+package com.example.ecommerce.review.infrastructure.persistence.review;
+
+import com.example.ecommerce.review.api.dto.ReviewDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a product's review listing: a page holds the reviews that come after its cursor.
+ *
+ * Clients see it as an opaque base64 token, so the format can change without an API change.
+ */
+public record ReviewCursor(int grade, long id) {
+
+    /**
+     * Before every review, in either sort.
+     */
+    public static final ReviewCursor FIRST = new ReviewCursor(GradeChange.MAX_GRADE + 1, Long.MAX_VALUE);
+
+    public static ReviewCursor of(ReviewDTO review) {
+        return new ReviewCursor(review.getGrade(), review.getId());
+    }
+
+    /**
+     * True when this position comes before {@code other} in the listing.
+     */
+    public boolean precedes(ReviewSort sort, ReviewCursor other) {
+        if (sort == ReviewSort.GRADE && grade != other.grade) {
+            return grade > other.grade;
+        }
+        return id > other.id;
+    }
+
+    /**
+     * Readable form, "grade:id", used in cache keys.
+     */
+    public String key() {
+        return grade + ":" + id;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the key is malformed
+     */
+    public static ReviewCursor parse(String key) {
+        int separator = key.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed review cursor");
+        }
+        return new ReviewCursor(Integer.parseInt(key.substring(0, separator)), Long.parseLong(key.substring(separator + 1)));
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the token was not produced by {@link #encode}
+     */
+    public static ReviewCursor decode(String token) {
+        return parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+    }
+}
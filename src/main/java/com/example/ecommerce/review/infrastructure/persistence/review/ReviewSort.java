@@ -0,0 +1,18 @@
+package com.example.ecommerce.review.infrastructure.persistence.review;
+
+import java.util.Locale;
+
+/**
+ * Order of a product's review listing. Both end on the review ID, so every position is unique.
+ */
+public enum ReviewSort {
+    NEWEST,  // id descending
+    GRADE;   // grade descending, then id descending
+
+    /**
+     * @throws IllegalArgumentException for an unknown sort
+     */
+    public static ReviewSort fromParam(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
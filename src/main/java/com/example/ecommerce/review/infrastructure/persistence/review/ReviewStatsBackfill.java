@@ -0,0 +1,52 @@
+package com.example.ecommerce.review.infrastructure.persistence.review;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills the review_stats summary table from the reviews table.
+ *
+ * Runs when the summary table is empty but reviews exist (first start after the table was
+ * added), or on every start with review.stats.rebuild-on-startup, to repair totals after
+ * reviews were changed outside the application. Cached totals pick up a rebuild when they expire.
+ */
+@Component
+@Slf4j
+public class ReviewStatsBackfill implements ApplicationRunner {
+
+    private final ReviewTable reviewTable;
+    private final ReviewStatsTable reviewStatsTable;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean rebuildOnStartup;
+
+    public ReviewStatsBackfill(
+            ReviewTable reviewTable,
+            ReviewStatsTable reviewStatsTable,
+            TransactionTemplate transactionTemplate,
+            @Value("${review.stats.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.reviewTable = reviewTable;
+        this.reviewStatsTable = reviewStatsTable;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!rebuildOnStartup && (reviewStatsTable.count() > 0 || reviewTable.count() == 0)) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int[] rows = new int[2];
+        transactionTemplate.executeWithoutResult(status -> {
+            rows[0] = reviewStatsTable.rebuildAll();
+            rows[1] = reviewStatsTable.deleteWithoutReviews();
+        });
+        log.info("Rebuilt review stats of {} products ({} removed) in {} ms",
+                rows[0], rows[1], System.currentTimeMillis() - start);
+    }
+}
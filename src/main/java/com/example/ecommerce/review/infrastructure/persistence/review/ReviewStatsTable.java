@@ -0,0 +1,71 @@
+package com.example.ecommerce.review.infrastructure.persistence.review;
+
+import com.example.ecommerce.review.domain.ReviewStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ReviewStatsTable extends JpaRepository<ReviewStats, Long> {
+
+    /**
+     * Add a review write to its product's totals. Must run in the transaction of the write.
+     */
+    default void apply(Long productId, GradeChange change) {
+        if (change.isEmpty()) {
+            return;
+        }
+        long[] grades = change.gradeDeltas();
+        applyDelta(productId, change.countDelta(), change.sumDelta(),
+                grades[0], grades[1], grades[2], grades[3], grades[4]);
+    }
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO review_stats (product_id, review_count, grade_sum,
+                grade_1_count, grade_2_count, grade_3_count, grade_4_count, grade_5_count)
+            VALUES (:productId, :count, :sum, :g1, :g2, :g3, :g4, :g5)
+            ON CONFLICT (product_id) DO UPDATE SET
+                review_count = review_stats.review_count + EXCLUDED.review_count,
+                grade_sum = review_stats.grade_sum + EXCLUDED.grade_sum,
+                grade_1_count = review_stats.grade_1_count + EXCLUDED.grade_1_count,
+                grade_2_count = review_stats.grade_2_count + EXCLUDED.grade_2_count,
+                grade_3_count = review_stats.grade_3_count + EXCLUDED.grade_3_count,
+                grade_4_count = review_stats.grade_4_count + EXCLUDED.grade_4_count,
+                grade_5_count = review_stats.grade_5_count + EXCLUDED.grade_5_count
+            """, nativeQuery = true)
+    void applyDelta(@Param("productId") Long productId, @Param("count") long count, @Param("sum") long sum,
+                    @Param("g1") long g1, @Param("g2") long g2, @Param("g3") long g3,
+                    @Param("g4") long g4, @Param("g5") long g5);
+
+    /**
+     * Recompute the totals of every product from the reviews table.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO review_stats (product_id, review_count, grade_sum,
+                grade_1_count, grade_2_count, grade_3_count, grade_4_count, grade_5_count)
+            SELECT product_id, COUNT(*), SUM(grade),
+                COUNT(*) FILTER (WHERE grade = 1), COUNT(*) FILTER (WHERE grade = 2),
+                COUNT(*) FILTER (WHERE grade = 3), COUNT(*) FILTER (WHERE grade = 4),
+                COUNT(*) FILTER (WHERE grade = 5)
+            FROM reviews
+            GROUP BY product_id
+            ON CONFLICT (product_id) DO UPDATE SET
+                review_count = EXCLUDED.review_count,
+                grade_sum = EXCLUDED.grade_sum,
+                grade_1_count = EXCLUDED.grade_1_count,
+                grade_2_count = EXCLUDED.grade_2_count,
+                grade_3_count = EXCLUDED.grade_3_count,
+                grade_4_count = EXCLUDED.grade_4_count,
+                grade_5_count = EXCLUDED.grade_5_count
+            """, nativeQuery = true)
+    int rebuildAll();
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM review_stats s
+            WHERE NOT EXISTS (SELECT 1 FROM reviews r WHERE r.product_id = s.product_id)
+            """, nativeQuery = true)
+    int deleteWithoutReviews();
+}
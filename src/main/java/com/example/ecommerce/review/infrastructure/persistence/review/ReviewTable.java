@@ -1,6 +1,8 @@
 package com.example.ecommerce.review.infrastructure.persistence.review;
 
+import com.example.ecommerce.review.api.dto.ReviewDTO;
 import com.example.ecommerce.review.domain.Review;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,14 +14,27 @@ public interface ReviewTable extends JpaRepository<Review, Long> {
     @Query("SELECT r FROM Review r JOIN FETCH r.user JOIN FETCH r.product WHERE r.product.id = :productId")
     List<Review> findByProductId(@Param("productId") Long productId);
     
+    @Query("SELECT new com.example.ecommerce.review.api.dto.ReviewDTO(r.id, r.comment, r.grade, u.id, u.username, p.id, p.name, r.createdAt) " +
+           "FROM Review r JOIN r.user u JOIN r.product p " +
+           "WHERE p.id = :productId AND r.id < :beforeId " +
+           "ORDER BY r.id DESC")
+    List<ReviewDTO> findPageNewest(@Param("productId") Long productId, @Param("beforeId") long beforeId, Pageable pageable);
+    
+    @Query("SELECT new com.example.ecommerce.review.api.dto.ReviewDTO(r.id, r.comment, r.grade, u.id, u.username, p.id, p.name, r.createdAt) " +
+           "FROM Review r JOIN r.user u JOIN r.product p " +
+           "WHERE p.id = :productId AND (r.grade < :grade OR (r.grade = :grade AND r.id < :beforeId)) " +
+           "ORDER BY r.grade DESC, r.id DESC")
+    List<ReviewDTO> findPageByGrade(@Param("productId") Long productId, @Param("grade") int grade,
+                                    @Param("beforeId") long beforeId, Pageable pageable);
+    
     @Query("SELECT r FROM Review r JOIN FETCH r.user JOIN FETCH r.product WHERE r.user.id = :userId")
     List<Review> findByUserId(@Param("userId") Long userId);
     
-    @Query("SELECT AVG(r.grade) FROM Review r WHERE r.product.id = :productId")
-    Double getAverageGradeByProductId(@Param("productId") Long productId);
-    
-    @Query("SELECT COUNT(r) FROM Review r WHERE r.product.id = :productId")
-    Long countByProductId(@Param("productId") Long productId);
+    /**
+     * Current grade of a review, locking its row until the transaction ends.
+     */
+    @Query(value = "SELECT grade FROM reviews WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Integer findGradeForUpdate(@Param("id") Long id);
     
     boolean existsByUserIdAndProductId(Long userId, Long productId);
 }
@@ -0,0 +1,75 @@
+package com.example.ecommerce.review.infrastructure.persistence.review;
+
+import com.example.ecommerce.review.domain.Review;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Writes reviews together with their product's review_stats row, in one transaction, so the
+ * summary table never disagrees with the reviews table. Used by every review repository.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReviewWriter {
+
+    private final ReviewTable reviewTable;
+    private final ReviewStatsTable reviewStatsTable;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * A committed write and what it changed in the product's totals.
+     *
+     * @param previousGrade grade before the write, null for a new review
+     */
+    public record ReviewWrite(Review review, Long productId, Integer previousGrade, GradeChange change) {
+    }
+
+    /**
+     * Insert or update a review; an update moves it from its current grade to the new one.
+     *
+     * The current grade is read from the locked row, not from the entity: the entity may have
+     * been loaded before a concurrent update committed, and counting its grade would remove
+     * the wrong one from the totals.
+     */
+    @NonNull
+    public ReviewWrite save(@NonNull Review review) {
+        return Objects.requireNonNull(transactionTemplate.execute(status -> {
+            Integer previousGrade = review.getId() != null ? reviewTable.findGradeForUpdate(review.getId()) : null;
+
+            Review saved = reviewTable.save(review);
+            Long productId = saved.getProduct().getId();
+            GradeChange change = GradeChange.of(previousGrade, saved.getGrade());
+            reviewStatsTable.apply(productId, change);
+            return new ReviewWrite(saved, productId, previousGrade, change);
+        }));
+    }
+
+    /**
+     * Delete a review and remove its grade from the totals.
+     *
+     * @return the deleted review, empty if it did not exist
+     */
+    @NonNull
+    public Optional<ReviewWrite> delete(@NonNull Long id) {
+        return Objects.requireNonNull(transactionTemplate.execute(status -> {
+            // Lock first, so a concurrent update cannot change the grade being removed
+            Integer grade = reviewTable.findGradeForUpdate(id);
+            if (grade == null) {
+                return Optional.<ReviewWrite>empty();
+            }
+            Optional<Review> reviewOpt = reviewTable.findById(id);
+            reviewOpt.ifPresent(reviewTable::delete);
+            return reviewOpt.map(review -> {
+                Long productId = review.getProduct().getId();
+                GradeChange change = GradeChange.of(grade, null);
+                reviewStatsTable.apply(productId, change);
+                return new ReviewWrite(review, productId, grade, change);
+            });
+        }));
+    }
+}
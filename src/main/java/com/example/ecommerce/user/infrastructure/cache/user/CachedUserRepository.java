@@ -6,13 +6,17 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import com.example.ecommerce.common.cache.NegativeCache;
+import com.example.ecommerce.common.cache.SingleFlight;
 import com.example.ecommerce.user.api.dto.UserDTO;
 import com.example.ecommerce.user.domain.User;
 import com.example.ecommerce.user.infrastructure.persistence.user.IUserRepository;
+import com.example.ecommerce.user.infrastructure.persistence.user.UserDTOMapper;
 import com.example.ecommerce.user.infrastructure.persistence.user.UserTable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
@@ -23,8 +27,11 @@ public class CachedUserRepository implements IUserRepository {
     
     private final UserTable userTable;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final SingleFlight singleFlight;
+    private final NegativeCache negativeCache;
     
     private static final String CACHE_KEY_PREFIX = "user:";
+    private static final String MISS_DOMAIN = "user";
     private static final String USERNAME_KEY_PREFIX = "user:username:";
     private static final String ALL_USERS_KEY = "users:all";
     
@@ -33,6 +40,7 @@ public class CachedUserRepository implements IUserRepository {
     @NonNull
     public User create(@NonNull User user) {
         User saved = userTable.save(user);
+        negativeCache.clear(MISS_DOMAIN, saved.getId());
         cacheUser(saved);
         invalidateAllUsersCache();
         return saved;
@@ -48,26 +56,27 @@ public class CachedUserRepository implements IUserRepository {
     
     @Override
     @NonNull
-    @SuppressWarnings("unchecked")
     public List<UserDTO> findAllDTO() {
-        List<UserDTO> cached = (List<UserDTO>) redisTemplate.opsForValue().get(ALL_USERS_KEY);
+        List<UserDTO> cached = getCachedAllDTO();
         
         if (cached != null) {
             return cached;
         }
         
-        List<User> users = userTable.findAll();
-        
-        if (!users.isEmpty()) {
-            List<UserDTO> dtos = users.stream()
-                    .map(this::userToDTO)
-                    .collect(Collectors.toList());
-            redisTemplate.opsForValue().set(ALL_USERS_KEY, dtos);
-            users.forEach(this::cacheUser);
-            return dtos;
-        }
-        
-        return List.of();
+        return singleFlight.load(ALL_USERS_KEY, this::getCachedAllDTO, () -> {
+            List<User> users = userTable.findAll();
+            
+            if (!users.isEmpty()) {
+                List<UserDTO> dtos = users.stream()
+                        .map(UserDTOMapper::toDTO)
+                        .collect(Collectors.toList());
+                redisTemplate.opsForValue().set(ALL_USERS_KEY, dtos);
+                users.forEach(this::cacheUser);
+                return dtos;
+            }
+            
+            return List.<UserDTO>of();
+        });
     }
     
     @Override
@@ -78,12 +87,17 @@ public class CachedUserRepository implements IUserRepository {
         
         if (cached != null) {
             UserDTO dto = (UserDTO) cached;
-            return Optional.of(dtoToUser(dto));
+            return Optional.of(UserDTOMapper.toUser(dto));
+        }
+        
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
         }
         
+        // Not coalesced: callers modify and save the fully loaded entity
         Optional<User> userOpt = userTable.findById(id);
         
-        userOpt.ifPresent(this::cacheUser);
+        userOpt.ifPresentOrElse(this::cacheUser, () -> negativeCache.markMissing(MISS_DOMAIN, id));
         
         return userOpt;
     }
@@ -98,11 +112,11 @@ public class CachedUserRepository implements IUserRepository {
             return Optional.of((UserDTO) cached);
         }
         
-        Optional<User> userOpt = userTable.findById(id);
-        
-        userOpt.ifPresent(this::cacheUser);
+        if (negativeCache.isMissing(MISS_DOMAIN, id)) {
+            return Optional.empty();
+        }
         
-        return userOpt.map(this::userToDTO);
+        return loadById(id);
     }
     
     @Override
@@ -142,9 +156,31 @@ public class CachedUserRepository implements IUserRepository {
         invalidateAllUsersCache();
     }
     
+    /**
+     * Cache miss path for one user; concurrent misses share a single database read.
+     */
+    private Optional<UserDTO> loadById(Long id) {
+        String cacheKey = CACHE_KEY_PREFIX + id;
+        Supplier<Optional<UserDTO>> cacheLookup = () -> {
+            Object cached = redisTemplate.opsForValue().get(cacheKey);
+            return cached != null ? Optional.of((UserDTO) cached) : null;
+        };
+        
+        return singleFlight.loadOptional(cacheKey, cacheLookup, MISS_DOMAIN, id, () -> {
+            Optional<User> userOpt = userTable.findById(id);
+            userOpt.ifPresentOrElse(this::cacheUser, () -> negativeCache.markMissing(MISS_DOMAIN, id));
+            return userOpt.map(UserDTOMapper::toDTO);
+        });
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<UserDTO> getCachedAllDTO() {
+        return (List<UserDTO>) redisTemplate.opsForValue().get(ALL_USERS_KEY);
+    }
+    
     private void cacheUser(User user) {
         String cacheKey = CACHE_KEY_PREFIX + user.getId();
-        UserDTO dto = userToDTO(user);
+        UserDTO dto = UserDTOMapper.toDTO(user);
         redisTemplate.opsForValue().set(cacheKey, dto);
     }
     
@@ -161,21 +197,5 @@ public class CachedUserRepository implements IUserRepository {
     private void invalidateAllUsersCache() {
         redisTemplate.delete(ALL_USERS_KEY);
     }
-    
-    private UserDTO userToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setUsername(user.getUsername());
-        dto.setEmail(user.getEmail());
-        return dto;
-    }
-    
-    private User dtoToUser(UserDTO dto) {
-        User user = new User();
-        user.setId(dto.getId());
-        user.setUsername(dto.getUsername());
-        user.setEmail(dto.getEmail());
-        return user;
-    }
 }
 
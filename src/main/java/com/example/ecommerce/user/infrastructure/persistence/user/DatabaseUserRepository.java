@@ -36,7 +36,7 @@ public class DatabaseUserRepository implements IUserRepository {
     @NonNull
     public List<UserDTO> findAllDTO() {
         return userTable.findAll().stream()
-                .map(this::userToDTO)
+                .map(UserDTOMapper::toDTO)
                 .collect(Collectors.toList());
     }
     
@@ -49,7 +49,7 @@ public class DatabaseUserRepository implements IUserRepository {
     @Override
     @NonNull
     public Optional<UserDTO> findByIdDTO(@NonNull Long id) {
-        return userTable.findById(id).map(this::userToDTO);
+        return userTable.findById(id).map(UserDTOMapper::toDTO);
     }
     
     @Override
@@ -73,13 +73,5 @@ public class DatabaseUserRepository implements IUserRepository {
     public void delete(@NonNull Long id) {
         userTable.deleteById(id);
     }
-    
-    private UserDTO userToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setUsername(user.getUsername());
-        dto.setEmail(user.getEmail());
-        return dto;
-    }
 }
 
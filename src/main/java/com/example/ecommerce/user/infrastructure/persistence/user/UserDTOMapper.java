@@ -0,0 +1,33 @@
+package com.example.ecommerce.user.infrastructure.persistence.user;
+
+import com.example.ecommerce.user.api.dto.UserDTO;
+import com.example.ecommerce.user.domain.User;
+
+/**
+ * Converts between user entities and UserDTOs, the form users are cached in;
+ * shared by the repositories.
+ */
+public final class UserDTOMapper {
+
+    private UserDTOMapper() {
+    }
+
+    public static UserDTO toDTO(User user) {
+        UserDTO dto = new UserDTO();
+        dto.setId(user.getId());
+        dto.setUsername(user.getUsername());
+        dto.setEmail(user.getEmail());
+        return dto;
+    }
+
+    /**
+     * A detached entity with the cached fields; associations are not loaded.
+     */
+    public static User toUser(UserDTO dto) {
+        User user = new User();
+        user.setId(dto.getId());
+        user.setUsername(dto.getUsername());
+        user.setEmail(dto.getEmail());
+        return user;
+    }
+}
@@ -0,0 +1,10 @@
+-- Add one element to a Bloom filter bitmap.
+-- KEYS[1]: filter bitmap, ARGV: the element's bit offsets
+-- Returns the number of bits that were newly set.
+local added = 0
+for i = 1, #ARGV do
+    if redis.call('SETBIT', KEYS[1], ARGV[i], 1) == 0 then
+        added = added + 1
+    end
+end
+return added
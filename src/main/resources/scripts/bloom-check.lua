@@ -0,0 +1,14 @@
+-- Test a Bloom filter bitmap for one element.
+-- KEYS[1]: filter bitmap, KEYS[2]: ready marker, ARGV: the element's bit offsets
+-- Returns 1 when every bit is set (maybe present), 0 when one is clear (definitely absent),
+-- -1 when the filter has not been built or its bitmap was lost (evicted, flushed),
+-- so the caller must not trust it.
+if redis.call('EXISTS', KEYS[2]) == 0 or redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+for i = 1, #ARGV do
+    if redis.call('GETBIT', KEYS[1], ARGV[i]) == 0 then
+        return 0
+    end
+end
+return 1
@@ -0,0 +1,8 @@
+-- Merge a freshly built Bloom filter into the live one and mark the filter ready.
+-- KEYS[1]: live bitmap, KEYS[2]: built bitmap, KEYS[3]: ready marker
+-- OR-ing instead of renaming keeps bits added by other instances while the build ran.
+-- Returns 1.
+redis.call('BITOP', 'OR', KEYS[1], KEYS[1], KEYS[2])
+redis.call('DEL', KEYS[2])
+redis.call('SET', KEYS[3], '1')
+return 1
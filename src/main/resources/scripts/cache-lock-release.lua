@@ -0,0 +1,7 @@
+-- Release a cache-load lock only if this caller still owns it.
+-- KEYS[1]: lock key, ARGV[1]: owner token
+-- Returns 1 when the lock was released, 0 when it expired or belongs to someone else.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
@@ -0,0 +1,7 @@
+-- Claim a coupon code for a user, at most once.
+-- KEYS[1]: usage marker key, ARGV[1]: user ID, ARGV[2]: marker TTL in seconds
+-- Returns 1 when the claim succeeded, 0 when the code was already claimed.
+if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'EX', ARGV[2]) then
+    return 1
+end
+return 0
@@ -0,0 +1,20 @@
+-- Add new orders to a user's order history window and trim it to the highest order IDs.
+-- KEYS[1]: history sorted set (score: order ID), KEYS[2]: history epoch
+-- ARGV[1]: window size, ARGV[2]: TTL in milliseconds, ARGV[3..n]: pairs of order ID, order
+-- A missing window is left missing: the next read loads it from the database.
+-- The epoch is bumped either way, so a load that started before this call does not store its result.
+-- Returns the window length, 0 when there is no window.
+redis.call('INCR', KEYS[2])
+redis.call('PEXPIRE', KEYS[2], ARGV[2])
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+for i = 3, #ARGV, 2 do
+    -- Replace an earlier copy of the same order rather than keeping both
+    redis.call('ZREMRANGEBYSCORE', KEYS[1], ARGV[i], ARGV[i])
+    redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+-- Trim by ID, not by arrival: an order with a lower ID may be written after a higher one
+redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[1]) + 1))
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return redis.call('ZCARD', KEYS[1])
@@ -0,0 +1,14 @@
+-- Store a user's order history window loaded from the database, unless it changed meanwhile.
+-- KEYS[1]: history sorted set (score: order ID), KEYS[2]: history epoch
+-- ARGV[1]: epoch read before the load, ARGV[2]: TTL in milliseconds, ARGV[3..n]: pairs of order ID, order
+-- Returns 1 when the window was stored, 0 when an order was added or changed during the load.
+local epoch = tonumber(redis.call('GET', KEYS[2]) or '0')
+if epoch ~= tonumber(ARGV[1]) then
+    return 0
+end
+redis.call('DEL', KEYS[1])
+for i = 3, #ARGV, 2 do
+    redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return 1
@@ -0,0 +1,21 @@
+-- Add one review write to a product's cached review totals.
+-- KEYS[1]: stats hash, KEYS[2]: stats epoch
+-- ARGV[1]: TTL in milliseconds (for the epoch), ARGV[2]: count delta, ARGV[3]: grade sum delta,
+-- ARGV[4..8]: delta per grade, 1 star first
+-- Missing totals are left missing: the next read loads them from the summary table.
+-- The epoch is bumped either way, so a load that started before this call does not store its result.
+-- Returns 1 when the totals were updated, 0 when they are not cached.
+redis.call('INCR', KEYS[2])
+redis.call('PEXPIRE', KEYS[2], ARGV[1])
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+redis.call('HINCRBY', KEYS[1], 'count', ARGV[2])
+redis.call('HINCRBY', KEYS[1], 'sum', ARGV[3])
+for grade = 1, 5 do
+    local delta = tonumber(ARGV[3 + grade])
+    if delta ~= 0 then
+        redis.call('HINCRBY', KEYS[1], tostring(grade), delta)
+    end
+end
+return 1
@@ -0,0 +1,13 @@
+-- Store a product's review totals loaded from the summary table, unless a review was written meanwhile.
+-- KEYS[1]: stats hash, KEYS[2]: stats epoch
+-- ARGV[1]: epoch read before the load, ARGV[2]: TTL in milliseconds, ARGV[3]: count, ARGV[4]: grade sum,
+-- ARGV[5..9]: reviews per grade, 1 star first
+-- Returns 1 when the totals were stored, 0 when a review was written during the load.
+local epoch = tonumber(redis.call('GET', KEYS[2]) or '0')
+if epoch ~= tonumber(ARGV[1]) then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'count', ARGV[3], 'sum', ARGV[4],
+    '1', ARGV[5], '2', ARGV[6], '3', ARGV[7], '4', ARGV[8], '5', ARGV[9])
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return 1
@@ -0,0 +1,14 @@
+-- Atomically reserve stock for one product.
+-- KEYS[1]: stock key, KEYS[2]: dirty-stock set
+-- ARGV[1]: quantity, ARGV[2]: product ID
+-- Returns 1 when the stock was decremented, 0 when it is insufficient.
+-- Decremented products are added to the dirty set for the write-behind flush.
+local stock = tonumber(redis.call('GET', KEYS[1]) or '0')
+local quantity = tonumber(ARGV[1])
+if stock >= quantity then
+    redis.call('DECRBY', KEYS[1], quantity)
+    redis.call('SADD', KEYS[2], ARGV[2])
+    return 1
+else
+    return 0
+end
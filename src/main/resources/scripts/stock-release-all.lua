@@ -0,0 +1,11 @@
+-- Give back the stock of a whole cart reserved by stock-reserve-all.lua.
+-- KEYS[1..n]: stock keys, KEYS[n+1]: dirty-stock set
+-- ARGV[1..n]: quantities, ARGV[n+1..2n]: product IDs
+-- Returns the number of lines released.
+-- Released products are added to the dirty set for the write-behind flush.
+local n = #ARGV / 2
+for i = 1, n do
+    redis.call('INCRBY', KEYS[i], ARGV[i])
+    redis.call('SADD', KEYS[n + 1], ARGV[n + i])
+end
+return n
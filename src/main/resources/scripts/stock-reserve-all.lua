@@ -0,0 +1,19 @@
+-- All-or-nothing reservation for a whole cart.
+-- KEYS[1..n]: stock keys, KEYS[n+1..2n]: matching product metadata keys, KEYS[2n+1]: dirty-stock set
+-- ARGV[1..n]: quantities, ARGV[n+1..2n]: product IDs
+-- Returns {0, index} for the first sold-out line, otherwise {1, metadata...} in KEYS order.
+-- Decremented products are added to the dirty set for the write-behind flush.
+local n = #ARGV / 2
+for i = 1, n do
+    local stock = tonumber(redis.call('GET', KEYS[i]) or '0')
+    if stock < tonumber(ARGV[i]) then
+        return {0, i}
+    end
+end
+local reply = {1}
+for i = 1, n do
+    redis.call('DECRBY', KEYS[i], ARGV[i])
+    redis.call('SADD', KEYS[2 * n + 1], ARGV[n + i])
+    reply[i + 1] = redis.call('GET', KEYS[n + i])
+end
+return reply
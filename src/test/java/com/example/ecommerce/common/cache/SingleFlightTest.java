@@ -0,0 +1,188 @@
+package com.example.ecommerce.common.cache;
+
+import com.example.ecommerce.common.config.RedisScriptRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Concurrent misses for one key: a single load, shared results and failures, and the
+ * cross-instance lock.
+ */
+class SingleFlightTest {
+
+    private static final String KEY = "product:7";
+    private static final String LOCK_KEY = "lock:load:" + KEY;
+    private static final int CALLERS = 8;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final CountDownLatch loadStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseLoad = new CountDownLatch(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ValueOperations<String, Object> values;
+    private RedisScriptRegistry scriptRegistry;
+    private NegativeCache negativeCache;
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(eq(LOCK_KEY), any(), any(Duration.class))).thenReturn(true);
+
+        scriptRegistry = mock(RedisScriptRegistry.class);
+        negativeCache = mock(NegativeCache.class);
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(redisTemplate, scriptRegistry, negativeCache, meterRegistry, true, 3000, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseLoad.countDown();
+        executor.shutdownNow();
+    }
+
+    /**
+     * A loader that holds the load open until the test releases it, then returns or throws.
+     */
+    private <T> Supplier<T> blockingLoader(Supplier<T> result) {
+        return () -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                releaseLoad.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result.get();
+        };
+    }
+
+    /**
+     * Start one caller, wait until it is loading, then start the rest and wait until every
+     * one of them has joined the running load.
+     */
+    private <T> List<Future<T>> callConcurrently(Supplier<T> loader) throws InterruptedException {
+        List<Future<T>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.load(KEY, () -> null, loader)));
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.load(KEY, () -> null, loader)));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (outcome("shared") < CALLERS - 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(outcome("shared")).isEqualTo(CALLERS - 1);
+        return results;
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.counter("cache.load", "outcome", outcome).count();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        Object product = new Object();
+        List<Future<Object>> results = callConcurrently(blockingLoader(() -> product));
+
+        releaseLoad.countDown();
+
+        for (Future<Object> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(product);
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(outcome("loaded")).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.load.in.flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void loaderExceptionReachesEveryWaiter() throws Exception {
+        IllegalStateException failure = new IllegalStateException("database down");
+        List<Future<Object>> results = callConcurrently(blockingLoader(() -> {
+            throw failure;
+        }));
+
+        releaseLoad.countDown();
+
+        for (Future<Object> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseReference(failure);
+        }
+        assertThat(loads.get()).isEqualTo(1);
+
+        // The failed load is not remembered: the next miss loads again
+        assertThat(singleFlight.load(KEY, () -> null, () -> "loaded")).isEqualTo("loaded");
+    }
+
+    @Test
+    void remoteWaiterEndsOnMissMarker() {
+        // Another instance holds the lock and records the miss while this one waits
+        when(values.setIfAbsent(eq(LOCK_KEY), any(), any(Duration.class))).thenReturn(false);
+        when(negativeCache.isMissing("product", 7L)).thenReturn(false, false, true);
+
+        Optional<Object> result = singleFlight.loadOptional(KEY, () -> null, "product", 7L, () -> {
+            loads.incrementAndGet();
+            return Optional.of(new Object());
+        });
+
+        assertThat(result).isEmpty();
+        assertThat(loads.get()).isZero();
+        assertThat(outcome("remote")).isEqualTo(1);
+        assertThat(outcome("fallback")).isZero();
+    }
+
+    @Test
+    void lockIsReleasedWhenTheLoaderFails() {
+        assertThatThrownBy(() -> singleFlight.load(KEY, () -> null, () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        ArgumentCaptor<Object> token = ArgumentCaptor.forClass(Object.class);
+        verify(values).setIfAbsent(eq(LOCK_KEY), token.capture(), any(Duration.class));
+        verify(scriptRegistry).execute(eq(RedisScriptRegistry.CACHE_LOCK_RELEASE), eq(Long.class),
+                eq(List.of(LOCK_KEY)), eq(token.getValue()));
+        assertThat(meterRegistry.get("cache.load.in.flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void unreachableRedisStillLoadsOnce() {
+        when(values.setIfAbsent(anyString(), any(), any(Duration.class)))
+                .thenThrow(new IllegalStateException("connection refused"));
+
+        assertThat(singleFlight.load(KEY, () -> null, () -> "loaded")).isEqualTo("loaded");
+        assertThat(outcome("loaded")).isEqualTo(1);
+    }
+}
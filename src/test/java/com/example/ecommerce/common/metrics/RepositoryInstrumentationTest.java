@@ -0,0 +1,126 @@
+package com.example.ecommerce.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache reads and database statements are attributed to the repository call they happen in.
+ */
+class RepositoryInstrumentationTest {
+
+    interface ISampleRepository {
+        Object find(long id) throws SQLException;
+    }
+
+    private SimpleMeterRegistry registry;
+    private RepositoryInstrumentation instrumentation;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(registry);
+        instrumentation = new RepositoryInstrumentation(provider, new MockEnvironment());
+    }
+
+    private double lookups(String prefix, String result) {
+        var counter = registry.find("repository.cache.lookups").tag("prefix", prefix).tag("result", result).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private double fallbacks() {
+        var counter = registry.find("repository.db.fallbacks").tag("repository", "sample").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void jdbcStatementsAndRedisReadsCountForTheCachedCall() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        DataSource counted = (DataSource) instrumentation.postProcessAfterInitialization(dataSource, "dataSource");
+
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        ZSetOperations<String, Object> zSets = mock(ZSetOperations.class);
+        when(template.opsForValue()).thenReturn(mock(ValueOperations.class));
+        when(template.opsForHash()).thenReturn(mock(HashOperations.class));
+        when(template.opsForList()).thenReturn(mock(ListOperations.class));
+        when(template.opsForZSet()).thenReturn(zSets);
+        when(template.hasKey("miss:sample:1")).thenReturn(false);
+        when(zSets.reverseRange("orders:v1:recent:1", 0, -1)).thenReturn(Set.of());
+        RedisTemplate<String, Object> redis =
+                (RedisTemplate<String, Object>) instrumentation.postProcessAfterInitialization(template, "redisTemplate");
+
+        class CachedSampleRepository implements ISampleRepository {
+            @Override
+            public Object find(long id) throws SQLException {
+                redis.hasKey("miss:sample:" + id);
+                redis.opsForZSet().reverseRange("orders:v1:recent:" + id, 0, -1);
+                try (Connection connection = counted.getConnection()) {
+                    return connection.prepareStatement("SELECT 1");
+                }
+            }
+        }
+        ISampleRepository repository = (ISampleRepository)
+                instrumentation.postProcessAfterInitialization(new CachedSampleRepository(), "cachedSampleRepository");
+
+        repository.find(1);
+
+        assertThat(lookups("miss:sample", "miss")).isEqualTo(1);
+        assertThat(lookups("orders:v1:recent", "miss")).isEqualTo(1);
+        assertThat(fallbacks()).isEqualTo(1);
+    }
+
+    @Test
+    void statementsOutsideARepositoryCallAreNotAttributed() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        DataSource counted = (DataSource) instrumentation.postProcessAfterInitialization(dataSource, "dataSource");
+
+        counted.getConnection().prepareStatement("SELECT 1");
+
+        assertThat(registry.find("repository.db.fallbacks").counters()).isEmpty();
+    }
+
+    @Test
+    void serverTimingSharesTheDataSourceProxy() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        ServerTimingInstrumentation timing =
+                new ServerTimingInstrumentation(new MockEnvironment().withProperty("server-timing.enabled", "true"));
+
+        Object timed = timing.postProcessAfterInitialization(dataSource, "dataSource");
+        DataSource counted = (DataSource) instrumentation.postProcessAfterInitialization(timed, "dataSource");
+
+        assertThat(counted).isSameAs(timed);
+        class CachedSampleRepository implements ISampleRepository {
+            @Override
+            public Object find(long id) throws SQLException {
+                return counted.getConnection().prepareStatement("SELECT 1");
+            }
+        }
+        ((ISampleRepository) instrumentation.postProcessAfterInitialization(new CachedSampleRepository(),
+                "cachedSampleRepository")).find(1);
+
+        assertThat(fallbacks()).isEqualTo(1);
+    }
+}
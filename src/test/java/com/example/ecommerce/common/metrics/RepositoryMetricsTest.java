@@ -0,0 +1,33 @@
+package com.example.ecommerce.common.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Key prefixes used as the lookup tag: bounded, and specific enough to tell key families apart.
+ */
+class RepositoryMetricsTest {
+
+    @Test
+    void prefixStopsAtTheIdSegment() {
+        assertThat(RepositoryMetrics.prefix("product:42")).isEqualTo("product");
+        assertThat(RepositoryMetrics.prefix("coupon:code:SAVE10")).isEqualTo("coupon:code");
+        assertThat(RepositoryMetrics.prefix("miss:product:42")).isEqualTo("miss:product");
+        assertThat(RepositoryMetrics.prefix("near:product:42")).isEqualTo("near:product");
+    }
+
+    @Test
+    void prefixKeepsVersionSegments() {
+        assertThat(RepositoryMetrics.prefix("orders:v1:page:0:50")).isEqualTo("orders:v1:page");
+        assertThat(RepositoryMetrics.prefix("orders:v1:recent:7")).isEqualTo("orders:v1:recent");
+        assertThat(RepositoryMetrics.prefix("order:v1:42")).isEqualTo("order:v1");
+    }
+
+    @Test
+    void prefixHasAtMostTwoNames() {
+        // A code without digits must not become its own tag
+        assertThat(RepositoryMetrics.prefix("coupon:code:FLASHSALE-ABCDEFGH")).isEqualTo("coupon:code");
+        assertThat(RepositoryMetrics.prefix("42")).isEqualTo("other");
+    }
+}
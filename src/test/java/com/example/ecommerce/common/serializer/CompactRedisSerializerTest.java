@@ -0,0 +1,162 @@
+package com.example.ecommerce.common.serializer;
+
+import com.example.ecommerce.category.api.dto.CategoryDTO;
+import com.example.ecommerce.coupon.domain.Coupon;
+import com.example.ecommerce.order.infrastructure.cache.order.OrderReadModel;
+import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.example.ecommerce.user.api.dto.UserDTO;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every cached type survives a round trip with all fields set and with all fields null,
+ * and everything else still goes through JSON.
+ */
+class CompactRedisSerializerTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 1, 15, 10, 30, 5, 123_456_789);
+
+    private final GenericJackson2JsonRedisSerializer json = jsonSerializer();
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(json);
+
+    // Same JSON setup as RedisConfig
+    private static GenericJackson2JsonRedisSerializer jsonSerializer() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        json.configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+        return json;
+    }
+
+    private static Coupon coupon(Long id, String code, Integer discount, LocalDateTime validUntil, Boolean used) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setCode(code);
+        coupon.setDiscount(discount);
+        coupon.setValidUntil(validUntil);
+        coupon.setUsed(used);
+        return coupon;
+    }
+
+    static Stream<Object> taggedValues() {
+        return Stream.of(
+                new ProductDTO(7L, "Product 7", "Description with ünïcode", 199.99, 30, "https://cdn.example.com/7.png"),
+                new ProductDTO(),
+                new UserDTO(42L, "alice", "alice@example.com"),
+                new UserDTO(),
+                new CategoryDTO(3L, "Phones"),
+                new CategoryDTO(),
+                new ReviewDTO(1L, "Works as described.", 5, 42L, "alice", 7L, "Product 7", TIMESTAMP),
+                new ReviewDTO(),
+                coupon(5L, "FLASH-10", 10, TIMESTAMP, true),
+                coupon(6L, "FLASH-20", 20, TIMESTAMP, false),
+                coupon(null, null, null, null, null),
+                new OrderReadModel(9L, TIMESTAMP, 42L, "FLASH-10", 339.98, List.of(
+                        new OrderReadModel.Item(1L, 7L, "Product 7", 2, 199.99, 339.98),
+                        new OrderReadModel.Item(2L, null, null, null, null, null))),
+                new OrderReadModel(null, null, null, null, null, List.of())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("taggedValues")
+    void taggedValueRoundTrips(Object value) {
+        byte[] bytes = serializer.serialize(value);
+
+        assertThat(bytes[0]).isEqualTo(CompactRedisSerializer.MAGIC);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(value);
+    }
+
+    @Test
+    void extremeNumbersRoundTrip() {
+        ProductDTO product = new ProductDTO(Long.MIN_VALUE, "", "", -0.5, Integer.MIN_VALUE, "");
+        ReviewDTO review = new ReviewDTO(Long.MAX_VALUE, "", Integer.MAX_VALUE, -1L, "", 0L, "",
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999));
+
+        assertThat(serializer.deserialize(serializer.serialize(product))).isEqualTo(product);
+        assertThat(serializer.deserialize(serializer.serialize(review))).isEqualTo(review);
+    }
+
+    @Test
+    void listOfOneTypeRoundTrips() {
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            products.add(new ProductDTO(id, "Product " + id, id % 2 == 0 ? null : "Odd", id * 1.5, (int) id % 9, null));
+        }
+
+        byte[] bytes = serializer.serialize(products);
+
+        assertThat(bytes[0]).isEqualTo(CompactRedisSerializer.MAGIC);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(products);
+    }
+
+    @Test
+    void listOfOrdersRoundTrips() {
+        List<OrderReadModel> orders = List.of(
+                new OrderReadModel(1L, TIMESTAMP, 42L, null, 10.0, List.of(new OrderReadModel.Item(1L, 7L, "A", 1, 10.0, 10.0))),
+                new OrderReadModel(2L, TIMESTAMP, 42L, null, 0.0, List.of()));
+
+        assertThat(serializer.deserialize(serializer.serialize(orders))).isEqualTo(orders);
+    }
+
+    @Test
+    void mixedListFallsBackToJson() {
+        List<Object> mixed = new ArrayList<>(List.of(new ProductDTO(7L, "Product 7", null, 1.0, 0, null),
+                new UserDTO(42L, "alice", null)));
+
+        byte[] bytes = serializer.serialize(mixed);
+
+        assertThat(bytes[0]).isNotEqualTo(CompactRedisSerializer.MAGIC);
+        assertThat(bytes).isEqualTo(json.serialize(mixed));
+        assertThat(serializer.deserialize(bytes)).isEqualTo(mixed);
+    }
+
+    @Test
+    void listWithNullElementFallsBackToJson() {
+        List<UserDTO> users = Arrays.asList(new UserDTO(1L, "alice", null), null);
+
+        assertThat(serializer.serialize(users)[0]).isNotEqualTo(CompactRedisSerializer.MAGIC);
+    }
+
+    @Test
+    void orderWithoutItemsReadsBackWithAnEmptyList() {
+        OrderReadModel order = new OrderReadModel(9L, TIMESTAMP, 42L, null, 5.0, null);
+
+        Object read = serializer.deserialize(serializer.serialize(order));
+
+        assertThat(read).isEqualTo(new OrderReadModel(9L, TIMESTAMP, 42L, null, 5.0, List.of()));
+    }
+
+    @Test
+    void unknownVersionReadsAsAMiss() {
+        byte[] bytes = serializer.serialize(new UserDTO(42L, "alice", "alice@example.com"));
+        bytes[1] = CompactRedisSerializer.VERSION + 1;
+
+        assertThat(serializer.deserialize(bytes)).isNull();
+    }
+
+    @Test
+    void numbersStayJsonForTheLuaScripts() {
+        byte[] bytes = serializer.serialize(42L);
+
+        assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("42");
+        assertThat(((Number) serializer.deserialize(bytes)).longValue()).isEqualTo(42L);
+    }
+
+    @Test
+    void nullAndEmptyPayloads() {
+        assertThat(serializer.deserialize(null)).isNull();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+    }
+}
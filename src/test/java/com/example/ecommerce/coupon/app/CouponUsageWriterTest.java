@@ -0,0 +1,124 @@
+package com.example.ecommerce.coupon.app;
+
+import com.example.ecommerce.coupon.infrastructure.cache.ICouponRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Batched coupon usage writes: callers writing when the queue is full, failed batches retried,
+ * and the queue drained on shutdown.
+ */
+class CouponUsageWriterTest {
+
+    private static final String NAME = "test";
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    private ICouponRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private CouponUsageWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ICouponRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private CouponUsageWriter writer(int queueCapacity, int batchSize, Duration flushInterval) {
+        writer = new CouponUsageWriter(repository, meterRegistry, NAME, queueCapacity, batchSize, flushInterval);
+        return writer;
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "repository", NAME).count();
+    }
+
+    private double queued() {
+        return meterRegistry.get("coupon.usage.queue").gauge().value();
+    }
+
+    @Test
+    void fullQueueIsWrittenByTheCaller() {
+        CouponUsageWriter writer = writer(2, 10, NEVER);
+
+        writer.submit(1L);
+        writer.submit(2L);
+        verifyNoInteractions(repository);
+
+        writer.submit(3L);
+
+        verify(repository).markUsed(List.of(3L));
+        assertThat(count("coupon.usage.caller.runs")).isEqualTo(1);
+        assertThat(count("coupon.usage.written")).isEqualTo(1);
+        assertThat(queued()).isEqualTo(2);
+    }
+
+    @Test
+    void closeFlushesWhatIsQueuedInBatches() {
+        CouponUsageWriter writer = writer(10, 2, NEVER);
+        for (long id = 1; id <= 5; id++) {
+            writer.submit(id);
+        }
+
+        writer.close();
+
+        InOrder order = inOrder(repository);
+        order.verify(repository).markUsed(List.of(1L, 2L));
+        order.verify(repository).markUsed(List.of(3L, 4L));
+        order.verify(repository).markUsed(List.of(5L));
+        assertThat(count("coupon.usage.written")).isEqualTo(5);
+        assertThat(queued()).isZero();
+    }
+
+    @Test
+    void failedBatchIsQueuedAgainAndRetried() {
+        doThrow(new QueryTimeoutException("lock timeout"))
+                .doNothing()
+                .when(repository).markUsed(anyCollection());
+        CouponUsageWriter writer = writer(10, 10, Duration.ofMillis(50));
+
+        writer.submit(1L);
+        writer.submit(2L);
+
+        verify(repository, timeout(2000).times(2)).markUsed(List.of(1L, 2L));
+        writer.close();
+        assertThat(count("coupon.usage.failures")).isEqualTo(2);
+        assertThat(count("coupon.usage.written")).isEqualTo(2);
+    }
+
+    @Test
+    void failedFlushOnShutdownStopsWithoutLooping() {
+        doThrow(new QueryTimeoutException("database down")).when(repository).markUsed(anyCollection());
+        CouponUsageWriter writer = writer(10, 10, NEVER);
+        writer.submit(1L);
+
+        writer.close();
+
+        verify(repository, times(1)).markUsed(List.of(1L));
+        assertThat(count("coupon.usage.failures")).isEqualTo(1);
+        assertThat(queued()).isEqualTo(1);
+    }
+}
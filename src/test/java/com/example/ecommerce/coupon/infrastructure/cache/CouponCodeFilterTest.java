@@ -0,0 +1,170 @@
+package com.example.ecommerce.coupon.infrastructure.cache;
+
+import com.example.ecommerce.common.config.RedisScriptRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The Bloom filter against an in-memory stand-in for the bloom-check / bloom-add scripts.
+ */
+class CouponCodeFilterTest {
+
+    private static final int EXPECTED_CODES = 1000;
+
+    // Bitmaps by key; a key is "present" when it has an entry, like EXISTS
+    private final Map<String, BitSet> redis = new HashMap<>();
+    private final CountDownLatch rebuildStarted = new CountDownLatch(1);
+    private boolean redisDown;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CouponCodeFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RedisScriptRegistry scriptRegistry = mock(RedisScriptRegistry.class, invocation -> {
+            if (redisDown) {
+                throw new IllegalStateException("connection refused");
+            }
+            Object[] args = invocation.getArguments();
+            @SuppressWarnings("unchecked")
+            List<String> keys = (List<String>) args[2];
+            return switch ((String) args[0]) {
+                case RedisScriptRegistry.BLOOM_CHECK -> check(keys, args);
+                case RedisScriptRegistry.BLOOM_ADD -> {
+                    BitSet bitmap = redis.computeIfAbsent(keys.get(0), k -> new BitSet());
+                    for (int i = 3; i < args.length; i++) {
+                        bitmap.set(Math.toIntExact((Long) args[i]));
+                    }
+                    yield 1L;
+                }
+                case RedisScriptRegistry.BLOOM_MERGE -> {
+                    redis.computeIfAbsent(keys.get(0), k -> new BitSet());
+                    redis.put(keys.get(2), new BitSet());
+                    yield 1L;
+                }
+                default -> throw new IllegalArgumentException((String) args[0]);
+            };
+        });
+
+        // The table scan itself is not under test: count the rebuild and upload nothing
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            rebuildStarted.countDown();
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        meterRegistry = new SimpleMeterRegistry();
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        filter = new CouponCodeFilter(redisTemplate, scriptRegistry, mock(JdbcTemplate.class),
+                transactionTemplate, meterRegistry, EXPECTED_CODES, 0.01);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filter.shutdown();
+    }
+
+    /**
+     * Same rules as bloom-check.lua.
+     */
+    private Long check(List<String> keys, Object[] args) {
+        if (!redis.containsKey(keys.get(1)) || !redis.containsKey(keys.get(0))) {
+            return -1L;
+        }
+        BitSet bitmap = redis.get(keys.get(0));
+        for (int i = 3; i < args.length; i++) {
+            if (!bitmap.get(Math.toIntExact((Long) args[i]))) {
+                return 0L;
+            }
+        }
+        return 1L;
+    }
+
+    private void markBuilt() {
+        filter.add("FLASHSALE-SEED");
+        redis.keySet().stream()
+                .filter(k -> k.startsWith("coupons:bloom:"))
+                .findFirst()
+                .ifPresent(bitmapKey -> redis.put(bitmapKey + ":ready", new BitSet()));
+    }
+
+    @Test
+    void addedCodesPassAndUnknownCodesAreMostlyRejected() {
+        markBuilt();
+        for (int i = 0; i < EXPECTED_CODES; i++) {
+            filter.add("FLASHSALE-" + i);
+        }
+
+        for (int i = 0; i < EXPECTED_CODES; i++) {
+            assertThat(filter.mightContain("FLASHSALE-" + i)).as("code %d", i).isTrue();
+        }
+
+        int passed = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("GUESS-" + i)) {
+                passed++;
+            }
+        }
+        // Sized for 1% false positives at the expected number of codes
+        assertThat(passed).isLessThan(300);
+        assertThat(meterRegistry.counter("coupon.bloom.checks", "result", "rejected").count())
+                .isEqualTo(10_000 - passed);
+    }
+
+    @Test
+    void everyCodePassesUntilTheFilterIsBuilt() throws InterruptedException {
+        assertThat(filter.mightContain("GUESS-1")).isTrue();
+
+        assertThat(meterRegistry.counter("coupon.bloom.checks", "result", "unavailable").count()).isEqualTo(1);
+        assertThat(rebuildStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void lostBitmapIsNotTrustedEvenWithTheReadyMarker() throws InterruptedException {
+        markBuilt();
+        assertThat(filter.mightContain("GUESS-1")).isFalse();
+
+        redis.keySet().removeIf(k -> k.startsWith("coupons:bloom:") && !k.endsWith(":ready"));
+
+        assertThat(filter.mightContain("GUESS-1")).isTrue();
+        assertThat(meterRegistry.counter("coupon.bloom.checks", "result", "unavailable").count()).isEqualTo(1);
+        assertThat(rebuildStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void failedAddRebuildsTheFilter() throws InterruptedException {
+        markBuilt();
+        redisDown = true;
+
+        filter.add("FLASHSALE-NEW");
+
+        assertThat(rebuildStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void redisErrorsLetCodesThrough() {
+        markBuilt();
+        redisDown = true;
+
+        assertThat(filter.mightContain("GUESS-1")).isTrue();
+        assertThat(meterRegistry.counter("coupon.bloom.checks", "result", "unavailable").count()).isEqualTo(1);
+    }
+}
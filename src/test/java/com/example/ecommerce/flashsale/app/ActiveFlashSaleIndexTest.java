@@ -0,0 +1,125 @@
+package com.example.ecommerce.flashsale.app;
+
+import com.example.ecommerce.flashsale.api.dto.FlashSaleResponseDTO;
+import com.example.ecommerce.flashsale.api.dto.ProductBasicDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sale windows opening and closing between resyncs, local writes, and the periodic reload.
+ */
+class ActiveFlashSaleIndexTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    // What the database holds; the loader returns a copy and counts the reloads
+    private final List<FlashSaleResponseDTO> stored = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ActiveFlashSaleIndex index(Duration resyncInterval) {
+        return new ActiveFlashSaleIndex(() -> {
+            loads.incrementAndGet();
+            return List.copyOf(stored);
+        }, resyncInterval);
+    }
+
+    private static FlashSaleResponseDTO sale(long id, LocalDateTime start, LocalDateTime end, long... productIds) {
+        List<ProductBasicDTO> products = new ArrayList<>();
+        for (long productId : productIds) {
+            products.add(new ProductBasicDTO(productId, "Product " + productId, null, 10.0, 20, null));
+        }
+        return new FlashSaleResponseDTO(id, "Sale " + id, start, end, products);
+    }
+
+    private static void sleepUntil(LocalDateTime time) throws InterruptedException {
+        long millis = Duration.between(LocalDateTime.now(), time).toMillis();
+        Thread.sleep(Math.max(millis, 0) + 20);
+    }
+
+    @Test
+    void saleStartingBetweenResyncsIsActiveWithoutAReload() throws InterruptedException {
+        LocalDateTime start = LocalDateTime.now().plus(Duration.ofMillis(200));
+        stored.add(sale(1, start, start.plus(HOUR), 7));
+        ActiveFlashSaleIndex index = index(HOUR);
+
+        assertThat(index.isProductOnSale(7L)).isFalse();
+
+        sleepUntil(start);
+
+        assertThat(index.isProductOnSale(7L)).isTrue();
+        assertThat(index.activeSale(1L)).isPresent();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void saleEndingBetweenResyncsIsDroppedWithoutAReload() throws InterruptedException {
+        LocalDateTime end = LocalDateTime.now().plus(Duration.ofMillis(200));
+        stored.add(sale(1, end.minus(HOUR), end, 7));
+        ActiveFlashSaleIndex index = index(HOUR);
+
+        assertThat(index.activeSaleForProduct(7L)).map(FlashSaleResponseDTO::getId).contains(1L);
+
+        sleepUntil(end);
+
+        assertThat(index.isProductOnSale(7L)).isFalse();
+        assertThat(index.hasActiveSale()).isFalse();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void putAfterCreateIsVisibleImmediately() {
+        ActiveFlashSaleIndex index = index(HOUR);
+        assertThat(index.hasActiveSale()).isFalse();
+
+        LocalDateTime now = LocalDateTime.now();
+        index.put(sale(1, now.minusMinutes(1), now.plus(HOUR), 7, 8));
+
+        assertThat(index.isProductOnSale(7L)).isTrue();
+        assertThat(index.isProductOnSale(8L)).isTrue();
+
+        index.remove(1L);
+
+        assertThat(index.isProductOnSale(7L)).isFalse();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void resyncReplacesTheSnapshot() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        stored.add(sale(1, now.minus(HOUR), now.plus(HOUR), 7));
+        Duration resyncInterval = Duration.ofMillis(100);
+        ActiveFlashSaleIndex index = index(resyncInterval);
+        assertThat(index.isProductOnSale(7L)).isTrue();
+
+        // Another instance replaced sale 1 with sale 2; a local write not in the database is lost too
+        stored.clear();
+        stored.add(sale(2, now.minus(HOUR), now.plus(HOUR), 8));
+        index.put(sale(3, now.minus(HOUR), now.plus(HOUR), 9));
+
+        sleepUntil(LocalDateTime.now().plus(resyncInterval));
+
+        assertThat(index.activeSales()).extracting(FlashSaleResponseDTO::getId).containsExactly(2L);
+        assertThat(index.isProductOnSale(7L)).isFalse();
+        assertThat(index.isProductOnSale(8L)).isTrue();
+        assertThat(index.isProductOnSale(9L)).isFalse();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void earliestStartingSaleWinsForAProductInSeveralSales() {
+        LocalDateTime now = LocalDateTime.now();
+        stored.add(sale(1, now.minusMinutes(5), now.plus(HOUR), 7));
+        stored.add(sale(2, now.minusMinutes(10), now.plus(HOUR), 7));
+        ActiveFlashSaleIndex index = index(HOUR);
+
+        assertThat(index.activeSales()).extracting(FlashSaleResponseDTO::getId).containsExactly(2L, 1L);
+        assertThat(index.activeSaleForProduct(7L)).map(FlashSaleResponseDTO::getId).contains(2L);
+    }
+}
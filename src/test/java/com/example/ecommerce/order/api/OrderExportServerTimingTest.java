@@ -0,0 +1,66 @@
+package com.example.ecommerce.order.api;
+
+import com.example.ecommerce.common.metrics.ServerTimingFilter;
+import com.example.ecommerce.order.api.dto.OrderDTO;
+import com.example.ecommerce.order.app.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The export routes stream through the Server-Timing filter instead of being buffered by it.
+ */
+class OrderExportServerTimingTest {
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        OrderService orderService = mock(OrderService.class);
+        doAnswer(invocation -> {
+            Consumer<OrderDTO> sink = invocation.getArgument(0);
+            for (long id = 1; id <= 3; id++) {
+                sink.accept(new OrderDTO(id, null, null, List.of(), null, 10.0 * id));
+            }
+            return null;
+        }).when(orderService).exportOrdersDTO(any());
+
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new OrderBenchmarkController(orderService, orderService, new ObjectMapper()))
+                .addFilters(new ServerTimingFilter())
+                .build();
+    }
+
+    @Test
+    void exportIsStreamedWithTimingHeader() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/benchmark/db/orders/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Server-Timing"))
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString();
+        assertThat(body.lines()).hasSize(3);
+        assertThat(body.lines().toList().get(0)).contains("\"id\":1").contains("\"totalCost\":10.0");
+        assertThat(result.getResponse().getHeader("Server-Timing")).contains("total;dur=");
+    }
+}
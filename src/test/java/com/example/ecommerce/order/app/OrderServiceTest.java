@@ -0,0 +1,104 @@
+package com.example.ecommerce.order.app;
+
+import com.example.ecommerce.order.api.dto.OrderDTO;
+import com.example.ecommerce.order.api.dto.OrderPageDTO;
+import com.example.ecommerce.order.infrastructure.persistence.order.IOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Following nextCursor walks every order exactly once, in both listings.
+ */
+class OrderServiceTest {
+
+    private static final long USER_ID = 3L;
+
+    // Sparse, as with pooled sequence blocks
+    private final List<Long> orderIds = LongStream.of(1, 2, 5, 9, 10, 11, 50, 51, 52, 100).boxed().toList();
+
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        IOrderRepository repository = mock(IOrderRepository.class);
+        when(repository.findPageDTO(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            int size = invocation.getArgument(1);
+            return orderIds.stream().filter(id -> id > after).limit(size).map(OrderServiceTest::order).toList();
+        });
+        when(repository.findByUserIdDTO(eq(USER_ID), anyLong(), anyInt())).thenAnswer(invocation -> {
+            long before = invocation.getArgument(1);
+            int size = invocation.getArgument(2);
+            return orderIds.stream().sorted(Comparator.reverseOrder())
+                    .filter(id -> id < before).limit(size).map(OrderServiceTest::order).toList();
+        });
+        orderService = new OrderService(repository);
+    }
+
+    private static OrderDTO order(long id) {
+        return new OrderDTO(id, null, null, List.of(), null, 10.0);
+    }
+
+    @Test
+    void pagesFollowTheCursorInIdOrder() {
+        List<Long> seen = new ArrayList<>();
+        int pages = 0;
+        Long cursor = 0L;
+        while (cursor != null) {
+            OrderPageDTO page = orderService.getOrdersPageDTO(cursor, 3);
+            page.getItems().forEach(order -> seen.add(order.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        }
+
+        assertThat(seen).isEqualTo(orderIds);
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void userPagesFollowTheCursorNewestFirst() {
+        List<Long> seen = new ArrayList<>();
+        Long cursor = 0L;  // no cursor: start at the newest order
+        while (cursor != null) {
+            OrderPageDTO page = orderService.getOrdersByUserDTO(USER_ID, cursor, 4);
+            page.getItems().forEach(order -> seen.add(order.getId()));
+            cursor = page.getNextCursor();
+        }
+
+        assertThat(seen).isEqualTo(orderIds.stream().sorted(Comparator.reverseOrder()).toList());
+    }
+
+    @Test
+    void fullLastPageEndsWithAnEmptyPage() {
+        OrderPageDTO last = orderService.getOrdersPageDTO(0, orderIds.size());
+        assertThat(last.getNextCursor()).isEqualTo(100L);
+
+        OrderPageDTO after = orderService.getOrdersPageDTO(last.getNextCursor(), orderIds.size());
+        assertThat(after.getItems()).isEmpty();
+        assertThat(after.getNextCursor()).isNull();
+    }
+
+    @Test
+    void pageSizeIsBounded() {
+        assertThatThrownBy(() -> orderService.getOrdersPageDTO(0, 0))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> orderService.getOrdersByUserDTO(USER_ID, 0, OrderService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.ecommerce.order.infrastructure.cache.order;
+
+import com.example.ecommerce.common.config.RedisScriptRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The history window against an in-memory stand-in for the order-history-append / fill scripts.
+ */
+class OrderHistoryCacheTest {
+
+    private static final long USER_ID = 3L;
+    private static final int WINDOW_SIZE = 3;
+
+    // Sorted sets by key, scored by order ID, and counters by key
+    private final Map<String, TreeMap<Long, OrderReadModel>> zSets = new HashMap<>();
+    private final Map<String, Long> counters = new HashMap<>();
+
+    private OrderHistoryCache history;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> values = mock(ValueOperations.class);
+        ZSetOperations<String, Object> sorted = mock(ZSetOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(redisTemplate.opsForZSet()).thenReturn(sorted);
+        when(values.get(anyString())).thenAnswer(invocation -> counters.get(invocation.<String>getArgument(0)));
+        when(values.increment(anyString())).thenAnswer(invocation ->
+                counters.merge(invocation.getArgument(0), 1L, Long::sum));
+        when(redisTemplate.hasKey(anyString())).thenAnswer(invocation ->
+                zSets.containsKey(invocation.<String>getArgument(0)));
+        when(redisTemplate.delete(anyString())).thenAnswer(invocation ->
+                zSets.remove(invocation.<String>getArgument(0)) != null);
+        when(sorted.reverseRange(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            TreeMap<Long, OrderReadModel> set = zSets.get(invocation.<String>getArgument(0));
+            return set == null ? new LinkedHashSet<>() : new LinkedHashSet<Object>(set.descendingMap().values());
+        });
+
+        RedisScriptRegistry scriptRegistry = mock(RedisScriptRegistry.class);
+        when(scriptRegistry.execute(anyString(), any(), any(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            List<String> keys = (List<String>) args[2];
+            return switch ((String) args[0]) {
+                case RedisScriptRegistry.ORDER_HISTORY_APPEND -> append(keys, args);
+                case RedisScriptRegistry.ORDER_HISTORY_FILL -> fill(keys, args);
+                default -> throw new IllegalArgumentException((String) args[0]);
+            };
+        });
+
+        history = new OrderHistoryCache(redisTemplate, scriptRegistry, WINDOW_SIZE, 30);
+    }
+
+    /**
+     * Same rules as order-history-append.lua; script arguments start at index 3.
+     */
+    private Long append(List<String> keys, Object[] args) {
+        counters.merge(keys.get(1), 1L, Long::sum);
+        TreeMap<Long, OrderReadModel> set = zSets.get(keys.get(0));
+        if (set == null) {
+            return 0L;
+        }
+        for (int i = 5; i < args.length; i += 2) {
+            set.put((Long) args[i], (OrderReadModel) args[i + 1]);
+        }
+        while (set.size() > (Long) args[3]) {
+            set.pollFirstEntry();
+        }
+        return (long) set.size();
+    }
+
+    /**
+     * Same rules as order-history-fill.lua.
+     */
+    private Long fill(List<String> keys, Object[] args) {
+        if (!counters.getOrDefault(keys.get(1), 0L).equals(args[3])) {
+            return 0L;
+        }
+        TreeMap<Long, OrderReadModel> set = new TreeMap<>();
+        for (int i = 5; i < args.length; i += 2) {
+            set.put((Long) args[i], (OrderReadModel) args[i + 1]);
+        }
+        zSets.put(keys.get(0), set);
+        return 1L;
+    }
+
+    private static OrderReadModel order(long id) {
+        return new OrderReadModel(id, null, USER_ID, null, 10.0, List.of());
+    }
+
+    private List<Long> windowIds() {
+        List<OrderReadModel> window = history.window(USER_ID);
+        return window == null ? null : window.stream().map(OrderReadModel::id).toList();
+    }
+
+    @Test
+    void nothingIsAppendedToAMissingWindow() {
+        assertThat(history.startAppend(USER_ID)).isFalse();
+        history.append(USER_ID, List.of(order(1)));
+
+        assertThat(windowIds()).isNull();
+    }
+
+    @Test
+    void appendKeepsTheHighestIdsNewestFirst() {
+        history.fill(USER_ID, history.epoch(USER_ID), List.of(order(30), order(20), order(10)));
+
+        assertThat(history.startAppend(USER_ID)).isTrue();
+        history.append(USER_ID, List.of(order(40)));
+
+        assertThat(windowIds()).containsExactly(40L, 30L, 20L);
+    }
+
+    @Test
+    void lateOrderWithALowerIdIsTrimmedNotTheOldestArrival() {
+        history.fill(USER_ID, history.epoch(USER_ID), List.of(order(30), order(20), order(10)));
+
+        // Written last, but from an older sequence block
+        history.startAppend(USER_ID);
+        history.append(USER_ID, List.of(order(15)));
+
+        assertThat(windowIds()).containsExactly(30L, 20L, 15L);
+    }
+
+    @Test
+    void reappendedOrderReplacesItsEarlierCopy() {
+        history.fill(USER_ID, history.epoch(USER_ID), List.of(order(20), order(10)));
+
+        history.startAppend(USER_ID);
+        history.append(USER_ID, List.of(new OrderReadModel(20L, null, USER_ID, "SAVE10", 9.0, List.of())));
+
+        assertThat(history.window(USER_ID))
+                .extracting(OrderReadModel::id, OrderReadModel::couponApplied)
+                .containsExactly(tuple(20L, "SAVE10"), tuple(10L, null));
+    }
+
+    @Test
+    void loadThatMissedAWriteIsNotStored() {
+        long epoch = history.epoch(USER_ID);
+
+        // An order is written while the window is being loaded without it
+        history.startAppend(USER_ID);
+        history.fill(USER_ID, epoch, List.of(order(10)));
+
+        assertThat(windowIds()).isNull();
+    }
+
+    @Test
+    void loadThatStartedBeforeAnEvictionIsNotStored() {
+        history.fill(USER_ID, history.epoch(USER_ID), List.of(order(10)));
+        long epoch = history.epoch(USER_ID);
+
+        history.evict(USER_ID);
+        history.fill(USER_ID, epoch, List.of(order(10)));
+
+        assertThat(windowIds()).isNull();
+    }
+}
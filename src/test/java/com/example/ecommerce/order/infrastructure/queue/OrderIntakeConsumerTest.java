@@ -0,0 +1,161 @@
+package com.example.ecommerce.order.infrastructure.queue;
+
+import com.example.ecommerce.order.api.dto.OrderIntakeStatusDTO;
+import com.example.ecommerce.order.infrastructure.cache.order.OrderHistoryCache;
+import com.example.ecommerce.order.infrastructure.persistence.order.OrderTable;
+import com.example.ecommerce.product.infrastructure.sync.StockSyncJob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * How a batch ends for each kind of failure: redelivered, failed with its stock released,
+ * or dead-lettered.
+ */
+class OrderIntakeConsumerTest {
+
+    private static final int MAX_DELIVERIES = 5;
+    private static final long PRODUCT_ID = 7L;
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private StreamOperations<String, Object, Object> streams;
+    private ValueOperations<String, Object> values;
+    private SetOperations<String, Object> sets;
+    private OrderIntakeQueue intakeQueue;
+    private JdbcOrderBatchWriter writer;
+    private SimpleMeterRegistry meterRegistry;
+    private OrderIntakeConsumer consumer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        streams = mock(StreamOperations.class);
+        values = mock(ValueOperations.class);
+        sets = mock(SetOperations.class);
+        doReturn(streams).when(redisTemplate).opsForStream();
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(redisTemplate.opsForSet()).thenReturn(sets);
+
+        intakeQueue = mock(OrderIntakeQueue.class);
+        when(intakeQueue.findStatuses(anyList())).thenAnswer(invocation ->
+                Collections.nCopies(invocation.<List<String>>getArgument(0).size(), null));
+        writer = mock(JdbcOrderBatchWriter.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        consumer = new OrderIntakeConsumer(redisTemplate, intakeQueue, writer, mock(OrderTable.class),
+                mock(OrderHistoryCache.class), meterRegistry, 1, 100, 2000, 30000, MAX_DELIVERIES);
+    }
+
+    private static MapRecord<String, Object, Object> record(String id, String token) {
+        OrderIntakeMessage message = new OrderIntakeMessage(token, 3L, 0L, 20.0,
+                List.of(new OrderIntakeMessage.Line(PRODUCT_ID, 2, 10.0, 20.0)));
+        return MapRecord.<String, Object, Object>create(OrderIntakeQueue.STREAM_KEY,
+                Map.of(OrderIntakeQueue.PAYLOAD_FIELD, message)).withId(RecordId.of(id));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OrderIntakeStatusDTO> publishedStatuses() {
+        ArgumentCaptor<List<OrderIntakeStatusDTO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(intakeQueue).updateStatuses(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void transientErrorLeavesTheBatchForRedelivery() {
+        when(writer.write(anyList())).thenThrow(new CannotGetJdbcConnectionException("pool exhausted"));
+
+        assertThatThrownBy(() -> consumer.process(List.of(record("1-0", "a"), record("2-0", "b")), Map.of()))
+                .isInstanceOf(CannotGetJdbcConnectionException.class);
+
+        verify(streams, never()).acknowledge(anyString(), anyString(), any(RecordId[].class));
+        verify(intakeQueue, never()).updateStatuses(anyList());
+        verify(values, never()).increment(anyString(), anyLong());
+        assertThat(meterRegistry.counter("order.intake.failures").count()).isZero();
+    }
+
+    @Test
+    void transientErrorDuringTheOneByOneRetryIsNotAFailure() {
+        when(writer.write(anyList()))
+                .thenThrow(new DataIntegrityViolationException("duplicate intake_token"))
+                .thenReturn(List.of(11L))
+                .thenThrow(new QueryTimeoutException("lock timeout"));
+
+        assertThatThrownBy(() -> consumer.process(List.of(record("1-0", "a"), record("2-0", "b")), Map.of()))
+                .isInstanceOf(QueryTimeoutException.class);
+
+        verify(streams, never()).acknowledge(anyString(), anyString(), any(RecordId[].class));
+        verify(values, never()).increment(anyString(), anyLong());
+    }
+
+    @Test
+    void permanentErrorFailsTheOrderAndReleasesItsStock() {
+        when(writer.write(anyList())).thenThrow(new DataIntegrityViolationException("user_id violates foreign key"));
+
+        consumer.process(List.of(record("1-0", "a")), Map.of());
+
+        assertThat(publishedStatuses()).singleElement().satisfies(status -> {
+            assertThat(status.getToken()).isEqualTo("a");
+            assertThat(status.getStatus()).isEqualTo(OrderIntakeStatusDTO.FAILED);
+        });
+        verify(values).increment("stock:" + PRODUCT_ID, 2L);
+        verify(sets).add(StockSyncJob.DIRTY_STOCK_KEY, PRODUCT_ID);
+        verify(streams).acknowledge(eq(OrderIntakeQueue.STREAM_KEY), anyString(), eq(RecordId.of("1-0")));
+        assertThat(meterRegistry.counter("order.intake.failures").count()).isEqualTo(1);
+    }
+
+    @Test
+    void entryDeliveredTooOftenIsDeadLettered() {
+        when(writer.findExisting(anyList())).thenReturn(Map.of());
+
+        consumer.process(List.of(record("1-0", "a")), Map.of(RecordId.of("1-0"), MAX_DELIVERIES + 1L));
+
+        verify(writer, never()).write(anyList());
+        verify(streams).add(any(MapRecord.class));
+        assertThat(publishedStatuses()).singleElement()
+                .extracting(OrderIntakeStatusDTO::getStatus).isEqualTo(OrderIntakeStatusDTO.FAILED);
+        verify(values).increment("stock:" + PRODUCT_ID, 2L);
+        assertThat(meterRegistry.counter("order.intake.dead-letters").count()).isEqualTo(1);
+    }
+
+    @Test
+    void deadLetteredEntryThatWasCommittedIsReportedCompleted() {
+        when(writer.findExisting(anyList())).thenReturn(Map.of("a", 11L));
+
+        consumer.process(List.of(record("1-0", "a")), Map.of(RecordId.of("1-0"), MAX_DELIVERIES + 1L));
+
+        verify(streams, never()).add(any(MapRecord.class));
+        assertThat(publishedStatuses()).singleElement().satisfies(status -> {
+            assertThat(status.getStatus()).isEqualTo(OrderIntakeStatusDTO.COMPLETED);
+            assertThat(status.getOrderId()).isEqualTo(11L);
+        });
+        verify(values, never()).increment(anyString(), anyLong());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ecommerce.product.infrastructure.cache.product;
+
+import com.example.ecommerce.common.cache.NegativeCache;
+import com.example.ecommerce.common.cache.SingleFlight;
+import com.example.ecommerce.common.config.RedisScriptRegistry;
+import com.example.ecommerce.flashsale.infrastructure.persistence.flashsale.FlashSaleTable;
+import com.example.ecommerce.product.api.dto.ProductDTO;
+import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.product.infrastructure.persistence.product.ProductTable;
+import com.example.ecommerce.product.infrastructure.persistence.product.StockReservation;
+import com.example.ecommerce.product.infrastructure.sync.StockSyncJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cart reservations: a product missing behind a live stock counter gives the whole cart back.
+ */
+class CachedProductRepositoryTest {
+
+    private ProductTable productTable;
+    private RedisScriptRegistry scriptRegistry;
+    private CachedProductRepository repository;
+
+    // Two units of product 1 and three of product 2
+    private final Map<Long, Integer> quantities = new LinkedHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        quantities.put(1L, 2);
+        quantities.put(2L, 3);
+
+        productTable = mock(ProductTable.class);
+        scriptRegistry = mock(RedisScriptRegistry.class);
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+
+        repository = new CachedProductRepository(productTable, redisTemplate, mock(FlashSaleTable.class),
+                scriptRegistry, mock(ProductNearCache.class), mock(SingleFlight.class), mock(NegativeCache.class));
+    }
+
+    private void reserveReplies(Object... reply) {
+        when(scriptRegistry.execute(eq(RedisScriptRegistry.STOCK_RESERVE_ALL), eq(List.class), anyList(), any(Object[].class)))
+                .thenReturn(Arrays.asList(reply));
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(10.0);
+        return product;
+    }
+
+    @Test
+    void cachedProductsAreReserved() {
+        reserveReplies(1L, new ProductDTO(1L, "Product 1", null, 10.0, 0, null),
+                new ProductDTO(2L, "Product 2", null, 20.0, 0, null));
+
+        StockReservation reservation = repository.reserveAll(quantities);
+
+        assertThat(reservation.outcome()).isEqualTo(StockReservation.Outcome.RESERVED);
+        assertThat(reservation.products()).containsOnlyKeys(1L, 2L);
+        verify(scriptRegistry, never()).execute(eq(RedisScriptRegistry.STOCK_RELEASE_ALL), any(), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void soldOutLineReservesNothing() {
+        reserveReplies(0L, 2L);
+
+        StockReservation reservation = repository.reserveAll(quantities);
+
+        assertThat(reservation.outcome()).isEqualTo(StockReservation.Outcome.OUT_OF_STOCK);
+        assertThat(reservation.products()).isEmpty();
+        verify(scriptRegistry, never()).execute(eq(RedisScriptRegistry.STOCK_RELEASE_ALL), any(), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void missingProductGivesTheWholeCartBackInOneCall() {
+        // Product 2 has a stock counter but no metadata and no row
+        reserveReplies(1L, new ProductDTO(1L, "Product 1", null, 10.0, 0, null), null);
+        when(productTable.findAllById(List.of(2L))).thenReturn(List.of());
+
+        StockReservation reservation = repository.reserveAll(quantities);
+
+        assertThat(reservation.outcome()).isEqualTo(StockReservation.Outcome.PRODUCT_MISSING);
+        assertThat(reservation.missingIds()).containsExactly(2L);
+        assertThat(reservation.products()).isEmpty();
+        verify(scriptRegistry).execute(eq(RedisScriptRegistry.STOCK_RELEASE_ALL), eq(Long.class),
+                eq(List.of("stock:1", "stock:2", StockSyncJob.DIRTY_STOCK_KEY)),
+                eq(2), eq(3), eq(1L), eq(2L));
+    }
+
+    @Test
+    void uncachedProductsAreLoadedFromTheDatabase() {
+        reserveReplies(1L, null, null);
+        when(productTable.findAllById(List.of(1L, 2L))).thenReturn(List.of(product(1), product(2)));
+
+        StockReservation reservation = repository.reserveAll(quantities);
+
+        assertThat(reservation.outcome()).isEqualTo(StockReservation.Outcome.RESERVED);
+        assertThat(reservation.products().get(2L).getName()).isEqualTo("Product 2");
+    }
+}
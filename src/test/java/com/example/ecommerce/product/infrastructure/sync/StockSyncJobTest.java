@@ -0,0 +1,106 @@
+package com.example.ecommerce.product.infrastructure.sync;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The flusher against an in-memory dirty set: a failed JDBC batch puts its IDs back.
+ */
+class StockSyncJobTest {
+
+    private final Set<Object> dirty = new LinkedHashSet<>();
+    private final Map<String, Object> counters = new HashMap<>();
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private StockSyncJob job;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        SetOperations<String, Object> sets = mock(SetOperations.class);
+        ValueOperations<String, Object> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForSet()).thenReturn(sets);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+
+        when(sets.pop(eq(StockSyncJob.DIRTY_STOCK_KEY), anyLong())).thenAnswer(invocation -> {
+            List<Object> popped = dirty.stream().limit(invocation.<Long>getArgument(1)).toList();
+            popped.forEach(dirty::remove);
+            return new ArrayList<>(popped);
+        });
+        when(sets.add(eq(StockSyncJob.DIRTY_STOCK_KEY), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            return (long) Arrays.stream(args, 1, args.length).filter(dirty::add).count();
+        });
+        when(sets.size(StockSyncJob.DIRTY_STOCK_KEY)).thenAnswer(invocation -> (long) dirty.size());
+        when(values.multiGet(anyList())).thenAnswer(invocation ->
+                invocation.<List<String>>getArgument(0).stream().map(counters::get).toList());
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        meterRegistry = new SimpleMeterRegistry();
+        job = new StockSyncJob(redisTemplate, jdbcTemplate, transactionTemplate, meterRegistry, 2, 100);
+
+        for (long id = 1; id <= 3; id++) {
+            dirty.add(id);
+            counters.put("stock:" + id, 10 * (int) id);
+        }
+    }
+
+    @Test
+    void flushWritesEveryDirtyCounter() {
+        job.syncStockToDatabase();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        assertThat(dirty).isEmpty();
+        assertThat(meterRegistry.get("stock.sync.backlog").gauge().value()).isZero();
+        assertThat(meterRegistry.counter("stock.sync.failures").count()).isZero();
+    }
+
+    @Test
+    void failedBatchPutsItsIdsBack() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new CannotGetJdbcConnectionException("database down"));
+
+        job.syncStockToDatabase();
+
+        assertThat(dirty).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(meterRegistry.counter("stock.sync.failures").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("stock.sync.backlog").gauge().value()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.ecommerce.review.infrastructure.cache.review;
+
+import com.example.ecommerce.common.cache.NegativeCache;
+import com.example.ecommerce.common.cache.SingleFlight;
+import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.review.api.dto.ReviewDTO;
+import com.example.ecommerce.review.domain.Review;
+import com.example.ecommerce.review.infrastructure.persistence.review.GradeChange;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewCursor;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewSort;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewStatsTable;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewTable;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewWriter;
+import com.example.ecommerce.review.infrastructure.persistence.review.ReviewWriter.ReviewWrite;
+import com.example.ecommerce.user.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A review write drops only the cached pages that hold its position, and the listings read
+ * afterwards match the database.
+ */
+class CachedReviewRepositoryTest {
+
+    private static final long PRODUCT_ID = 7L;
+    private static final int PAGE_SIZE = 3;
+
+    private static final Comparator<ReviewDTO> NEWEST = Comparator.comparing(ReviewDTO::getId).reversed();
+    private static final Comparator<ReviewDTO> BY_GRADE =
+            Comparator.comparing(ReviewDTO::getGrade).thenComparing(ReviewDTO::getId).reversed();
+
+    // The reviews table, by ID
+    private final Map<Long, ReviewDTO> reviews = new TreeMap<>();
+    // Values and hashes by key
+    private final Map<String, Object> values = new HashMap<>();
+    private final Map<String, Map<Object, Object>> hashes = new HashMap<>();
+    private int pageQueries;
+
+    private ReviewWriter reviewWriter;
+    private CachedReviewRepository repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        int[] grades = {5, 3, 4, 1, 5, 2, 4, 3, 5, 2};
+        for (int i = 0; i < grades.length; i++) {
+            put(i + 1L, grades[i]);
+        }
+
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOps = mock(ValueOperations.class);
+        HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOps);
+        when(valueOps.get(anyString())).thenAnswer(invocation -> values.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> values.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOps).set(anyString(), any(), anyLong(), any());
+        doAnswer(invocation -> hashes.computeIfAbsent(invocation.getArgument(0), k -> new HashMap<>())
+                        .put(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(hashOps).put(anyString(), any(), any());
+        when(hashOps.entries(anyString())).thenAnswer(invocation ->
+                hashes.getOrDefault(invocation.<String>getArgument(0), Map.of()));
+        when(hashOps.delete(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Map<Object, Object> hash = hashes.getOrDefault(invocation.<String>getArgument(0), new HashMap<>());
+            Object[] args = invocation.getArguments();
+            for (int i = 1; i < args.length; i++) {
+                hash.remove(args[i]);
+            }
+            return (long) args.length - 1;
+        });
+        when(redisTemplate.delete(anyString())).thenAnswer(invocation ->
+                values.remove(invocation.<String>getArgument(0)) != null);
+        when(redisTemplate.delete(any(Collection.class))).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            keys.forEach(values::remove);
+            return (long) keys.size();
+        });
+
+        ReviewTable reviewTable = mock(ReviewTable.class);
+        when(reviewTable.findPageNewest(eq(PRODUCT_ID), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long beforeId = invocation.getArgument(1);
+            return page(NEWEST, review -> review.getId() < beforeId, invocation.getArgument(2));
+        });
+        when(reviewTable.findPageByGrade(eq(PRODUCT_ID), anyInt(), anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            int grade = invocation.getArgument(1);
+            long beforeId = invocation.getArgument(2);
+            return page(BY_GRADE, review -> review.getGrade() < grade
+                    || (review.getGrade() == grade && review.getId() < beforeId), invocation.getArgument(3));
+        });
+
+        // Every load runs on the calling thread
+        SingleFlight singleFlight = mock(SingleFlight.class);
+        when(singleFlight.load(anyString(), any(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(2).get());
+
+        reviewWriter = mock(ReviewWriter.class);
+        repository = new CachedReviewRepository(reviewTable, redisTemplate, singleFlight, mock(NegativeCache.class),
+                reviewWriter, mock(ReviewStatsTable.class), mock(ReviewStatsCache.class));
+    }
+
+    private void put(long id, int grade) {
+        reviews.put(id, new ReviewDTO(id, "review " + id, grade, 1L, "user", PRODUCT_ID, "product", null));
+    }
+
+    private List<ReviewDTO> page(Comparator<ReviewDTO> order, Predicate<ReviewDTO> after,
+                                 Pageable pageable) {
+        pageQueries++;
+        return reviews.values().stream().filter(after).sorted(order).limit(pageable.getPageSize()).toList();
+    }
+
+    /**
+     * Every page of a listing through the repository, following the cursors like a client.
+     */
+    private List<Long> walk(ReviewSort sort) {
+        List<Long> ids = new ArrayList<>();
+        ReviewCursor cursor = ReviewCursor.FIRST;
+        while (cursor != null) {
+            List<ReviewDTO> page = repository.findPageByProductIdDTO(PRODUCT_ID, sort, cursor, PAGE_SIZE);
+            page.forEach(review -> ids.add(review.getId()));
+            cursor = page.size() == PAGE_SIZE ? ReviewCursor.of(page.get(page.size() - 1)) : null;
+        }
+        return ids;
+    }
+
+    private static String pageKey(String sort, ReviewCursor after) {
+        return "reviews:product:" + PRODUCT_ID + ":" + sort + ":" + after.key() + ":" + PAGE_SIZE;
+    }
+
+    private List<Long> expected(Comparator<ReviewDTO> order) {
+        return reviews.values().stream().sorted(order).map(ReviewDTO::getId).toList();
+    }
+
+    private static Review review(long id, int grade) {
+        Product product = new Product();
+        product.setId(PRODUCT_ID);
+        User user = new User();
+        user.setId(1L);
+        Review review = new Review();
+        review.setId(id);
+        review.setGrade(grade);
+        review.setProduct(product);
+        review.setUser(user);
+        return review;
+    }
+
+    private void written(long id, int grade, Integer previousGrade) {
+        put(id, grade);
+        when(reviewWriter.save(any())).thenReturn(
+                new ReviewWrite(review(id, grade), PRODUCT_ID, previousGrade, GradeChange.of(previousGrade, grade)));
+    }
+
+    private void cacheBothListings() {
+        walk(ReviewSort.NEWEST);
+        walk(ReviewSort.GRADE);
+        pageQueries = 0;
+    }
+
+    @Test
+    void cachedPagesAreServedWithoutQueries() {
+        cacheBothListings();
+
+        assertThat(walk(ReviewSort.NEWEST)).isEqualTo(expected(NEWEST));
+        assertThat(walk(ReviewSort.GRADE)).isEqualTo(expected(BY_GRADE));
+        assertThat(pageQueries).isZero();
+    }
+
+    @Test
+    void newReviewDropsOnlyThePagesItLandsIn() {
+        cacheBothListings();
+
+        int cachedPages = values.size();
+        written(11L, 3, null);
+        repository.create(new Review());
+
+        // The first newest-first page, and the by-grade page that ends with the 3s
+        assertThat(values).hasSize(cachedPages - 2)
+                .doesNotContainKeys(pageKey("newest", ReviewCursor.FIRST), pageKey("grade", new ReviewCursor(5, 1)));
+        assertThat(walk(ReviewSort.NEWEST)).isEqualTo(expected(NEWEST));
+        assertThat(walk(ReviewSort.GRADE)).isEqualTo(expected(BY_GRADE));
+    }
+
+    @Test
+    void gradeChangeDropsThePagesOfItsOldAndNewPosition() {
+        cacheBothListings();
+
+        // Review 9 drops from the first by-grade page to the last
+        written(9L, 1, 5);
+        repository.update(new Review());
+
+        assertThat(walk(ReviewSort.NEWEST)).isEqualTo(expected(NEWEST));
+        assertThat(walk(ReviewSort.GRADE)).isEqualTo(expected(BY_GRADE));
+    }
+
+    @Test
+    void deleteDropsThePagesItWasIn() {
+        cacheBothListings();
+
+        reviews.remove(4L);
+        when(reviewWriter.delete(4L)).thenReturn(Optional.of(
+                new ReviewWrite(review(4L, 1), PRODUCT_ID, 1, GradeChange.of(1, null))));
+        repository.delete(4L);
+
+        assertThat(walk(ReviewSort.NEWEST)).isEqualTo(expected(NEWEST));
+        assertThat(walk(ReviewSort.GRADE)).isEqualTo(expected(BY_GRADE));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ecommerce.review.infrastructure.persistence.review;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReviewCursorTest {
+
+    @Test
+    void newestFirstOrdersByIdOnly() {
+        ReviewCursor newer = new ReviewCursor(1, 20);
+        ReviewCursor older = new ReviewCursor(5, 10);
+
+        assertThat(newer.precedes(ReviewSort.NEWEST, older)).isTrue();
+        assertThat(older.precedes(ReviewSort.NEWEST, newer)).isFalse();
+    }
+
+    @Test
+    void byGradeOrdersByGradeThenId() {
+        ReviewCursor better = new ReviewCursor(5, 10);
+        ReviewCursor worse = new ReviewCursor(1, 20);
+        ReviewCursor sameGradeNewer = new ReviewCursor(5, 30);
+
+        assertThat(better.precedes(ReviewSort.GRADE, worse)).isTrue();
+        assertThat(worse.precedes(ReviewSort.GRADE, better)).isFalse();
+        assertThat(sameGradeNewer.precedes(ReviewSort.GRADE, better)).isTrue();
+        assertThat(better.precedes(ReviewSort.GRADE, better)).isFalse();
+    }
+
+    @Test
+    void firstPrecedesEveryReview() {
+        ReviewCursor best = new ReviewCursor(GradeChange.MAX_GRADE, Long.MAX_VALUE - 1);
+
+        assertThat(ReviewCursor.FIRST.precedes(ReviewSort.NEWEST, best)).isTrue();
+        assertThat(ReviewCursor.FIRST.precedes(ReviewSort.GRADE, best)).isTrue();
+    }
+
+    @Test
+    void tokenRoundTrips() {
+        ReviewCursor cursor = new ReviewCursor(4, 123_456_789L);
+
+        assertThat(ReviewCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(ReviewCursor.parse(cursor.key())).isEqualTo(cursor);
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertThatThrownBy(() -> ReviewCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ReviewCursor.decode("MTIz")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ReviewCursor.decode("YTpi")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
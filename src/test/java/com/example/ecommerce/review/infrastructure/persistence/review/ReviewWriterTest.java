@@ -0,0 +1,110 @@
+package com.example.ecommerce.review.infrastructure.persistence.review;
+
+import com.example.ecommerce.product.domain.Product;
+import com.example.ecommerce.review.domain.Review;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Review writes move the product's totals by exactly the grade they add and the one they replace.
+ */
+class ReviewWriterTest {
+
+    private static final long PRODUCT_ID = 7L;
+
+    private ReviewTable reviewTable;
+    private ReviewStatsTable reviewStatsTable;
+    private ReviewWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        reviewTable = mock(ReviewTable.class);
+        reviewStatsTable = mock(ReviewStatsTable.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(reviewTable.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        writer = new ReviewWriter(reviewTable, reviewStatsTable, transactionTemplate);
+    }
+
+    private static Review review(Long id, int grade) {
+        Product product = new Product();
+        product.setId(PRODUCT_ID);
+        Review review = new Review();
+        review.setId(id);
+        review.setGrade(grade);
+        review.setProduct(product);
+        return review;
+    }
+
+    private GradeChange appliedChange() {
+        ArgumentCaptor<GradeChange> change = ArgumentCaptor.forClass(GradeChange.class);
+        verify(reviewStatsTable).apply(eq(PRODUCT_ID), change.capture());
+        return change.getValue();
+    }
+
+    @Test
+    void newReviewAddsItsGrade() {
+        ReviewWriter.ReviewWrite write = writer.save(review(null, 4));
+
+        GradeChange change = appliedChange();
+        assertThat(change.countDelta()).isEqualTo(1);
+        assertThat(change.sumDelta()).isEqualTo(4);
+        assertThat(change.gradeDeltas()).containsExactly(0, 0, 0, 1, 0);
+        assertThat(write.previousGrade()).isNull();
+        verify(reviewTable, never()).findGradeForUpdate(any());
+    }
+
+    @Test
+    void updateReplacesTheGradeInTheDatabaseNotTheOneLoaded() {
+        // Loaded at 5, but a concurrent update has since committed 2
+        Review review = review(11L, 5);
+        when(reviewTable.findGradeForUpdate(11L)).thenReturn(2);
+        review.setGrade(3);
+
+        ReviewWriter.ReviewWrite write = writer.save(review);
+
+        GradeChange change = appliedChange();
+        assertThat(change.countDelta()).isZero();
+        assertThat(change.sumDelta()).isEqualTo(1);
+        assertThat(change.gradeDeltas()).containsExactly(0, -1, 1, 0, 0);
+        assertThat(write.previousGrade()).isEqualTo(2);
+    }
+
+    @Test
+    void deleteRemovesTheLockedGrade() {
+        Review review = review(11L, 5);
+        when(reviewTable.findGradeForUpdate(11L)).thenReturn(1);
+        when(reviewTable.findById(11L)).thenReturn(Optional.of(review));
+
+        Optional<ReviewWriter.ReviewWrite> write = writer.delete(11L);
+
+        GradeChange change = appliedChange();
+        assertThat(change.countDelta()).isEqualTo(-1);
+        assertThat(change.sumDelta()).isEqualTo(-1);
+        assertThat(change.gradeDeltas()).containsExactly(-1, 0, 0, 0, 0);
+        assertThat(write).get().extracting(ReviewWriter.ReviewWrite::previousGrade).isEqualTo(1);
+        verify(reviewTable).delete(review);
+    }
+
+    @Test
+    void deletingAMissingReviewLeavesTheTotalsAlone() {
+        assertThat(writer.delete(11L)).isEmpty();
+
+        verify(reviewStatsTable, never()).apply(any(), any());
+        verify(reviewTable, never()).delete(any());
+    }
+}